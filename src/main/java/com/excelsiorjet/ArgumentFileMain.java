@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Starts a main class with the arguments read from a file, one per line, to pass more arguments
+ * than the command line of the O/S allows to runners that do not read argument files themselves.
+ * <p>
+ * Runs in the application JVM during a Test Run, so it depends on nothing but the Java runtime.
+ * </p>
+ * Usage: {@code ArgumentFileMain <main class> <argument file>}
+ */
+public class ArgumentFileMain {
+
+    public static void main(String[] args) throws IOException, ReflectiveOperationException {
+        if (args.length != 2) {
+            System.err.println("Usage: " + ArgumentFileMain.class.getName() + " <main class> <argument file>");
+            System.exit(2);
+        }
+        List<String> lines = Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8);
+        lines.removeIf(line -> line.trim().isEmpty());
+        Method main = Class.forName(args[0]).getMethod("main", String[].class);
+        try {
+            main.invoke(null, (Object) lines.toArray(new String[lines.size()]));
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * User-level cache of native compilation results shared by all projects.
+ * <p>
+ * An entry is a set of files produced by a single compilation (the executable and its sidecar files)
+ * stored under a key computed from all compilation inputs, so that switching back to a previously
+ * built state of a project restores the executable instead of recompiling it.
+ * The modification time of an entry is refreshed on every use, which allows the cache
+ * to be trimmed down to a given size evicting the least recently used entries first.
+ * Hit and miss counters are accumulated in the cache as well.
+ * </p>
+ */
+public class BuildCache implements BuildCacheBackend {
+
+    private static final String STATS_FILE = "stats.properties";
+    private static final String TMP_SUFFIX = ".tmp";
+    // prefix of directories that are not (yet or anymore) cache entries
+    private static final String PRIVATE_PREFIX = ".";
+
+    /**
+     * Serializes updates of the counters within the JVM, as file locks are held on behalf of the whole JVM.
+     */
+    private static final Object STATS_LOCK = new Object();
+
+    private final File root;
+
+    /**
+     * Cache usage counters.
+     */
+    public static class Stats {
+        public long hits;
+        public long misses;
+        public long bytesRestored;
+
+        public int hitRatePercent() {
+            return (hits + misses == 0) ? 0 : (int) (hits * 100 / (hits + misses));
+        }
+    }
+
+    /**
+     * Describes the toolchain producing the cached results, which must be a part of every cache key,
+     * as executables built by the same Excelsior JET version for different platforms are not interchangeable.
+     *
+     * @param osName O/S name, e.g. the "os.name" system property
+     * @param osArch CPU architecture, e.g. the "os.arch" system property
+     */
+    public static String toolchain(String jetVersion, String edition, boolean is64bit, String osName, String osArch) {
+        return jetVersion + " " + edition + " " + (is64bit ? "64-bit" : "32-bit") + " " +
+                osName.toLowerCase(Locale.ROOT) + " " + osArch.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return {@link #toolchain} of the given Excelsior JET installation on this host
+     */
+    public static String toolchain(JetHome jetHome) throws JetHomeException {
+        return toolchain(String.valueOf(jetHome.getJetVersion()), String.valueOf(jetHome.getEdition()), jetHome.is64bit(),
+                System.getProperty("os.name"), System.getProperty("os.arch"));
+    }
+
+    public BuildCache(File root) {
+        this.root = root;
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    File dirFor(String key) {
+        return new File(new File(root, key.substring(0, 2)), key);
+    }
+
+    @Override
+    public List<File> restore(String key, File targetDir) throws IOException {
+        File dir = dirFor(key);
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return null;
+        }
+        List<File> restored = new ArrayList<>();
+        for (File f : files) {
+            File target = new File(targetDir, f.getName());
+            File tmp = new File(targetDir, f.getName() + TMP_SUFFIX);
+            try {
+                copy(f, tmp);
+                Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException e) {
+                // evicted by a concurrent build just now
+                Files.deleteIfExists(tmp.toPath());
+                return null;
+            }
+            restored.add(target);
+        }
+        touch(dir);
+        return restored;
+    }
+
+    @Override
+    public void store(String key, Collection<File> files) throws IOException {
+        File dir = dirFor(key);
+        if (dir.isDirectory()) {
+            touch(dir);
+            return;
+        }
+        File parent = dir.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", parent.getAbsolutePath()));
+        }
+        // other builds may store the same entry concurrently, so fill a private temp directory first
+        File tmp = Files.createTempDirectory(parent.toPath(), PRIVATE_PREFIX + key).toFile();
+        try {
+            for (File f : files) {
+                copy(f, new File(tmp, f.getName()));
+            }
+            Files.move(tmp.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileSystemException e) {
+            if (!dir.isDirectory()) {
+                throw e;
+            }
+            // stored by a concurrent build
+        } finally {
+            if (tmp.exists()) {
+                Utils.cleanDirectory(tmp);
+            }
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        Utils.copyFile(from, to);
+        if (from.canExecute()) {
+            //noinspection ResultOfMethodCallIgnored
+            to.setExecutable(true, false);
+        }
+    }
+
+    private static void touch(File f) {
+        //noinspection ResultOfMethodCallIgnored
+        f.setLastModified(System.currentTimeMillis());
+    }
+
+    private List<File> entries() throws IOException {
+        List<File> entries = new ArrayList<>();
+        if (!root.isDirectory()) {
+            return entries;
+        }
+        try (Stream<Path> paths = Files.walk(root.toPath(), 2)) {
+            paths.filter(p -> p.getNameCount() == root.toPath().getNameCount() + 2)
+                    .map(Path::toFile)
+                    .filter(f -> f.isDirectory() && !f.getName().startsWith(PRIVATE_PREFIX))
+                    .forEach(entries::add);
+        }
+        return entries;
+    }
+
+    private static long entrySize(File entry) {
+        File[] files = entry.listFiles();
+        return (files == null) ? 0 : Arrays.stream(files).mapToLong(File::length).sum();
+    }
+
+    /**
+     * @return total size of the cached files in bytes
+     */
+    public long size() throws IOException {
+        return entries().stream().mapToLong(BuildCache::entrySize).sum();
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits into {@code maxSize} bytes.
+     */
+    public DependencyStore.TrimStats trim(long maxSize) throws IOException {
+        List<File> entries = entries();
+        entries.sort(Comparator.comparingLong(File::lastModified));
+        DependencyStore.TrimStats stats = new DependencyStore.TrimStats();
+        stats.remainingBytes = entries.stream().mapToLong(BuildCache::entrySize).sum();
+        for (File entry : entries) {
+            if (stats.remainingBytes <= maxSize) {
+                break;
+            }
+            long len = entrySize(entry);
+            // move the entry out of the way first, so that it is either restored completely or not found
+            File evicted = new File(entry.getParentFile(), PRIVATE_PREFIX + entry.getName());
+            if (!entry.renameTo(evicted)) {
+                continue;
+            }
+            Utils.cleanDirectory(evicted);
+            stats.removed++;
+            stats.freedBytes += len;
+            stats.remainingBytes -= len;
+        }
+        return stats;
+    }
+
+    /**
+     * Adds a hit or a miss to the counters kept in the cache.
+     *
+     * @param bytesRestored size of the restored entry for a hit, or {@code -1} for a miss
+     * @return the updated counters
+     */
+    public Stats record(long bytesRestored) throws IOException {
+        if (!root.isDirectory() && !root.mkdirs() && !root.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", root.getAbsolutePath()));
+        }
+        File statsFile = new File(root, STATS_FILE);
+        synchronized (STATS_LOCK) {
+            return record(statsFile, bytesRestored);
+        }
+    }
+
+    private static Stats record(File statsFile, long bytesRestored) throws IOException {
+        try (FileChannel channel = FileChannel.open(statsFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            Properties props = new Properties();
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            java.nio.ByteBuffer buf = ByteBuffer.allocate(4096);
+            while (channel.read(buf) > 0) {
+                content.write(buf.array(), 0, buf.position());
+                buf.clear();
+            }
+            props.load(new StringReader(new String(content.toByteArray(), StandardCharsets.ISO_8859_1)));
+
+            Stats stats = new Stats();
+            stats.hits = counter(props, "hits");
+            stats.misses = counter(props, "misses");
+            stats.bytesRestored = counter(props, "bytesRestored");
+            if (bytesRestored >= 0) {
+                stats.hits++;
+                stats.bytesRestored += bytesRestored;
+            } else {
+                stats.misses++;
+            }
+            String updated = "hits=" + stats.hits + "\nmisses=" + stats.misses +
+                    "\nbytesRestored=" + stats.bytesRestored + "\n";
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(updated.getBytes(StandardCharsets.ISO_8859_1)), 0);
+            return stats;
+        }
+    }
+
+    private static long counter(Properties props, String name) {
+        try {
+            return Long.parseLong(props.getProperty(name, "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage of native compilation results keyed by a hash of the compilation inputs.
+ *
+ * @see BuildCache
+ * @see HttpBuildCache
+ */
+public interface BuildCacheBackend {
+
+    /**
+     * Copies the files of the entry with the given key into {@code targetDir}.
+     *
+     * @return the restored files, or {@code null} if there is no such entry
+     */
+    List<File> restore(String key, File targetDir) throws IOException;
+
+    /**
+     * Stores the given files under the given key unless such an entry already exists.
+     */
+    void store(String key, Collection<File> files) throws IOException;
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal HTTP server keeping {@link HttpBuildCache} entries as files in a directory.
+ * It serves as a stand-in for a real shared cache server in tests and small setups.
+ * <p>
+ * As the entries are executables that builds package and run, the server listens on the loopback
+ * interface unless told otherwise and limits the size of uploads.
+ * An archive is accepted only if its content matches the checksum in its name and is never replaced
+ * unless the stored copy got corrupted, while a key may only be pointed at an archive that is stored.
+ * </p>
+ */
+public class BuildCacheServer {
+
+    private static final Pattern ARCHIVE_NAME = Pattern.compile("[0-9a-f]{40}-([0-9a-f]{64})\\.zip");
+    private static final Pattern POINTER_NAME = Pattern.compile("([0-9a-f]{40})\\.sha256");
+    private static final Pattern CHECKSUM = Pattern.compile("[0-9a-f]{64}");
+    private static final int THREADS = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final String LOOPBACK = "127.0.0.1";
+    public static final long DEFAULT_MAX_ENTRY_BYTES = 1024L * 1024 * 1024;
+
+    private final File root;
+    private final long maxEntryBytes;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    /**
+     * Creates a server listening on the loopback interface.
+     *
+     * @param port port to listen on, {@code 0} means any free port
+     */
+    public BuildCacheServer(File root, int port) throws IOException {
+        this(root, LOOPBACK, port, DEFAULT_MAX_ENTRY_BYTES);
+    }
+
+    /**
+     * @param host address to listen on, e.g. "0.0.0.0" for all network interfaces
+     * @param port port to listen on, {@code 0} means any free port
+     * @param maxEntryBytes maximum size of an uploaded entry
+     */
+    public BuildCacheServer(File root, String host, int port, long maxEntryBytes) throws IOException {
+        this.root = root;
+        this.maxEntryBytes = maxEntryBytes;
+        if (!root.isDirectory() && !root.mkdirs() && !root.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", root.getAbsolutePath()));
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getByName(host), port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public BuildCacheServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return the base URL of the cache to be passed to {@link HttpBuildCache}
+     */
+    public String getUrl() {
+        InetAddress address = server.getAddress().getAddress();
+        String host = (address.isAnyLocalAddress() || address.isLoopbackAddress()) ? "localhost" : address.getHostAddress();
+        return "http://" + host + ":" + getPort() + "/";
+    }
+
+    /**
+     * Receives an upload into a temporary file next to the entry.
+     *
+     * @return the temporary file, or {@code null} if the upload is too large
+     */
+    private Path receive(HttpExchange exchange, Path entry) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if ((length != null) && (Long.parseLong(length) > maxEntryBytes)) {
+            return null;
+        }
+        Path tmp = Files.createTempFile(root.toPath(), entry.getFileName().toString(), ".tmp");
+        long size = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = exchange.getRequestBody(); OutputStream out = Files.newOutputStream(tmp)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                size += n;
+                if (size > maxEntryBytes) {
+                    Files.deleteIfExists(tmp);
+                    return null;
+                }
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return tmp;
+    }
+
+    /**
+     * Stores an uploaded archive unless it is stored already, does not match its checksum or is too large.
+     *
+     * @return the HTTP response code
+     */
+    private int putArchive(HttpExchange exchange, Path entry, String checksum) throws IOException {
+        if (Files.exists(entry) && checksum.equals(HttpBuildCache.sha256(entry.toFile()))) {
+            return 409;
+        }
+        Path tmp = receive(exchange, entry);
+        if (tmp == null) {
+            return 413;
+        }
+        try {
+            if (!checksum.equals(HttpBuildCache.sha256(tmp.toFile()))) {
+                return 400;
+            }
+            // replaces a corrupted copy, or an equal one uploaded concurrently
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return 201;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Points a key at a stored archive, replacing the previous pointer.
+     *
+     * @return the HTTP response code
+     */
+    private int putPointer(HttpExchange exchange, Path entry, String key) throws IOException {
+        Path tmp = receive(exchange, entry);
+        if (tmp == null) {
+            return 413;
+        }
+        try {
+            String checksum = new String(Files.readAllBytes(tmp), StandardCharsets.US_ASCII).trim();
+            if (!CHECKSUM.matcher(checksum).matches()
+                    || !Files.isRegularFile(new File(root, HttpBuildCache.archiveName(key, checksum)).toPath())) {
+                return 400;
+            }
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return 201;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int code) throws IOException {
+        // the JDK server fails to reuse a connection after a response without a body,
+        // e.g. to HEAD or to a PUT whose body is left unread, so close it
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.sendResponseHeaders(code, -1);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String name = exchange.getRequestURI().getPath().substring(1);
+            Matcher archive = ARCHIVE_NAME.matcher(name);
+            Matcher pointer = POINTER_NAME.matcher(name);
+            if (!archive.matches() && !pointer.matches()) {
+                respond(exchange, 404);
+                return;
+            }
+            Path entry = new File(root, name).toPath();
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                case "HEAD":
+                    if (!Files.isRegularFile(entry)) {
+                        respond(exchange, 404);
+                    } else if ("HEAD".equals(exchange.getRequestMethod())) {
+                        respond(exchange, 200);
+                    } else {
+                        exchange.sendResponseHeaders(200, Files.size(entry));
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            Files.copy(entry, out);
+                        }
+                    }
+                    break;
+                case "PUT":
+                    int code = archive.matches() ? putArchive(exchange, entry, archive.group(1))
+                                                 : putPointer(exchange, entry, pointer.group(1));
+                    respond(exchange, code);
+                    break;
+                default:
+                    respond(exchange, 405);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Persistent record of the inputs each build stage was last successfully performed with.
+ * <p>
+ * A stage is described by a {@link Fingerprint}, i.e. a set of named inputs.
+ * The stage may be skipped if its current fingerprint equals the recorded one
+ * and its outputs still exist.
+ * To chain stages, the fingerprint of a stage should include the fingerprint of the stage it depends on.
+ * </p>
+ */
+public class BuildManifest {
+
+    private static final String INPUT_SEPARATOR = ".input.";
+
+    /**
+     * Named inputs of a build stage.
+     */
+    public static class Fingerprint {
+
+        private final TreeMap<String, String> inputs = new TreeMap<>();
+
+        /**
+         * Adds an input given by its value.
+         */
+        public Fingerprint add(String name, String value) {
+            inputs.put(name, Utils.sha1(String.valueOf(value)));
+            return this;
+        }
+
+        /**
+         * Adds an input given by the contents of {@code file}, which may not exist.
+         */
+        public Fingerprint addFile(String name, File file) throws IOException {
+            inputs.put(name, file.isFile() ? Utils.sha1(file) : "-");
+            return this;
+        }
+
+        /**
+         * Adds an output file of a previous stage given by its size and modification time.
+         */
+        public Fingerprint addFileStamp(String name, File file) {
+            return add(name, file.length() + ":" + file.lastModified());
+        }
+
+        public Fingerprint addFingerprint(String name, Fingerprint fingerprint) {
+            inputs.put(name, fingerprint.hash());
+            return this;
+        }
+
+        public String hash() {
+            StringBuilder sb = new StringBuilder();
+            inputs.forEach((name, hash) -> sb.append(name).append('=').append(hash).append('\n'));
+            return Utils.sha1(sb.toString());
+        }
+    }
+
+    private final File file;
+    private final Properties stages = new Properties();
+
+    /**
+     * Loads the manifest from {@code file}. A missing or unreadable file yields an empty manifest.
+     */
+    public BuildManifest(File file) {
+        this.file = file;
+        if (file.isFile()) {
+            try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                stages.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                stages.clear();
+            }
+        }
+    }
+
+    public boolean isRecorded(String stage) {
+        return stages.containsKey(stage);
+    }
+
+    public boolean isUpToDate(String stage, Fingerprint fingerprint) {
+        return fingerprint.hash().equals(stages.getProperty(stage));
+    }
+
+    /**
+     * @return names of the inputs that were added, removed or changed since the stage was last recorded
+     */
+    public List<String> changedInputs(String stage, Fingerprint fingerprint) {
+        String prefix = stage + INPUT_SEPARATOR;
+        Map<String, String> recorded = new TreeMap<>();
+        for (String key : stages.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                recorded.put(key.substring(prefix.length()), stages.getProperty(key));
+            }
+        }
+        List<String> changed = new ArrayList<>();
+        fingerprint.inputs.forEach((name, hash) -> {
+            if (!hash.equals(recorded.remove(name))) {
+                changed.add(name);
+            }
+        });
+        changed.addAll(recorded.keySet());
+        return changed;
+    }
+
+    /**
+     * Forgets the stage, so that a failure in the middle of it is not mistaken for its completion.
+     */
+    public void invalidate(String stage) throws IOException {
+        if (remove(stage)) {
+            save();
+        }
+    }
+
+    /**
+     * Forgets all stages.
+     */
+    public void clear() throws IOException {
+        if (!stages.isEmpty()) {
+            stages.clear();
+            save();
+        }
+    }
+
+    /**
+     * Records that the stage has been performed with the given inputs.
+     */
+    public void update(String stage, Fingerprint fingerprint) throws IOException {
+        remove(stage);
+        stages.setProperty(stage, fingerprint.hash());
+        fingerprint.inputs.forEach((name, hash) -> stages.setProperty(stage + INPUT_SEPARATOR + name, hash));
+        save();
+    }
+
+    private boolean remove(String stage) {
+        String prefix = stage + INPUT_SEPARATOR;
+        return stages.keySet().removeIf(key -> key.equals(stage) || ((String) key).startsWith(prefix));
+    }
+
+    private void save() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            stages.store(out, null);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
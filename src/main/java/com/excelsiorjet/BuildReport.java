@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Machine-readable report of a build, written as a properties file,
+ * which describes how the build was performed, e.g. the resources given to the compiler.
+ */
+public class BuildReport {
+
+    private final TreeMap<String, String> values = new TreeMap<>();
+
+    public synchronized BuildReport put(String key, Object value) {
+        values.put(key, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Adds all {@code values} with keys prefixed by {@code prefix + "."}.
+     */
+    public synchronized BuildReport putAll(String prefix, Map<String, String> values) {
+        values.forEach((key, value) -> this.values.put(prefix + "." + key, value));
+        return this;
+    }
+
+    public synchronized String get(String key) {
+        return values.get(key);
+    }
+
+    public synchronized void write(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                out.write(entry.getKey() + "=" + escape(entry.getValue()) + "\n");
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
@@ -25,10 +25,13 @@ import org.apache.maven.plugin.logging.Log;
 
 import java.io.*;
 import java.lang.ProcessBuilder.Redirect;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * A wrapper around {@link ProcessBuilder} that redirects output to Maven {@link Log}.
@@ -41,6 +44,38 @@ public class CmdLineTool {
     private Log log;
     private File workDir;
     private HashMap<String, String> env = new HashMap<>();
+    private Charset outputCharset = Charset.defaultCharset();
+    private OutputPump outputPump = SharedOutputPump.getInstance();
+    private List<ToolEventListener> listeners = new ArrayList<>();
+    private long timeoutMillis;
+    private int diagnosticLines = 50;
+    private final ArrayDeque<String> lastLines = new ArrayDeque<>();
+    private OutputVerbosity verbosity = OutputVerbosity.FULL;
+    private File outputLogDir;
+    private String outputLogName;
+    private Predicate<String> outputFilter;
+    private final List<Consumer<String>> outputListeners = new ArrayList<>();
+    private String input;
+    private long memorySamplingMillis;
+    private volatile long peakMemory;
+
+    private static final int OUTPUT_LOGS_KEPT = 5;
+    /** time to wait for the output of a tool after its exit if there is no timeout */
+    private static final long OUTPUT_DRAIN_MILLIS = 30000;
+    /** time to wait for the output of a tool exited just before the timeout */
+    private static final long MIN_OUTPUT_DRAIN_MILLIS = 1000;
+    /** intervals of looking up the descendants of a running tool, growing from the first to the last */
+    private static final long MIN_DESCENDANTS_SAMPLING_MILLIS = 10;
+    private static final long MAX_DESCENDANTS_SAMPLING_MILLIS = 1000;
+
+    /**
+     * Running child processes, terminated along with their descendants if the JVM exits (e.g. on Ctrl-C).
+     */
+    private static final Set<Process> running = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> running.forEach(ProcessTree::destroy)));
+    }
 
     public CmdLineTool(String... args) {
         this.args = new ArrayList<>(Arrays.asList(args));
@@ -66,66 +101,442 @@ public class CmdLineTool {
         return this;
     }
 
-    private class OutputReader extends Thread {
+    /**
+     * Sets the charset of the tool output. The default is the platform charset.
+     */
+    public CmdLineTool withOutputCharset(Charset charset) {
+        this.outputCharset = charset;
+        return this;
+    }
+
+    /**
+     * Sets the pump to transfer the tool output to the log. The default is {@link SharedOutputPump}.
+     */
+    public CmdLineTool withOutputPump(OutputPump outputPump) {
+        this.outputPump = outputPump;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time the tool may run. When it is exceeded, a diagnostic snapshot is logged,
+     * the tool is terminated together with all its child processes
+     * and {@link #execute()} throws {@link CmdLineToolException}. {@code 0} means no limit.
+     */
+    public CmdLineTool withTimeout(long timeout, TimeUnit unit) {
+        this.timeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Sets the number of last output lines included into the diagnostic snapshot taken on timeout.
+     */
+    public CmdLineTool withDiagnosticLines(int diagnosticLines) {
+        this.diagnosticLines = diagnosticLines;
+        return this;
+    }
+
+    /**
+     * Sets how much of the tool output is shown in the log. The default is {@link OutputVerbosity#FULL}.
+     */
+    public CmdLineTool withVerbosity(OutputVerbosity verbosity) {
+        this.verbosity = verbosity;
+        return this;
+    }
+
+    /**
+     * Makes the complete tool output be written to the gzip-compressed file {@code <dir>/<name>.log.gz}
+     * regardless of the {@link #withVerbosity verbosity}.
+     *
+     * @see ToolLogFile
+     */
+    public CmdLineTool withOutputLog(File dir, String name) {
+        this.outputLogDir = dir;
+        this.outputLogName = name;
+        return this;
+    }
+
+    /**
+     * Sets a filter of the tool standard output: lines the filter accepts (returns {@code true} for)
+     * are consumed by it and do not reach the log or any listeners.
+     */
+    public CmdLineTool withOutputFilter(Predicate<String> outputFilter) {
+        this.outputFilter = outputFilter;
+        return this;
+    }
+
+    /**
+     * Adds a listener of the tool output lines, both standard and error, that reach the log.
+     */
+    public CmdLineTool withOutputListener(Consumer<String> listener) {
+        this.outputListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Sets the text fed to the standard input of the tool, which is closed afterwards.
+     * By default, the tool inherits the standard input of Maven.
+     */
+    public CmdLineTool withInput(String input) {
+        this.input = input;
+        return this;
+    }
+
+    /**
+     * Makes the peak memory consumption of the tool and its child processes be sampled every
+     * {@code intervalMillis} while it runs (Linux only).
+     *
+     * @see #getPeakMemory()
+     */
+    public CmdLineTool withPeakMemorySampling(long intervalMillis) {
+        this.memorySamplingMillis = intervalMillis;
+        return this;
+    }
+
+    /**
+     * @return the highest total resident set size of the tool and its child processes in bytes observed
+     *         during the last {@link #execute()}, or {@code 0} if it was not sampled
+     */
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+
+    /**
+     * Adds a listener of events recognized in the tool output.
+     *
+     * @see ToolOutputParser
+     */
+    public CmdLineTool withListener(ToolEventListener listener) {
+        this.listeners.add(listener);
+        return this;
+    }
+
+    private void fireEvent(ToolEvent event) {
+        for (ToolEventListener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    private void logLines(List<String> lines, boolean err) {
+        if (log != null) {
+            for (String line : lines) {
+                if (err) {
+                    log.error(line);
+                } else {
+                    log.info(line);
+                }
+            }
+        }
+    }
+
+    private void handleLines(List<String> lines, boolean err, ToolOutputParser parser, ConsoleView console,
+                             ToolLogFile logFile) {
+        if (!err && (outputFilter != null)) {
+            synchronized (outputFilter) {
+                lines = lines.stream().filter(outputFilter.negate()).collect(Collectors.toList());
+            }
+            if (lines.isEmpty()) {
+                return;
+            }
+        }
+        // the listeners go first, as they may take the time a line has been read
+        for (Consumer<String> listener : outputListeners) {
+            lines.forEach(listener);
+        }
+        if (logFile != null) {
+            logFile.write(lines, err);
+        }
+        synchronized (lastLines) {
+            for (String line : lines) {
+                lastLines.addLast(line);
+                if (lastLines.size() > diagnosticLines) {
+                    lastLines.removeFirst();
+                }
+            }
+        }
+        if (console == null) {
+            logLines(lines, err);
+            if (parser != null) {
+                parser.lines(lines);
+            }
+            return;
+        }
+        synchronized (console) {
+            for (String line : lines) {
+                // the console view receives events recognized in the line before the line itself
+                parser.line(line);
+                console.line(line, err);
+            }
+        }
+    }
+
+    /**
+     * A started tool, which may be waited for with {@link #await()} while the caller does something else,
+     * e.g. {@link #signal signals} it.
+     */
+    public class Execution {
+        private final Process process;
+        private final long startMillis = System.currentTimeMillis();
+        private final ToolLogFile logFile;
+        private final ConsoleView console;
+        private final ToolOutputParser parser;
+        private final OutputPump.Drain out;
+        private final OutputPump.Drain err;
+        private final Thread sampler;
+        /** descendants of the tool seen while it was running, which can no longer be found from it after its exit */
+        private final Set<Long> descendants = new LinkedHashSet<>();
+
+        private Execution(ProcessBuilder pb, ToolLogFile logFile) throws IOException {
+            this.logFile = logFile;
+            console = ((log != null) && (verbosity != OutputVerbosity.FULL)) ?
+                    new ConsoleView(log, verbosity, (logFile != null) ? logFile.getFile() : null) : null;
+            parser = (listeners.isEmpty() && (console == null)) ? null :
+                    new ToolOutputParser(event -> {
+                        if (console != null) {
+                            console.onEvent(event);
+                        }
+                        fireEvent(event);
+                    });
+            process = pb.start();
+            running.add(process);
+            sampler = (memorySamplingMillis > 0) ? startMemorySampler(process) : null;
+            out = outputPump.start(process, process.getInputStream(), outputCharset,
+                    lines -> handleLines(lines, false, parser, console, logFile));
+            err = outputPump.start(process, process.getErrorStream(), outputCharset,
+                    lines -> handleLines(lines, true, parser, console, logFile));
+            if (input != null) {
+                writeInput(process, input);
+            }
+        }
+
+        /**
+         * @return the O/S process id of the tool, or -1 if it cannot be determined
+         */
+        public long pid() {
+            return ProcessTree.pid(process);
+        }
+
+        public boolean isAlive() {
+            return process.isAlive();
+        }
+
+        /**
+         * Waits for the tool to exit for at most {@code millis}.
+         *
+         * @return {@code true} if the tool has exited
+         */
+        public boolean waitFor(long millis) throws InterruptedException {
+            return process.waitFor(millis, TimeUnit.MILLISECONDS);
+        }
 
-        BufferedReader reader;
-        boolean err;
+        /**
+         * Sends a signal, such as "TERM" or "INT", to the tool (Unix only).
+         *
+         * @return {@code true} if the signal was sent
+         */
+        public boolean signal(String signal) {
+            return ProcessTree.signal(pid(), signal);
+        }
 
-        OutputReader(InputStream stream, boolean err) {
-            this.reader = new BufferedReader(new InputStreamReader(stream));
-            this.err = err;
+        /**
+         * Terminates the tool together with all its child processes.
+         */
+        public void destroy() {
+            ProcessTree.destroy(process);
         }
 
-        public void run() {
+        /**
+         * Waits for the tool to exit, but no longer than the {@link #withTimeout timeout} since its start.
+         *
+         * @return exit code of the tool
+         */
+        public int await() throws CmdLineToolException {
             try {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (isInterrupted()) {
-                        return;
-                    }
+                if (!waitForExit()) {
+                    logDiagnostics(process);
+                    ProcessTree.destroy(process);
+                    throw new CmdLineToolException(Txt.s("CmdLineTool.Timeout.Error", args.get(0), timeoutMillis / 1000));
+                }
+                if (!awaitOutput()) {
+                    // a grandchild process holds the output pipes open
+                    List<Long> alive = ProcessTree.alive(descendants);
                     if (log != null) {
-                        if (err) {
-                            log.error(line);
-                        } else {
-                            log.info(line);
-                        }
+                        log.warn(Txt.s(alive.isEmpty() ? "CmdLineTool.OutputAbandonedRunning.Warning" :
+                                "CmdLineTool.OutputAbandoned.Warning", args.get(0)));
                     }
+                    closeStreams();
+                    ProcessTree.destroy(alive);
+                }
+            } catch (InterruptedException e) {
+                ProcessTree.destroy(process);
+                Thread.currentThread().interrupt();
+                throw new CmdLineToolException(Txt.s("CmdLineTool.Interrupted.Error", args.get(0)));
+            } finally {
+                running.remove(process);
+                if (sampler != null) {
+                    sampler.interrupt();
                 }
+                closeLogFile();
+            }
+            if (parser != null) {
+                parser.finish();
+            }
+            if (console != null) {
+                console.finish();
+            }
+            return process.exitValue();
+        }
+
+        private void closeLogFile() throws CmdLineToolException {
+            if (logFile != null) {
+                try {
+                    logFile.close();
+                } catch (IOException e) {
+                    throw new CmdLineToolException(e);
+                }
+            }
+        }
+
+        /**
+         * Waits until the output is delivered, but no longer than the rest of the timeout
+         * or, if there is no timeout, {@link #OUTPUT_DRAIN_MILLIS} after the exit.
+         *
+         * @return {@code false} if the output streams are still open
+         */
+        private boolean awaitOutput() throws InterruptedException {
+            long deadline = (timeoutMillis > 0) ? startMillis + timeoutMillis :
+                    System.currentTimeMillis() + OUTPUT_DRAIN_MILLIS;
+            return out.await(Math.max(deadline - System.currentTimeMillis(), MIN_OUTPUT_DRAIN_MILLIS)) &&
+                    err.await(Math.max(deadline - System.currentTimeMillis(), MIN_OUTPUT_DRAIN_MILLIS));
+        }
+
+        private void closeStreams() {
+            try {
+                process.getInputStream().close();
             } catch (IOException ignore) {
             }
+            try {
+                process.getErrorStream().close();
+            } catch (IOException ignore) {
+            }
+        }
+
+        /**
+         * Waits for the process to exit, recording its {@link #descendants} meanwhile.
+         * A descendant started just before the exit of the tool may be missed.
+         *
+         * @return {@code false} if the timeout has expired before the process exited
+         */
+        private boolean waitForExit() throws InterruptedException {
+            long pid = pid();
+            long interval = MIN_DESCENDANTS_SAMPLING_MILLIS;
+            while (true) {
+                long wait = interval;
+                if (timeoutMillis > 0) {
+                    wait = Math.min(wait, Math.max(startMillis + timeoutMillis - System.currentTimeMillis(), 0));
+                }
+                if (process.waitFor(wait, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                if ((timeoutMillis > 0) && (System.currentTimeMillis() >= startMillis + timeoutMillis)) {
+                    return false;
+                }
+                if (pid > 0) {
+                    descendants.addAll(ProcessTree.descendants(pid));
+                }
+                interval = Math.min(interval * 2, MAX_DESCENDANTS_SAMPLING_MILLIS);
+            }
         }
     }
 
-    public int execute() throws CmdLineToolException {
-        try {
-            ProcessBuilder pb = new ProcessBuilder(args).directory(workDir).redirectInput(Redirect.INHERIT);
-            if (!env.isEmpty()) {
-                Map<String, String> penv = pb.environment();
-                if (Utils.isWindows()) {
-                    for (String key : penv.keySet()) {
-                        String keyUpper = key.toUpperCase();
-                        if (env.containsKey(keyUpper)) {
-                            penv.put(key, env.get(keyUpper));
-                            env.remove(keyUpper);
-                        }
+    /**
+     * Feeds {@code input} to the standard input of the process and closes it, in a separate thread,
+     * as the process may not read it all before it produces output.
+     */
+    private static void writeInput(Process process, String input) {
+        Thread writer = new Thread(() -> {
+            try (OutputStream stdin = process.getOutputStream()) {
+                stdin.write(input.getBytes(Charset.defaultCharset()));
+            } catch (IOException ignore) {
+                // the process has exited or closed its input
+            }
+        }, "stdin writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Starts the tool without waiting for it to exit.
+     */
+    public Execution start() throws CmdLineToolException {
+        ProcessBuilder pb = new ProcessBuilder(args).directory(workDir)
+                .redirectInput((input != null) ? Redirect.PIPE : Redirect.INHERIT);
+        if (!env.isEmpty()) {
+            Map<String, String> penv = pb.environment();
+            if (Utils.isWindows()) {
+                for (String key : penv.keySet()) {
+                    String keyUpper = key.toUpperCase();
+                    if (env.containsKey(keyUpper)) {
+                        penv.put(key, env.get(keyUpper));
+                        env.remove(keyUpper);
                     }
                 }
-                penv.putAll(env);
-            }
-            Process process = pb.start();
-            OutputReader inreader = new OutputReader(process.getInputStream(),false);
-            inreader.start();
-            OutputReader errreader = new OutputReader(process.getErrorStream(), true);
-            errreader.start();
-            int exitCode = process.waitFor();
-            inreader.join(0);
-            errreader.join(0);
-            return exitCode;
-        } catch (IOException | InterruptedException e) {
+            }
+            penv.putAll(env);
+        }
+        ToolLogFile logFile = null;
+        try {
+            logFile = (outputLogDir != null) ? new ToolLogFile(outputLogDir, outputLogName, OUTPUT_LOGS_KEPT) : null;
+            return new Execution(pb, logFile);
+        } catch (IOException e) {
+            if (logFile != null) {
+                try {
+                    logFile.close();
+                } catch (IOException ignore) {
+                }
+            }
             throw new CmdLineToolException(e);
         }
     }
 
+    public int execute() throws CmdLineToolException {
+        return start().await();
+    }
+
+    private Thread startMemorySampler(Process process) {
+        peakMemory = 0;
+        long pid = ProcessTree.pid(process);
+        Thread sampler = new Thread(() -> {
+            try {
+                while (process.isAlive()) {
+                    peakMemory = Math.max(peakMemory, ProcessTree.peakMemory(pid));
+                    Thread.sleep(memorySamplingMillis);
+                }
+            } catch (InterruptedException ignore) {
+                // the process has exited
+            }
+        }, "memory sampler of " + args.get(0));
+        sampler.setDaemon(true);
+        sampler.start();
+        return sampler;
+    }
+
+    private void logDiagnostics(Process process) {
+        if (log == null) {
+            return;
+        }
+        log.error(Txt.s("CmdLineTool.Timeout.Snapshot", args.get(0), timeoutMillis / 1000));
+        synchronized (lastLines) {
+            lastLines.forEach(log::error);
+        }
+        String status = ProcessTree.status(ProcessTree.pid(process));
+        if (!status.isEmpty()) {
+            log.error(Txt.s("CmdLineTool.Timeout.Status"));
+            for (String line : status.split("\n")) {
+                log.error(line);
+            }
+        }
+    }
+
     public ArrayList<String> getArgs() {
         return args;
     }
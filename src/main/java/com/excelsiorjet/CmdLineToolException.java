@@ -29,4 +29,8 @@ public class CmdLineToolException extends Exception {
     public CmdLineToolException(Exception e) {
         super(e);
     }
+
+    public CmdLineToolException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Estimates how long the next native compilation of a project will take from the durations of its past
+ * successful compilations, which {@link CompileReport#appendHistory} records in the CSV history of the project.
+ * <p>
+ * For a project that has not been compiled yet, the duration is extrapolated from the size of its inputs
+ * using the average compilation rate of the other projects, whose histories are kept in the same directory.
+ * </p>
+ */
+public class CompileHistory {
+
+    /**
+     * Compilation rate assumed when there is no history at all, in milliseconds per megabyte of jars.
+     */
+    private static final long DEFAULT_MILLIS_PER_MB = 4000;
+    private static final long MB = 1024 * 1024;
+
+    private final File file;
+
+    /**
+     * @param file CSV history of the project, {@code null} if there is none
+     */
+    public CompileHistory(File file) {
+        this.file = file;
+    }
+
+    /**
+     * A past compilation: name of the compiled component, total size of its jars and duration.
+     */
+    private static class Entry {
+        final String name;
+        final long inputBytes;
+        final long millis;
+
+        Entry(String name, long inputBytes, long millis) {
+            this.name = name;
+            this.inputBytes = inputBytes;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * @return successful compilations recorded in the history file, oldest first
+     */
+    private static List<Entry> read(File history) {
+        if (!history.isFile()) {
+            return Collections.emptyList();
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(history.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // the history is merely a hint
+            return Collections.emptyList();
+        }
+        if (lines.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> header = Arrays.asList(lines.get(0).split(","));
+        int name = header.indexOf("name");
+        int exitCode = header.indexOf("exitCode");
+        int inputBytes = header.indexOf("inputBytes");
+        int wallMillis = header.indexOf("wallMillis");
+        if ((name < 0) || (exitCode < 0) || (inputBytes < 0) || (wallMillis < 0)) {
+            // not a compilation history or one written by an older version of the plugin
+            return Collections.emptyList();
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",", -1);
+            if (fields.length != header.size()) {
+                // e.g. a line being appended by a concurrent build
+                continue;
+            }
+            try {
+                Entry entry = new Entry(fields[name], Long.parseLong(fields[inputBytes]),
+                        Long.parseLong(fields[wallMillis]));
+                if ((Integer.parseInt(fields[exitCode]) == 0) && (entry.inputBytes > 0)) {
+                    entries.add(entry);
+                }
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @param name name of the compiled component, as recorded in the history
+     * @param inputBytes total size of the jars to compile
+     * @return expected duration of the compilation in milliseconds
+     */
+    public long estimateMillis(String name, long inputBytes) {
+        if (file == null) {
+            return DEFAULT_MILLIS_PER_MB * inputBytes / MB;
+        }
+        List<Entry> own = read(file);
+        for (int i = own.size() - 1; i >= 0; i--) {
+            Entry last = own.get(i);
+            if (last.name.equals(name)) {
+                // scale the previous duration if the inputs have grown or shrunk since then
+                return last.millis * Math.max(inputBytes, 1) / last.inputBytes;
+            }
+        }
+        long totalMillis = 0;
+        long totalBytes = 0;
+        File[] histories = file.getAbsoluteFile().getParentFile().listFiles((dir, f) -> f.endsWith(".csv"));
+        for (File history : (histories != null) ? histories : new File[0]) {
+            for (Entry entry : read(history)) {
+                totalMillis += entry.millis;
+                totalBytes += entry.inputBytes;
+            }
+        }
+        if (totalBytes > 0) {
+            return (long) ((double) totalMillis / totalBytes * inputBytes);
+        }
+        return DEFAULT_MILLIS_PER_MB * inputBytes / MB;
+    }
+}
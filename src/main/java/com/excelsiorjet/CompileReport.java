@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Statistics of a native compilation collected from the {@link ToolEvent}s of the compiler output:
+ * durations of the compilation phases, numbers of compiled classes and methods, warnings and errors,
+ * along with the size of the result and the peak memory consumption of the compiler.
+ * <p>
+ * The statistics may be appended to a CSV history file, one line per compilation,
+ * to follow compilation time trends across commits.
+ * </p>
+ */
+public class CompileReport implements ToolEventListener {
+
+    static final String HISTORY_HEADER =
+            "timestamp,commit,name,exitCode,inputBytes,wallMillis,reportedMillis,classes,methods,warnings,errors," +
+            "outputBytes,peakMemoryBytes,phases";
+
+    private static final Object HISTORY_LOCK = new Object();
+
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private long classes;
+    private long methods;
+    private int warnings;
+    private int errors;
+    private long reportedMillis;
+    private int exitCode;
+    private long inputBytes;
+    private long wallMillis;
+    private long outputBytes;
+    private long peakMemory;
+
+    @Override
+    public synchronized void onEvent(ToolEvent event) {
+        switch (event.getKind()) {
+            case PHASE_FINISHED:
+                phaseMillis.merge(event.getPhase(), event.getElapsedMillis(), Long::sum);
+                break;
+            case CLASS_COUNT:
+                // the compiler reports running totals
+                classes = Math.max(classes, event.getCount());
+                break;
+            case METHOD_COUNT:
+                methods = Math.max(methods, event.getCount());
+                break;
+            case WARNING:
+                warnings++;
+                break;
+            case ERROR:
+                errors++;
+                break;
+            case TIMING:
+                // -decor=ht prefixes lines with the time elapsed since the start
+                reportedMillis = Math.max(reportedMillis, event.getElapsedMillis());
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Records the results of the compilation not available from its output.
+     *
+     * @param exitCode exit code of the compiler
+     * @param inputBytes total size of the compiled jars
+     * @param wallMillis duration of the compilation as measured by the plugin
+     * @param output the executable or shared library produced, {@code null} if none
+     * @param peakMemory peak memory consumption of the compiler in bytes, {@code 0} if unknown
+     */
+    public synchronized CompileReport finish(int exitCode, long inputBytes, long wallMillis, File output,
+                                             long peakMemory) {
+        this.exitCode = exitCode;
+        this.inputBytes = inputBytes;
+        this.wallMillis = wallMillis;
+        this.outputBytes = (output != null) ? output.length() : 0;
+        this.peakMemory = peakMemory;
+        return this;
+    }
+
+    public synchronized Map<String, Long> getPhaseMillis() {
+        return new LinkedHashMap<>(phaseMillis);
+    }
+
+    public synchronized long getClasses() {
+        return classes;
+    }
+
+    public synchronized long getMethods() {
+        return methods;
+    }
+
+    public synchronized long getWallMillis() {
+        return wallMillis;
+    }
+
+    /**
+     * @return the statistics for the build report
+     */
+    public synchronized Map<String, String> describe() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("exitCode", String.valueOf(exitCode));
+        values.put("inputBytes", String.valueOf(inputBytes));
+        values.put("wallMillis", String.valueOf(wallMillis));
+        values.put("reportedMillis", String.valueOf(reportedMillis));
+        phaseMillis.forEach((phase, millis) -> values.put("phase." + phase + ".millis", String.valueOf(millis)));
+        values.put("classes", String.valueOf(classes));
+        values.put("methods", String.valueOf(methods));
+        values.put("warnings", String.valueOf(warnings));
+        values.put("errors", String.valueOf(errors));
+        values.put("outputBytes", String.valueOf(outputBytes));
+        values.put("peakMemoryBytes", String.valueOf(peakMemory));
+        return values;
+    }
+
+    synchronized String historyLine(long timestamp, String commit, String name) {
+        String phases = phaseMillis.entrySet().stream()
+                .map(e -> e.getKey() + ":" + e.getValue())
+                .collect(Collectors.joining(";"));
+        return timestamp + "," + commit + "," + name + "," + exitCode + "," + inputBytes + "," +
+                wallMillis + "," + reportedMillis + "," +
+                classes + "," + methods + "," + warnings + "," + errors + "," + outputBytes + "," + peakMemory +
+                "," + phases;
+    }
+
+    /**
+     * Appends the statistics to the CSV history file, creating it with a header if it does not exist.
+     * Safe for concurrent use by several builds. The history is also the source of {@link CompileHistory}.
+     *
+     * @param commit revision the compiled sources were built from, may be empty
+     * @param name name of the compiled component, e.g. the executable name
+     */
+    public void appendHistory(File history, String commit, String name) throws IOException {
+        File dir = history.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", dir.getAbsolutePath()));
+        }
+        String line = historyLine(System.currentTimeMillis(), commit, name) + "\n";
+        synchronized (HISTORY_LOCK) {
+            if (history.isFile() && (history.length() > 0) && !HISTORY_HEADER.equals(firstLine(history))) {
+                // written by an older version of the plugin with other columns, keep it aside
+                Files.move(history.toPath(), new File(history.getPath() + ".old").toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (FileChannel channel = FileChannel.open(history.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                 FileLock ignored = channel.lock()) {
+                if (channel.size() == 0) {
+                    line = HISTORY_HEADER + "\n" + line;
+                }
+                channel.write(StandardCharsets.UTF_8.encode(line));
+            }
+        }
+    }
+
+    /**
+     * @return id of the commit checked out in the git working tree containing {@code dir},
+     *         or an empty string if there is none
+     */
+    public static String gitHead(File dir) {
+        for (File d = dir.getAbsoluteFile(); d != null; d = d.getParentFile()) {
+            File git = new File(d, ".git");
+            try {
+                if (git.isFile()) {
+                    // a worktree or a submodule: "gitdir: <path>"
+                    String gitdir = firstLine(git).substring("gitdir:".length()).trim();
+                    git = new File(gitdir).isAbsolute() ? new File(gitdir) : new File(d, gitdir);
+                } else if (!git.isDirectory()) {
+                    continue;
+                }
+                String head = firstLine(new File(git, "HEAD"));
+                return head.startsWith("ref:") ? resolveRef(git, head.substring(4).trim()) : head;
+            } catch (IOException | RuntimeException e) {
+                return "";
+            }
+        }
+        return "";
+    }
+
+    private static String resolveRef(File git, String ref) throws IOException {
+        // a worktree keeps the branches in the common directory
+        File common = git;
+        File commonDir = new File(git, "commondir");
+        if (commonDir.isFile()) {
+            File path = new File(firstLine(commonDir));
+            common = path.isAbsolute() ? path : new File(git, path.getPath());
+        }
+        for (File dir : new File[]{git, common}) {
+            File loose = new File(dir, ref);
+            if (loose.isFile()) {
+                return firstLine(loose);
+            }
+        }
+        File packed = new File(common, "packed-refs");
+        if (packed.isFile()) {
+            for (String line : Files.readAllLines(packed.toPath())) {
+                if (line.endsWith(" " + ref)) {
+                    return line.substring(0, line.indexOf(' '));
+                }
+            }
+        }
+        return "";
+    }
+
+    private static String firstLine(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath());
+        return lines.isEmpty() ? "" : lines.get(0).trim();
+    }
+}
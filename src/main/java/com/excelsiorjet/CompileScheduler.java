@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.lang.ref.WeakReference;
+import java.util.PriorityQueue;
+
+/**
+ * Admits native compilations of the modules of a reactor build running in parallel ({@code mvn -T})
+ * so that they do not overcommit the host.
+ * <p>
+ * A compilation is admitted when fewer than {@link #getMaxConcurrent() maxConcurrent} compilations are running
+ * and its estimated memory consumption fits into the memory budget together with those running,
+ * though a single compilation is always admitted whatever its size.
+ * Waiting compilations are admitted longest-expected-first, which shortens the overall build,
+ * as the longest compilations overlap with the shorter ones instead of running last.
+ * </p>
+ * A single scheduler is shared by all modules built in the JVM.
+ */
+public class CompileScheduler {
+
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * Memory taken by a compilation regardless of the size of its inputs.
+     */
+    static final long BASE_MEMORY = 512 * MB;
+
+    /**
+     * Additional memory taken by a compilation per byte of compiled jars.
+     */
+    static final int MEMORY_PER_INPUT_BYTE = 8;
+
+    private static final CompileScheduler INSTANCE =
+            new CompileScheduler(defaultMaxConcurrent(), defaultMemoryBudget());
+
+    private int maxConcurrent;
+    private long memoryBudget;
+    private WeakReference<Object> configuredFor = new WeakReference<>(null);
+
+    private int running;
+    private long memoryInUse;
+    private long arrivals;
+    private final PriorityQueue<Permit> queue = new PriorityQueue<>((a, b) ->
+            (a.expectedMillis != b.expectedMillis) ?
+                    Long.compare(b.expectedMillis, a.expectedMillis) :
+                    Long.compare(a.arrival, b.arrival));
+
+    /**
+     * Admission to run a compilation, to be {@link #close() closed} when the compilation completes.
+     */
+    public class Permit implements AutoCloseable {
+        private final long memory;
+        private final long expectedMillis;
+        private final long arrival;
+        private long waitedMillis;
+        private boolean admitted;
+        private boolean closed;
+
+        private Permit(long memory, long expectedMillis, long arrival) {
+            this.memory = memory;
+            this.expectedMillis = expectedMillis;
+            this.arrival = arrival;
+        }
+
+        /**
+         * @return how long the compilation waited for admission in milliseconds
+         */
+        public long getWaitedMillis() {
+            return waitedMillis;
+        }
+
+        /**
+         * @return memory reserved for the compilation in bytes
+         */
+        public long getMemory() {
+            return memory;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    CompileScheduler(int maxConcurrent, long memoryBudget) {
+        this.maxConcurrent = maxConcurrent;
+        this.memoryBudget = memoryBudget;
+    }
+
+    public static CompileScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Half the processors, as the compiler itself is multi-threaded in parts.
+     */
+    static int defaultMaxConcurrent() {
+        return Math.max(1, HostResources.processors() / 2);
+    }
+
+    /**
+     * Three quarters of the physical memory (or the cgroup memory limit),
+     * leaving the rest to the O/S and to Maven itself.
+     */
+    static long defaultMemoryBudget() {
+        long limit = HostResources.memoryLimit();
+        return (limit > 0) ? limit / 4 * 3 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Overrides the limits of the scheduler.
+     *
+     * @param maxConcurrent maximum number of concurrent compilations, {@code 0} means the default
+     * @param memoryBudget memory available to concurrent compilations in bytes, {@code 0} means the default
+     */
+    public synchronized void configure(int maxConcurrent, long memoryBudget) {
+        this.maxConcurrent = (maxConcurrent > 0) ? maxConcurrent : defaultMaxConcurrent();
+        this.memoryBudget = (memoryBudget > 0) ? memoryBudget : defaultMemoryBudget();
+        notifyAll();
+    }
+
+    /**
+     * Overrides the limits of the scheduler once per build, as the scheduler is shared by all modules
+     * built in the JVM: the first module of a build sets the limits, and the limits requested
+     * by the other modules of the build are ignored.
+     *
+     * @param build identity of the build, such as its Maven execution request, {@code null} if unknown,
+     *              in which case the limits are always overridden
+     * @param maxConcurrent maximum number of concurrent compilations, {@code 0} means the default
+     * @param memoryBudget memory available to concurrent compilations in bytes, {@code 0} means the default
+     * @return {@code false} if the limits were set by another module of the build and differ from the requested ones
+     */
+    public synchronized boolean configure(Object build, int maxConcurrent, long memoryBudget) {
+        if ((build == null) || (configuredFor.get() != build)) {
+            configure(maxConcurrent, memoryBudget);
+            configuredFor = new WeakReference<>(build);
+            return true;
+        }
+        return ((maxConcurrent <= 0) || (maxConcurrent == this.maxConcurrent)) &&
+                ((memoryBudget <= 0) || (memoryBudget == this.memoryBudget));
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return estimated memory consumption of compiling jars of the given total size in bytes
+     */
+    public static long estimateMemory(long inputBytes) {
+        return BASE_MEMORY + MEMORY_PER_INPUT_BYTE * inputBytes;
+    }
+
+    /**
+     * Waits until the compilation may start.
+     *
+     * @param memory estimated memory consumption of the compilation
+     * @param expectedMillis estimated duration of the compilation
+     */
+    public synchronized Permit acquire(long memory, long expectedMillis) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Permit permit = new Permit(memory, expectedMillis, arrivals++);
+        queue.add(permit);
+        try {
+            while (!(permit == queue.peek() && fits(permit))) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            queue.remove(permit);
+            notifyAll();
+            throw e;
+        }
+        queue.poll();
+        running++;
+        memoryInUse += permit.memory;
+        permit.admitted = true;
+        permit.waitedMillis = System.currentTimeMillis() - start;
+        // the next one in the queue may fit as well
+        notifyAll();
+        return permit;
+    }
+
+    private boolean fits(Permit permit) {
+        return (running == 0) || ((running < maxConcurrent) && (memoryInUse + permit.memory <= memoryBudget));
+    }
+
+    private synchronized void release(Permit permit) {
+        if (!permit.admitted || permit.closed) {
+            return;
+        }
+        permit.closed = true;
+        running--;
+        memoryInUse -= permit.memory;
+        notifyAll();
+    }
+}
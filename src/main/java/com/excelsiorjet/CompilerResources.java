@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap size and number of threads of the Excelsior JET compiler sized for the host it runs on.
+ * <p>
+ * The heap is sized after the compiled jars, as {@link CompileScheduler#estimateMemory} does,
+ * but is capped by the share of the host memory (or the cgroup memory limit) available to one
+ * of the compilations running at once. The threads are the share of the processors (or the cgroup CPU quota),
+ * further limited to those the heap can feed.
+ * The settings do not affect the compiled code, so they are passed on the compiler command line
+ * rather than in the project file.
+ * </p>
+ */
+public class CompilerResources {
+
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * The least heap the compiler is given.
+     */
+    static final long MIN_HEAP = 256 * MB;
+
+    /**
+     * Heap needed to keep a compiler thread busy.
+     */
+    static final long HEAP_PER_THREAD = 128 * MB;
+
+    private final long classpathBytes;
+    private final long memoryLimit;
+    private final int processors;
+    private final int concurrent;
+    private final long heap;
+    private final int threads;
+    private final boolean heapOverridden;
+    private final boolean threadsOverridden;
+
+    CompilerResources(long classpathBytes, long memoryLimit, int processors, int concurrent,
+                      long heapOverride, int threadsOverride) {
+        this.classpathBytes = classpathBytes;
+        this.memoryLimit = memoryLimit;
+        this.processors = processors;
+        this.concurrent = Math.max(1, concurrent);
+        this.heapOverridden = heapOverride > 0;
+        this.threadsOverridden = threadsOverride > 0;
+
+        if (heapOverridden) {
+            heap = heapOverride;
+        } else {
+            long wanted = CompileScheduler.estimateMemory(classpathBytes);
+            // leave a quarter of the memory to the O/S and Maven itself
+            long share = (memoryLimit > 0) ? memoryLimit / 4 * 3 / this.concurrent : wanted;
+            heap = Math.max(MIN_HEAP, Math.min(wanted, share)) / MB * MB;
+        }
+
+        if (threadsOverridden) {
+            threads = threadsOverride;
+        } else {
+            threads = (int) Math.max(1, Math.min(processors / this.concurrent, heap / HEAP_PER_THREAD));
+        }
+    }
+
+    /**
+     * Sizes the compiler for this host.
+     *
+     * @param classpathBytes total size of the compiled jars
+     * @param concurrent number of compilations that may run on the host at once
+     * @param heapOverride heap size in bytes set by the user, {@code 0} means choose automatically
+     * @param threadsOverride number of threads set by the user, {@code 0} means choose automatically
+     */
+    public static CompilerResources forHost(long classpathBytes, int concurrent, long heapOverride, int threadsOverride) {
+        return new CompilerResources(classpathBytes, HostResources.memoryLimit(), HostResources.processors(),
+                concurrent, heapOverride, threadsOverride);
+    }
+
+    public long getHeap() {
+        return heap;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return compiler options applying the settings
+     */
+    public List<String> options() {
+        return Arrays.asList("-compilerheap=" + heap / MB + "m", "-compilerthreads=" + threads);
+    }
+
+    /**
+     * @return the settings and the host resources they were chosen from, for the build report
+     */
+    public Map<String, String> describe() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("heap.mb", String.valueOf(heap / MB));
+        values.put("heap.source", heapOverridden ? "override" : "auto");
+        values.put("threads", String.valueOf(threads));
+        values.put("threads.source", threadsOverridden ? "override" : "auto");
+        values.put("host.memoryLimit.mb", String.valueOf(memoryLimit / MB));
+        values.put("host.processors", String.valueOf(processors));
+        values.put("concurrentCompilations", String.valueOf(concurrent));
+        values.put("classpath.bytes", String.valueOf(classpathBytes));
+        return values;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+
+/**
+ * Condensed console view of a tool output for {@link OutputVerbosity#SUMMARY} and {@link OutputVerbosity#QUIET}.
+ * <p>
+ * Lines recognized as warnings or errors, and lines written to stderr, are always shown.
+ * In the summary mode, the durations of tool phases are shown as they finish,
+ * and other lines are sampled: at most one of them is shown per {@link #SAMPLE_INTERVAL_MILLIS}.
+ * </p>
+ */
+class ConsoleView implements ToolEventListener {
+
+    static final long SAMPLE_INTERVAL_MILLIS = 2000;
+
+    private final Log log;
+    private final OutputVerbosity verbosity;
+    private final File logFile;
+
+    private boolean lineShown;
+    private long lastSampleTime;
+    private long omitted;
+    private long warnings;
+    private long errors;
+
+    ConsoleView(Log log, OutputVerbosity verbosity, File logFile) {
+        this.log = log;
+        this.verbosity = verbosity;
+        this.logFile = logFile;
+    }
+
+    @Override
+    public synchronized void onEvent(ToolEvent event) {
+        switch (event.getKind()) {
+            case WARNING:
+                warnings++;
+                log.warn(event.getLine());
+                lineShown = true;
+                break;
+            case ERROR:
+                errors++;
+                log.error(event.getLine());
+                lineShown = true;
+                break;
+            case PHASE_FINISHED:
+                if (verbosity == OutputVerbosity.SUMMARY) {
+                    log.info(Txt.s("ConsoleView.PhaseFinished.Info", event.getPhase(), event.getElapsedMillis() / 1000.0));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Handles an output line after the events recognized in it were delivered.
+     */
+    synchronized void line(String line, boolean err) {
+        if (lineShown) {
+            lineShown = false;
+            return;
+        }
+        if (err) {
+            log.error(line);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if ((verbosity == OutputVerbosity.SUMMARY) && (now - lastSampleTime >= SAMPLE_INTERVAL_MILLIS)) {
+            lastSampleTime = now;
+            log.info(line);
+        } else {
+            omitted++;
+        }
+    }
+
+    synchronized void finish() {
+        if (omitted > 0) {
+            if (logFile != null) {
+                log.info(Txt.s("ConsoleView.Omitted.Info", omitted, warnings, errors, logFile.getAbsolutePath()));
+            } else {
+                log.info(Txt.s("ConsoleView.OmittedNoFile.Info", omitted, warnings, errors));
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Incrementally stages application jars into the build directory.
+ * <p>
+ * The stager keeps a manifest of staged files recording the source pathname, size, modification time
+ * and content hash of each staged jar. A jar is re-staged only if its source has actually changed,
+ * and files that were staged before but are no longer requested are removed.
+ * Staging is performed by hard-linking the source when the file system allows that,
+ * and by copying otherwise. Copying is done in parallel.
+ * </p>
+ * <p>
+ * If a {@link DependencyStore} is set, jars are first placed into that store and then linked from there,
+ * so that builds of different projects share a single copy of each jar.
+ * </p>
+ */
+public class DependencyStager {
+
+    static final String MANIFEST_FILE = ".staged";
+
+    private final File buildDir;
+    private final File libDir;
+    private final File manifestFile;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private DependencyStore store;
+    private long storeMaxSize;
+
+    /**
+     * Result of a {@link #stage} invocation.
+     */
+    public static class Stats {
+        public int staged;
+        public int upToDate;
+        public int removed;
+        /**
+         * SHA-1 hashes of the staged files by their pathnames relative to the build directory.
+         */
+        public final Map<String, String> hashes = new TreeMap<>();
+    }
+
+    private static class Record {
+        final String source;
+        final long size;
+        final long lastModified;
+        final String hash;
+
+        Record(String source, long size, long lastModified, String hash) {
+            this.source = source;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        static Record of(File source, String hash) {
+            return new Record(source.getAbsolutePath(), source.length(), source.lastModified(), hash);
+        }
+
+        boolean sameSource(File f) {
+            return source.equals(f.getAbsolutePath()) && (size == f.length()) && (lastModified == f.lastModified());
+        }
+    }
+
+    /**
+     * @param buildDir directory to stage files into
+     * @param libDir subdirectory of {@code buildDir} owned by the stager: any file in it that is not staged
+     *               is removed
+     */
+    public DependencyStager(File buildDir, File libDir) {
+        this.buildDir = buildDir;
+        this.libDir = libDir;
+        this.manifestFile = new File(buildDir, MANIFEST_FILE);
+    }
+
+    public DependencyStager withThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    /**
+     * Stages files through the given store.
+     *
+     * @param maxSize the store is trimmed down to this size in bytes after new files are added to it,
+     *                {@code 0} means no limit
+     */
+    public DependencyStager withStore(DependencyStore store, long maxSize) {
+        this.store = store;
+        this.storeMaxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Brings the build directory in sync with the given set of files.
+     *
+     * @param files mapping from a pathname relative to the build directory to the file to be staged there
+     */
+    public Stats stage(Map<String, File> files) throws IOException {
+        Map<String, Record> oldManifest = readManifest();
+        Map<String, Record> newManifest = new ConcurrentHashMap<>();
+        Stats stats = new Stats();
+
+        List<Callable<Void>> work = new ArrayList<>();
+        for (Map.Entry<String, File> entry : files.entrySet()) {
+            String relPath = entry.getKey();
+            File source = entry.getValue();
+            File target = new File(buildDir, relPath);
+            Record old = oldManifest.get(relPath);
+            if ((old != null) && target.isFile() && (target.length() == old.size) && old.sameSource(source)) {
+                newManifest.put(relPath, old);
+                stats.upToDate++;
+                if (store != null) {
+                    store.touch(old.hash);
+                }
+                continue;
+            }
+            work.add(() -> {
+                String hash = Utils.sha1(source);
+                if ((old == null) || !hash.equals(old.hash) || !target.isFile() || (target.length() != source.length())) {
+                    stage(source, hash, target);
+                    synchronized (stats) {
+                        stats.staged++;
+                    }
+                } else {
+                    // touched, but not changed
+                    synchronized (stats) {
+                        stats.upToDate++;
+                    }
+                }
+                newManifest.put(relPath, Record.of(source, hash));
+                return null;
+            });
+        }
+        runAll(work);
+        if ((store != null) && (storeMaxSize > 0) && (stats.staged > 0)) {
+            store.trim(storeMaxSize);
+        }
+
+        newManifest.forEach((relPath, record) -> stats.hashes.put(relPath, record.hash));
+        stats.removed = prune(oldManifest.keySet(), files.keySet());
+        writeManifest(newManifest);
+        return stats;
+    }
+
+    private void runAll(List<Callable<Void>> work) throws IOException {
+        if (work.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, work.size()));
+        try {
+            for (Future<Void> f : executor.invokeAll(work)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void stage(File source, String hash, File target) throws IOException {
+        if (store != null) {
+            File stored = store.put(source, hash);
+            try {
+                stageFile(stored, target);
+                return;
+            } catch (NoSuchFileException e) {
+                // evicted by a concurrent build just now, fall back to the original file
+            }
+        }
+        stageFile(source, target);
+    }
+
+    /**
+     * Places {@code source} to {@code target} never writing through an existing {@code target},
+     * as the latter may be a hard link to some other file.
+     */
+    public static void stageFile(File source, File target) throws IOException {
+        File dir = target.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", dir.getAbsolutePath()));
+        }
+        Path tmp = new File(dir, target.getName() + ".tmp" + Thread.currentThread().getId()).toPath();
+        Files.deleteIfExists(tmp);
+        try {
+            Files.createLink(tmp, source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            // different file systems, or no hard links support
+            Utils.copyFile(source, tmp.toFile());
+        }
+        try {
+            Files.move(tmp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private int prune(Set<String> staged, Set<String> current) throws IOException {
+        Set<Path> keep = new HashSet<>();
+        for (String relPath : current) {
+            keep.add(new File(buildDir, relPath).toPath().normalize());
+        }
+        int removed = 0;
+        for (String relPath : staged) {
+            Path p = new File(buildDir, relPath).toPath().normalize();
+            if (!keep.contains(p) && Files.deleteIfExists(p)) {
+                removed++;
+            }
+        }
+        File[] libFiles = libDir.listFiles();
+        if (libFiles != null) {
+            for (File f : libFiles) {
+                if (f.isFile() && !keep.contains(f.toPath().normalize()) && f.delete()) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private Map<String, Record> readManifest() {
+        Map<String, Record> manifest = new HashMap<>();
+        if (!manifestFile.isFile()) {
+            return manifest;
+        }
+        try (BufferedReader in = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length == 5) {
+                    manifest.put(fields[0], new Record(fields[1], Long.parseLong(fields[2]),
+                            Long.parseLong(fields[3]), fields[4]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // corrupted manifest: restage everything
+            manifest.clear();
+        }
+        return manifest;
+    }
+
+    private void writeManifest(Map<String, Record> manifest) throws IOException {
+        List<String> lines = new ArrayList<>();
+        new TreeMap<>(manifest).forEach((relPath, r) ->
+                lines.add(String.join("\t", relPath, r.source, Long.toString(r.size),
+                        Long.toString(r.lastModified), r.hash)));
+        Files.write(manifestFile.toPath(), lines, StandardCharsets.UTF_8);
+    }
+}
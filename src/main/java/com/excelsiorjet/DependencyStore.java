@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * User-level content-addressed store of dependency jars shared by all projects.
+ * <p>
+ * Jars are kept under names derived from their content hashes, so a jar used by several
+ * projects or modules is stored once and then hard-linked into their build directories.
+ * The modification time of a stored file is refreshed on every use, which allows the store
+ * to be trimmed down to a given size evicting the least recently used files first.
+ * </p>
+ */
+public class DependencyStore {
+
+    private static final String EXT = ".jar";
+
+    private final File root;
+
+    public DependencyStore(File root) {
+        this.root = root;
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    /**
+     * Result of a {@link #trim} invocation.
+     */
+    public static class TrimStats {
+        public int removed;
+        public long freedBytes;
+        public long remainingBytes;
+    }
+
+    File fileFor(String hash) {
+        return new File(new File(root, hash.substring(0, 2)), hash + EXT);
+    }
+
+    /**
+     * Places the given file into the store unless a file with the same content is already there.
+     *
+     * @param source file to store
+     * @param hash SHA-1 hash of the {@code source} contents
+     * @return the stored file
+     */
+    public File put(File source, String hash) throws IOException {
+        File stored = fileFor(hash);
+        if (stored.isFile() && (stored.length() == source.length())) {
+            touch(stored);
+            return stored;
+        }
+        File dir = stored.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", dir.getAbsolutePath()));
+        }
+        // other builds may store the same file concurrently, so write to a private temp file first
+        Path tmp = Files.createTempFile(dir.toPath(), hash, ".tmp");
+        try {
+            Utils.copyFile(source, tmp.toFile());
+            try {
+                Files.move(tmp, stored.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, stored.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return stored;
+    }
+
+    /**
+     * Marks the file with the given hash as recently used, if it is in the store.
+     */
+    public void touch(String hash) {
+        touch(fileFor(hash));
+    }
+
+    private static void touch(File f) {
+        //noinspection ResultOfMethodCallIgnored
+        f.setLastModified(System.currentTimeMillis());
+    }
+
+    private List<File> storedFiles() throws IOException {
+        List<File> files = new ArrayList<>();
+        if (!root.isDirectory()) {
+            return files;
+        }
+        try (Stream<Path> paths = Files.walk(root.toPath(), 2)) {
+            paths.map(Path::toFile)
+                    .filter(f -> f.isFile() && f.getName().endsWith(EXT))
+                    .forEach(files::add);
+        }
+        return files;
+    }
+
+    /**
+     * @return total size of the stored files in bytes
+     */
+    public long size() throws IOException {
+        return storedFiles().stream().mapToLong(File::length).sum();
+    }
+
+    /**
+     * Removes the least recently used files until the store fits into {@code maxSize} bytes.
+     * Files being removed may still be hard-linked from build directories, which does not affect them.
+     */
+    public TrimStats trim(long maxSize) throws IOException {
+        List<File> files = storedFiles();
+        files.sort(Comparator.comparingLong(File::lastModified));
+        TrimStats stats = new TrimStats();
+        stats.remainingBytes = files.stream().mapToLong(File::length).sum();
+        for (File f : files) {
+            if (stats.remainingBytes <= maxSize) {
+                break;
+            }
+            long len = f.length();
+            if (f.delete()) {
+                stats.removed++;
+                stats.freedBytes += len;
+                stats.remainingBytes -= len;
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Description of what execution profiles were collected for: the jars of the application
+ * and the Excelsior JET version and bitness the Test Run was performed with.
+ * <p>
+ * It is kept in a properties file next to the profiles, so that a build can tell whether the profiles
+ * are stale, that is, whether the application or Excelsior JET have changed since they were collected.
+ * The {@link #key() key} of the metadata identifies the profiles in the {@link ExecProfilesStore}.
+ * </p>
+ */
+public class ExecProfilesMetadata {
+
+    private static final String JET_VERSION = "jet.version";
+    private static final String JET_BITNESS = "jet.bitness";
+    private static final String JAR_PREFIX = "jar.";
+
+    private final TreeMap<String, String> values = new TreeMap<>();
+
+    /**
+     * @param jarHashes SHA-1 hashes of the application jars by their paths relative to the build directory
+     */
+    public ExecProfilesMetadata(String jetVersion, boolean is64bit, Map<String, String> jarHashes) {
+        values.put(JET_VERSION, jetVersion);
+        values.put(JET_BITNESS, is64bit ? "64" : "32");
+        // the same profiles may be used on any O/S
+        jarHashes.forEach((jar, hash) -> values.put(JAR_PREFIX + jar.replace(File.separatorChar, '/'), hash));
+    }
+
+    private ExecProfilesMetadata(Properties properties) {
+        properties.stringPropertyNames().forEach(name -> values.put(name, properties.getProperty(name)));
+    }
+
+    /**
+     * @return the metadata saved to {@code file}, or {@code null} if there is none
+     */
+    public static ExecProfilesMetadata read(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        return new ExecProfilesMetadata(properties);
+    }
+
+    public void write(File file) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            // unlike Properties.store(), sorted and without a timestamp, so that the file is VCS-friendly
+            out.write("# Excelsior JET execution profiles were collected for\n");
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                out.write(escape(entry.getKey()) + "=" + entry.getValue() + "\n");
+            }
+        }
+    }
+
+    private static String escape(String key) {
+        return key.replace("\\", "\\\\").replace(" ", "\\ ").replace(":", "\\:").replace("=", "\\=");
+    }
+
+    /**
+     * @return a hash identifying the jars, the Excelsior JET version and bitness
+     */
+    public String key() {
+        StringBuilder sb = new StringBuilder();
+        values.forEach((name, value) -> sb.append(name).append('=').append(value).append('\n'));
+        return Utils.sha1(sb.toString());
+    }
+
+    /**
+     * @return human-readable differences between these (recorded) and the {@code current} metadata,
+     *         empty if the profiles are up to date
+     */
+    public List<String> differences(ExecProfilesMetadata current) {
+        List<String> differences = new ArrayList<>();
+        if (!Objects.equals(values.get(JET_VERSION), current.values.get(JET_VERSION))) {
+            differences.add(Txt.s("ExecProfilesMetadata.JetVersion", values.get(JET_VERSION), current.values.get(JET_VERSION)));
+        }
+        if (!Objects.equals(values.get(JET_BITNESS), current.values.get(JET_BITNESS))) {
+            differences.add(Txt.s("ExecProfilesMetadata.Bitness", values.get(JET_BITNESS), current.values.get(JET_BITNESS)));
+        }
+        Set<String> jars = new TreeSet<>(jars(values));
+        jars.addAll(jars(current.values));
+        for (String jar : jars) {
+            String recorded = values.get(JAR_PREFIX + jar);
+            String now = current.values.get(JAR_PREFIX + jar);
+            if (recorded == null) {
+                differences.add(Txt.s("ExecProfilesMetadata.JarAdded", jar));
+            } else if (now == null) {
+                differences.add(Txt.s("ExecProfilesMetadata.JarRemoved", jar));
+            } else if (!recorded.equals(now)) {
+                differences.add(Txt.s("ExecProfilesMetadata.JarChanged", jar));
+            }
+        }
+        return differences;
+    }
+
+    private static Set<String> jars(Map<String, String> values) {
+        Set<String> jars = new TreeSet<>();
+        for (String name : values.keySet()) {
+            if (name.startsWith(JAR_PREFIX)) {
+                jars.add(name.substring(JAR_PREFIX.length()));
+            }
+        }
+        return jars;
+    }
+}
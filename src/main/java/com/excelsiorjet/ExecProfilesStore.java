@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * User-level store of execution profiles keyed by their {@link ExecProfilesMetadata#key() metadata key},
+ * so that the profiles collected for a combination of application jars and Excelsior JET version and bitness
+ * are reused whenever the build returns to that combination, e.g. when switching branches.
+ * <p>
+ * Layout: {@code <root>/<key>/<profile files>}. Only the {@code maxEntries} most recently used entries are kept.
+ * </p>
+ */
+public class ExecProfilesStore {
+
+    private final File root;
+    private final int maxEntries;
+
+    public ExecProfilesStore(File root, int maxEntries) {
+        this.root = root;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Saves the existing files of {@code profiles} under {@code key}.
+     */
+    public void save(String key, TestRunExecProfiles profiles) throws IOException {
+        File entry = new File(root, key);
+        Utils.cleanDirectory(entry);
+        File tmp = new File(root, "." + key + ".tmp" + Thread.currentThread().getId());
+        if (!tmp.mkdirs() && !tmp.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", tmp.getAbsolutePath()));
+        }
+        for (File file : profiles.getFiles()) {
+            if (file.isFile()) {
+                Utils.copyFile(file, new File(tmp, file.getName()));
+            }
+        }
+        if (!tmp.renameTo(entry)) {
+            // saved concurrently by another build
+            Utils.cleanDirectory(tmp);
+        }
+        prune();
+    }
+
+    /**
+     * Restores the profiles saved under {@code key} to the locations of {@code profiles}.
+     *
+     * @return {@code false} if there are no profiles saved under {@code key}
+     */
+    public boolean restore(String key, TestRunExecProfiles profiles) throws IOException {
+        File entry = new File(root, key);
+        if (!entry.isDirectory()) {
+            return false;
+        }
+        for (File file : profiles.getFiles()) {
+            File saved = new File(entry, file.getName());
+            if (saved.isFile()) {
+                Utils.copyFile(saved, file);
+            } else if (file.isFile() && !file.delete()) {
+                throw new IOException(Txt.s("Utils.CleanDirectory.Failed", file.getAbsolutePath()));
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        entry.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    private void prune() throws IOException {
+        File[] entries = root.listFiles(f -> f.isDirectory() && !f.getName().startsWith("."));
+        if ((entries == null) || (entries.length <= maxEntries)) {
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = maxEntries; i < entries.length; i++) {
+            Utils.cleanDirectory(entries[i]);
+        }
+    }
+}
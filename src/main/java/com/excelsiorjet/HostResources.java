@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Resources of the host the build runs on.
+ */
+public class HostResources {
+
+    private static final File PROC_MEMINFO = new File("/proc/meminfo");
+    private static final File CGROUP_ROOT = new File("/sys/fs/cgroup");
+
+    /**
+     * @return number of processors available to the build, taking the cgroup CPU quota into account
+     */
+    public static int processors() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int quota = cgroupCpuLimit(CGROUP_ROOT);
+        return (quota > 0) ? Math.min(processors, quota) : processors;
+    }
+
+    /**
+     * @return memory the build and its child processes may use in bytes, that is the physical memory
+     *         or the cgroup memory limit, whichever is less, or {@code 0} if it cannot be determined
+     */
+    public static long memoryLimit() {
+        long physical = physicalMemory();
+        long limit = cgroupMemoryLimit(CGROUP_ROOT);
+        if (limit <= 0) {
+            return physical;
+        }
+        return (physical > 0) ? Math.min(physical, limit) : limit;
+    }
+
+    /**
+     * @param root mount point of the cgroup file system
+     * @return memory limit of the cgroup (v2 or v1) in bytes, or {@code 0} if there is none
+     */
+    static long cgroupMemoryLimit(File root) {
+        // cgroup v2: "max" or the number of bytes
+        String v2 = readFirstLine(new File(root, "memory.max"));
+        if (v2 != null) {
+            return v2.equals("max") ? 0 : parseLong(v2);
+        }
+        // cgroup v1: a huge number if unlimited
+        long v1 = parseLong(readFirstLine(new File(root, "memory/memory.limit_in_bytes")));
+        return (v1 >= Long.MAX_VALUE / 2) ? 0 : v1;
+    }
+
+    /**
+     * @param root mount point of the cgroup file system
+     * @return CPU quota of the cgroup (v2 or v1) rounded up to whole processors, or {@code 0} if there is none
+     */
+    static int cgroupCpuLimit(File root) {
+        long quota;
+        long period;
+        // cgroup v2: "<quota> <period>" or "max <period>"
+        String v2 = readFirstLine(new File(root, "cpu.max"));
+        if (v2 != null) {
+            String[] parts = v2.split("\\s+");
+            if (parts[0].equals("max") || (parts.length < 2)) {
+                return 0;
+            }
+            quota = parseLong(parts[0]);
+            period = parseLong(parts[1]);
+        } else {
+            // cgroup v1: -1 if unlimited
+            quota = parseLong(readFirstLine(new File(root, "cpu/cpu.cfs_quota_us")));
+            period = parseLong(readFirstLine(new File(root, "cpu/cpu.cfs_period_us")));
+        }
+        if ((quota <= 0) || (period <= 0)) {
+            return 0;
+        }
+        return (int) Math.max(1, (quota + period - 1) / period);
+    }
+
+    private static String readFirstLine(File file) {
+        if (!file.canRead()) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file.toPath());
+            return lines.isEmpty() ? null : lines.get(0).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long parseLong(String s) {
+        if (s == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return physical memory of the host in bytes, or {@code 0} if it cannot be determined
+     */
+    public static long physicalMemory() {
+        long total = meminfo("MemTotal");
+        return (total > 0) ? total : osMemory("getTotalMemorySize", "getTotalPhysicalMemorySize");
+    }
+
+    /**
+     * @return memory available for starting new processes without swapping in bytes, limited by the headroom
+     *         left in the cgroup, or {@code 0} if it cannot be determined
+     */
+    public static long availableMemory() {
+        long available = meminfo("MemAvailable");
+        if (available <= 0) {
+            available = osMemory("getFreeMemorySize", "getFreePhysicalMemorySize");
+        }
+        long headroom = cgroupMemoryHeadroom(CGROUP_ROOT);
+        if (headroom <= 0) {
+            return available;
+        }
+        return (available > 0) ? Math.min(available, headroom) : headroom;
+    }
+
+    /**
+     * @param root mount point of the cgroup file system
+     * @return memory the cgroup (v2 or v1) may still allocate in bytes, or {@code 0} if it has no limit
+     */
+    static long cgroupMemoryHeadroom(File root) {
+        long limit = cgroupMemoryLimit(root);
+        if (limit <= 0) {
+            return 0;
+        }
+        String v2 = readFirstLine(new File(root, "memory.current"));
+        long usage = (v2 != null) ? parseLong(v2) :
+                parseLong(readFirstLine(new File(root, "memory/memory.usage_in_bytes")));
+        return Math.max(1, limit - usage);
+    }
+
+    /**
+     * Queries the platform MXBean of the JVM for a memory size. The getters are looked up reflectively,
+     * as the ones of Java 8 are deprecated in favor of container-aware ones since Java 14.
+     *
+     * @param names getter names in the order of preference
+     * @return the value of the first getter available, or {@code 0} if none is
+     */
+    private static long osMemory(String... names) {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        for (String name : names) {
+            try {
+                Method getter = Class.forName("com.sun.management.OperatingSystemMXBean").getMethod(name);
+                return (Long) getter.invoke(os);
+            } catch (ReflectiveOperationException | ClassCastException | IllegalArgumentException e) {
+                // not available on this JVM
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return value of the given /proc/meminfo field in bytes, or {@code 0} if it is unavailable
+     */
+    static long meminfo(String field) {
+        if (!PROC_MEMINFO.canRead()) {
+            return 0;
+        }
+        try {
+            for (String line : Files.readAllLines(PROC_MEMINFO.toPath())) {
+                if (line.startsWith(field + ":")) {
+                    // e.g. "MemAvailable:    5663360 kB"
+                    String[] parts = line.substring(field.length() + 1).trim().split("\\s+");
+                    return Long.parseLong(parts[0]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // unknown
+        }
+        return 0;
+    }
+}
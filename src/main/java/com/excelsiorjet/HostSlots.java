@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Host-wide pool of slots limiting the number of Excelsior JET tools run at once by all builds on the host,
+ * including independent Maven processes.
+ * <p>
+ * The pool is a directory with a lock file per slot: a slot is taken by locking its file,
+ * and the O/S releases the lock even if the build process dies.
+ * Builds waiting for a slot queue on an additional lock file, so that only the first one in the queue
+ * polls the slots, and slots go to the builds in the order they have asked for them.
+ * Within a JVM, the queue is guarded by a fair lock, as file locks are held on behalf of the whole JVM.
+ * </p>
+ */
+public class HostSlots {
+
+    private static final String QUEUE_FILE = "queue.lock";
+    private static final String SLOT_FILE_PREFIX = "slot-";
+    private static final String SLOT_FILE_SUFFIX = ".lock";
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Fair in-JVM queues by pool directory.
+     */
+    private static final Map<String, ReentrantLock> jvmQueues = new ConcurrentHashMap<>();
+
+    private final File dir;
+    private final int slots;
+
+    /**
+     * Slot taken by a tool run, to be {@link #close() closed} when the tool completes.
+     */
+    public static class Slot implements AutoCloseable {
+        private final FileChannel channel;
+        private final FileLock lock;
+        private final int index;
+        private final long waitedMillis;
+
+        private Slot(FileChannel channel, FileLock lock, int index, long waitedMillis) {
+            this.channel = channel;
+            this.lock = lock;
+            this.index = index;
+            this.waitedMillis = waitedMillis;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return how long the slot was waited for in milliseconds
+         */
+        public long getWaitedMillis() {
+            return waitedMillis;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * @param dir directory shared by all builds on the host
+     * @param slots number of slots, all builds sharing the directory should use the same number
+     */
+    public HostSlots(File dir, int slots) {
+        this.dir = dir;
+        this.slots = Math.max(1, slots);
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Waits until a slot is free and takes it.
+     */
+    public Slot acquire() throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", dir.getAbsolutePath()));
+        }
+        ReentrantLock jvmQueue = jvmQueues.computeIfAbsent(dir.getAbsolutePath(), d -> new ReentrantLock(true));
+        jvmQueue.lockInterruptibly();
+        try (FileChannel queue = open(new File(dir, QUEUE_FILE));
+             FileLock ignored = queue.lock()) {
+            while (true) {
+                for (int i = 0; i < slots; i++) {
+                    Slot slot = tryTake(i, start);
+                    if (slot != null) {
+                        return slot;
+                    }
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        } finally {
+            jvmQueue.unlock();
+        }
+    }
+
+    private Slot tryTake(int index, long start) throws IOException {
+        FileChannel channel = open(new File(dir, SLOT_FILE_PREFIX + index + SLOT_FILE_SUFFIX));
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return new Slot(channel, lock, index, System.currentTimeMillis() - start);
+            }
+        } catch (OverlappingFileLockException e) {
+            // taken by this JVM
+        }
+        channel.close();
+        return null;
+    }
+
+    private static FileChannel open(File f) throws IOException {
+        return FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Build cache kept on an HTTP server, so that compilation results are shared by several machines,
+ * such as CI agents.
+ * <p>
+ * An entry is a zip archive of the cached files published at {@code <baseUrl>/<key>-<sha256>.zip},
+ * named after its own SHA-256 checksum, so that archives differing in content never share a name.
+ * Once the archive is uploaded, the key is pointed at it by uploading the checksum to {@code <baseUrl>/<key>.sha256}.
+ * An archive is verified against its checksum before it is unpacked, so that corrupted entries are never used,
+ * and a key whose archive is missing or corrupted is published anew by the next {@link #store}.
+ * Both files are fetched with {@code GET} and uploaded with {@code PUT}.
+ * Any server supporting these two methods, e.g. a WebDAV share or {@link BuildCacheServer}, may be used.
+ * </p>
+ */
+public class HttpBuildCache implements BuildCacheBackend {
+
+    private static final String EXT = ".zip";
+    private static final String CHECKSUM_EXT = ".sha256";
+    private static final Pattern CHECKSUM = Pattern.compile("[0-9a-f]{64}");
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 60000;
+
+    private final String baseUrl;
+    private final boolean readOnly;
+    /** keys whose entries failed to restore, to be published anew despite the checksum being present */
+    private final Set<String> broken = Collections.synchronizedSet(new HashSet<>());
+
+    /**
+     * @param readOnly if {@code true}, {@link #store} does nothing,
+     *                 which suits machines that must not publish their results, such as developer boxes
+     */
+    public HttpBuildCache(String baseUrl, boolean readOnly) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.readOnly = readOnly;
+    }
+
+    private HttpURLConnection open(String name, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + name).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        return connection;
+    }
+
+    private IOException error(HttpURLConnection connection) throws IOException {
+        return new IOException(Txt.s("HttpBuildCache.Response.Error", connection.getRequestMethod(),
+                connection.getURL(), connection.getResponseCode(), connection.getResponseMessage()));
+    }
+
+    static String archiveName(String key, String checksum) {
+        return key + "-" + checksum + EXT;
+    }
+
+    /**
+     * @return the checksum of the entry's archive, or {@code null} if the entry is not (completely) stored
+     */
+    private String fetchChecksum(String key) throws IOException {
+        HttpURLConnection connection = open(key + CHECKSUM_EXT, "GET");
+        try {
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw error(connection);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[128];
+                int n;
+                while (((n = in.read(buffer)) > 0) && (out.size() < 1024)) {
+                    out.write(buffer, 0, n);
+                }
+                return new String(out.toByteArray(), StandardCharsets.US_ASCII).trim();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    static String sha256(File file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new FileInputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public List<File> restore(String key, File targetDir) throws IOException {
+        String checksum = fetchChecksum(key);
+        if (checksum == null) {
+            return null;
+        }
+        checksum = checksum.toLowerCase(Locale.ROOT);
+        if (!CHECKSUM.matcher(checksum).matches()) {
+            broken.add(key);
+            throw new IOException(Txt.s("HttpBuildCache.Checksum.Error", baseUrl + key + CHECKSUM_EXT));
+        }
+        HttpURLConnection connection = open(archiveName(key, checksum), "GET");
+        try {
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                broken.add(key);
+                return null;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw error(connection);
+            }
+            // download completely before replacing any file, so that a broken download changes nothing
+            File zip = File.createTempFile(key, EXT);
+            try {
+                try (InputStream in = connection.getInputStream()) {
+                    Files.copy(in, zip.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (!checksum.equals(sha256(zip))) {
+                    broken.add(key);
+                    throw new IOException(Txt.s("HttpBuildCache.Checksum.Error", connection.getURL()));
+                }
+                return unzip(zip, targetDir);
+            } finally {
+                Files.deleteIfExists(zip.toPath());
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static List<File> unzip(File zip, File targetDir) throws IOException {
+        List<File> restored = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+                File target = new File(targetDir, new File(entry.getName()).getName());
+                File tmp = new File(targetDir, target.getName() + ".tmp");
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    if ((entry.getUnixMode() & 0100) != 0) {
+                        //noinspection ResultOfMethodCallIgnored
+                        tmp.setExecutable(true, false);
+                    }
+                    Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tmp.toPath());
+                }
+                restored.add(target);
+            }
+        }
+        return restored;
+    }
+
+    @Override
+    public void store(String key, Collection<File> files) throws IOException {
+        if (readOnly) {
+            return;
+        }
+        if (!broken.contains(key)) {
+            HttpURLConnection head = open(key + CHECKSUM_EXT, "HEAD");
+            try {
+                if (head.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                    return;
+                }
+            } finally {
+                head.disconnect();
+            }
+        }
+
+        File zip = File.createTempFile(key, EXT);
+        try {
+            try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(new BufferedOutputStream(new FileOutputStream(zip)))) {
+                for (File f : files) {
+                    ZipArchiveEntry entry = new ZipArchiveEntry(f.getName());
+                    entry.setUnixMode(f.canExecute() ? 0100755 : 0100644);
+                    out.putArchiveEntry(entry);
+                    Files.copy(f.toPath(), out);
+                    out.closeArchiveEntry();
+                }
+            }
+            String sha256 = sha256(zip);
+            // a conflict means the same archive is stored already, as the name tells its content
+            upload(archiveName(key, sha256), zip, "application/zip");
+            File checksum = File.createTempFile(key, CHECKSUM_EXT);
+            try {
+                Files.write(checksum.toPath(), sha256.getBytes(StandardCharsets.US_ASCII));
+                // the key may point at another complete archive published by a concurrent build meanwhile,
+                // if the server keeps the first one
+                upload(key + CHECKSUM_EXT, checksum, "text/plain");
+            } finally {
+                Files.deleteIfExists(checksum.toPath());
+            }
+            broken.remove(key);
+        } finally {
+            Files.deleteIfExists(zip.toPath());
+        }
+    }
+
+    /**
+     * @return {@code false} if the server refused to replace the existing file
+     */
+    private boolean upload(String name, File file, String contentType) throws IOException {
+        HttpURLConnection put = open(name, "PUT");
+        try {
+            put.setDoOutput(true);
+            put.setFixedLengthStreamingMode(file.length());
+            put.setRequestProperty("Content-Type", contentType);
+            try (OutputStream out = put.getOutputStream()) {
+                Files.copy(file.toPath(), out);
+            }
+            int code = put.getResponseCode();
+            if (code == HttpURLConnection.HTTP_CONFLICT) {
+                return false;
+            }
+            if ((code < 200) || (code >= 300)) {
+                throw error(put);
+            }
+            return true;
+        } finally {
+            put.disconnect();
+        }
+    }
+}
@@ -21,6 +21,8 @@
 */
 package com.excelsiorjet;
 
+import java.io.File;
+
 /**
  * Excelsior JET "jc" tool executor (Java AOT compiler) utility class.
  *
@@ -37,4 +39,11 @@ public class JetCompiler extends JetTool {
     public JetCompiler(JetHome jetHome, String... args) {
         super(jetHome, JET_COMPILER, args);
     }
+
+    /**
+     * Creates an executor compiling the given project file.
+     */
+    public static JetCompiler forProject(JetHome jetHome, File projectFile) {
+        return new JetCompiler(jetHome, "=p", projectFile.getAbsolutePath());
+    }
 }
@@ -24,10 +24,17 @@ package com.excelsiorjet;
 import org.apache.maven.plugin.logging.SystemStreamLog;
 
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Encapsulates the Excelsior JET home directory.
- * 
+ * <p>
+ * Properties of Excelsior JET installations (version, edition, CPU architecture) are cached
+ * in {@link JetHomeCache}, so they are detected once rather than on every instantiation.
+ * </p>
+ *
  * @author Nikita Lipsky
  */
 public class JetHome {
@@ -39,18 +46,29 @@ public class JetHome {
 
     private static final String BIN_DIR = "bin";
 
+    private static final int VERSION_DETECTION_TIMEOUT_SECONDS = 60;
+
     private String jetHome;
 
     private JetEdition edition;
 
     private boolean is64;
 
+    /**
+     * Excelsior JET home directories found in the given PATH value, so that PATH is explored only once per JVM.
+     */
+    private static final Map<String, String> jetHomesInPath = new ConcurrentHashMap<>();
+
     /**
      * @param jetHome Excelsior JET home directory
      * @return Excelsior JET version "multiplied by 100" (i.e. 1150 means version 11.5),
      *         or -1 if {@code jetHome} does not point to an Excelsior JET home directory
      */
     private static int getJetVersion(String jetHome) {
+        JetHomeCache.Entry cached = JetHomeCache.getDefault().get(jetHome, getJetBinDirectory(jetHome));
+        if (cached != null) {
+            return cached.version;
+        }
         File[] files = new File(jetHome, BIN_DIR).listFiles();
         if (files == null) {
             return -1;
@@ -60,7 +78,10 @@ public class JetHome {
             if (fname.startsWith(MARKER_FILE_PREFIX) && fname.endsWith(MARKER_FILE_SUFFIX)) {
                 try {
                      // expected file name: jet<version>.home
-                    return Integer.parseInt(fname.substring(MARKER_FILE_PREFIX.length(), fname.length() - MARKER_FILE_SUFFIX.length()));
+                    int version = Integer.parseInt(fname.substring(MARKER_FILE_PREFIX.length(), fname.length() - MARKER_FILE_SUFFIX.length()));
+                    JetHomeCache.getDefault().put(jetHome,
+                            new JetHomeCache.Entry(fname, f.lastModified(), version, null, false));
+                    return version;
                 } catch (NumberFormatException e) {
                     return -1;
                 }
@@ -69,6 +90,16 @@ public class JetHome {
         return -1;
     }
 
+    /**
+     * Sets the file the properties of Excelsior JET installations are cached in,
+     * {@code ~/.m2/jet-home.cache} by default.
+     *
+     * @param file {@code null} disables the cache, so that the properties are detected by every instance
+     */
+    public static void setPropertiesCache(File file) {
+        JetHomeCache.setDefaultFile(file);
+    }
+
     private static boolean isSupportedJetVersion(String jetHome) {
         return getJetVersion(jetHome) >= MIN_SUPPORTED_JET_VERSION;
     }
@@ -121,10 +152,16 @@ public class JetHome {
                 && !trySetJetHome(System.getenv("JET_HOME"), Txt.s("JetHome.ViaEnvVar.Error.Prefix"))) {
             // try to detect jetHome via path
             String path = System.getenv("PATH");
+            String jetPath = jetHomesInPath.get(path);
+            if ((jetPath != null) && isJetDir(jetPath) && isSupportedJetVersion(jetPath)) {
+                jetHome = jetPath;
+                return;
+            }
             for (String p : path.split(File.pathSeparator)) {
                 if (isJetBinDir(p)) {
-                    String jetPath = new File(p).getParentFile().getAbsolutePath();
+                    jetPath = new File(p).getParentFile().getAbsolutePath();
                     if (isSupportedJetVersion(jetPath)) {
+                        jetHomesInPath.put(path, jetPath);
                         jetHome = jetPath;
                         return;
                     }
@@ -138,6 +175,13 @@ public class JetHome {
         return jetHome;
     }
 
+    /**
+     * @return Excelsior JET version "multiplied by 100" (i.e. 1150 means version 11.5)
+     */
+    public int getJetVersion() {
+        return getJetVersion(jetHome);
+    }
+
     public String getJetBinDirectory() {
         return getJetBinDirectory(getJetHome());
     }
@@ -172,7 +216,8 @@ public class JetHome {
                 public void error(CharSequence charSequence) {
                 }
             });
-            if ((jetCompiler.execute() != 0) || result[0] == null)  {
+            if ((jetCompiler.withTimeout(VERSION_DETECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS).execute() != 0)
+                    || result[0] == null)  {
                 throw new JetHomeException(Txt.s("JetHome.UnableToDetectEdition.Error"));
             }
             return result[0];
@@ -183,12 +228,23 @@ public class JetHome {
 
     private void detectEditionAndCpuArch() throws JetHomeException {
         if (edition == null) {
+            JetHomeCache cache = JetHomeCache.getDefault();
+            JetHomeCache.Entry cached = cache.get(jetHome, getJetBinDirectory());
+            if ((cached != null) && (cached.edition != null)) {
+                edition = cached.edition;
+                is64 = cached.is64;
+                return;
+            }
             String version = obtainVersionString();
-            edition = JetEdition.retrieveEdition(version);
+            JetEdition edition = JetEdition.retrieveEdition(version);
             if (edition == null) {
                 throw new JetHomeException(Txt.s("JetHome.UnableToDetectEdition.Error"));
             }
             is64 = version.contains("64-bit");
+            this.edition = edition;
+            if (cached != null) {
+                cache.put(jetHome, cached.withEditionAndArch(edition, is64));
+            }
         }
     }
 
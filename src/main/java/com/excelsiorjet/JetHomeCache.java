@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of Excelsior JET installation properties, so that they are not re-detected by every {@link JetHome}
+ * instance, in particular without running the compiler to learn the edition.
+ * <p>
+ * Entries are kept in memory for the lifetime of the JVM and persisted to a small file,
+ * {@code ~/.m2/jet-home.cache} unless {@link JetHome#setPropertiesCache configured} otherwise. An entry is valid as long as the {@code jet<version>.home} marker file it was created for
+ * still exists and has the same modification time, so reinstalling or updating Excelsior JET
+ * invalidates it.
+ * </p>
+ */
+class JetHomeCache {
+
+    static final File DEFAULT_FILE = new File(System.getProperty("user.home"), ".m2" + File.separator + "jet-home.cache");
+
+    private static volatile JetHomeCache current = new JetHomeCache(DEFAULT_FILE);
+
+    static class Entry {
+        final String marker;
+        final long markerModified;
+        final int version;
+        final JetEdition edition;
+        final boolean is64;
+
+        Entry(String marker, long markerModified, int version, JetEdition edition, boolean is64) {
+            this.marker = marker;
+            this.markerModified = markerModified;
+            this.version = version;
+            this.edition = edition;
+            this.is64 = is64;
+        }
+
+        Entry withEditionAndArch(JetEdition edition, boolean is64) {
+            return new Entry(marker, markerModified, version, edition, is64);
+        }
+
+        String encode() {
+            return String.join("|", marker, Long.toString(markerModified), Integer.toString(version),
+                    edition == null ? "" : edition.name(), Boolean.toString(is64));
+        }
+
+        static Entry decode(String s) {
+            String[] fields = s.split("\\|", -1);
+            if (fields.length != 5) {
+                return null;
+            }
+            try {
+                JetEdition edition = fields[3].isEmpty() ? null : JetEdition.valueOf(fields[3]);
+                return new Entry(fields[0], Long.parseLong(fields[1]), Integer.parseInt(fields[2]), edition,
+                        Boolean.parseBoolean(fields[4]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private boolean loaded;
+
+    /**
+     * @param file {@code null} makes a disabled cache, which keeps nothing
+     */
+    JetHomeCache(File file) {
+        this.file = (file == null) ? null : file.getAbsoluteFile();
+    }
+
+    static JetHomeCache getDefault() {
+        return current;
+    }
+
+    /**
+     * Makes the default cache persist to {@code file}, keeping the loaded entries if it is the same file.
+     *
+     * @param file {@code null} disables the cache
+     */
+    static synchronized void setDefaultFile(File file) {
+        File abs = (file == null) ? null : file.getAbsoluteFile();
+        if ((abs == null) ? (current.file != null) : !abs.equals(current.file)) {
+            current = new JetHomeCache(abs);
+        }
+    }
+
+    /**
+     * @return cached properties of the given Excelsior JET installation,
+     *         or {@code null} if there are none or they are out of date
+     */
+    Entry get(String jetHome, String binDir) {
+        if (file == null) {
+            return null;
+        }
+        load();
+        Entry e = entries.get(jetHome);
+        if (e == null) {
+            return null;
+        }
+        File marker = new File(binDir, e.marker);
+        if (!marker.isFile() || (marker.lastModified() != e.markerModified)) {
+            entries.remove(jetHome);
+            return null;
+        }
+        return e;
+    }
+
+    void put(String jetHome, Entry e) {
+        if (file == null) {
+            return;
+        }
+        load();
+        entries.put(jetHome, e);
+        save();
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.isFile()) {
+            return;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (IOException e) {
+            // the cache is merely an optimization
+            return;
+        }
+        for (String jetHome : props.stringPropertyNames()) {
+            Entry e = Entry.decode(props.getProperty(jetHome));
+            if (e != null) {
+                entries.putIfAbsent(jetHome, e);
+            }
+        }
+    }
+
+    private synchronized void save() {
+        Properties props = new Properties();
+        entries.forEach((jetHome, e) -> props.setProperty(jetHome, e.encode()));
+        try {
+            File dir = file.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return;
+            }
+            File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+            try {
+                try (OutputStream out = new FileOutputStream(tmp)) {
+                    props.store(out, "Excelsior JET installations");
+                }
+                try {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        } catch (IOException ignore) {
+            // the cache is merely an optimization
+        }
+    }
+}
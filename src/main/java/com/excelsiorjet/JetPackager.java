@@ -21,6 +21,8 @@
 */
 package com.excelsiorjet;
 
+import java.io.File;
+
 /**
  * Excelsior JET "xpack" tool executor utility class.
  *
@@ -37,4 +39,19 @@ public class JetPackager extends JetTool {
     public JetPackager(String... args) throws JetHomeException {
         super(JET_PACKAGER, args);
     }
+
+    /**
+     * Adds the executable and, with split compilation, the shared library of the dependencies
+     * it loads to the root of the package.
+     *
+     * @param exeName executable file name, relative to the working directory
+     * @param library the shared library, or {@code null}
+     */
+    public JetPackager addApplicationFiles(String exeName, File library) {
+        arg("-add-file").arg(exeName).arg("/");
+        if (library != null) {
+            arg("-add-file").arg(library.getName()).arg("/");
+        }
+        return this;
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Excelsior JET compiler project file ({@code .prj}) to be compiled with {@code jc =p <project>}.
+ * <p>
+ * Passing compiler settings via a project file rather than the command line
+ * avoids O/S command line length limits for applications with many dependencies,
+ * and yields a single stable file describing the compilation, which can be inspected, diffed
+ * and fingerprinted.
+ * </p>
+ */
+public class JetProject {
+
+    private final List<String> options = new ArrayList<>();
+    private final LinkedHashMap<String, List<String>> classpath = new LinkedHashMap<>();
+    private final List<String> modules = new ArrayList<>();
+    private final List<String> uses = new ArrayList<>();
+
+    /**
+     * Adds a compiler option, such as {@code -main=Main} or {@code -gui+}.
+     */
+    public JetProject option(String option) {
+        options.add(option);
+        return this;
+    }
+
+    /**
+     * Adds a classpath entry with optional per-entry options (e.g. {@code -optimize=autodetect}).
+     *
+     * @param path jar pathname, relative to the project file location or absolute
+     */
+    public JetProject classpathEntry(String path, String... entryOptions) {
+        classpath.put(path, Arrays.asList(entryOptions));
+        return this;
+    }
+
+    /**
+     * Adds a module, i.e. a non-class input of the compiler, such as a Windows icon or a usage profile.
+     */
+    public JetProject module(String path) {
+        modules.add(path);
+        return this;
+    }
+
+    /**
+     * Makes the compiled component use a native shared library described by another project,
+     * so that the classes compiled into that library are not compiled again.
+     *
+     * @param projectFile project file of the shared library
+     */
+    public JetProject uses(String projectFile) {
+        uses.add(projectFile);
+        return this;
+    }
+
+    public List<String> getOptions() {
+        return Collections.unmodifiableList(options);
+    }
+
+    public Set<String> getClasspath() {
+        return Collections.unmodifiableSet(classpath.keySet());
+    }
+
+    public List<String> getModules() {
+        return Collections.unmodifiableList(modules);
+    }
+
+    public List<String> getUses() {
+        return Collections.unmodifiableList(uses);
+    }
+
+    private static String quote(String s) {
+        return s.contains(" ") ? '"' + s + '"' : s;
+    }
+
+    private static String path(String path) {
+        return quote(path.replace(File.separatorChar, '/'));
+    }
+
+    private static String quoteValue(String option) {
+        int eq = option.indexOf('=');
+        return (eq < 0) ? option : option.substring(0, eq + 1) + quote(option.substring(eq + 1));
+    }
+
+    /**
+     * @return the project file contents
+     */
+    public String content() {
+        StringBuilder sb = new StringBuilder();
+        for (String option : options) {
+            sb.append(quoteValue(option)).append('\n');
+        }
+        for (String projectFile : uses) {
+            sb.append("!uses ").append(path(projectFile)).append('\n');
+        }
+        classpath.forEach((entry, entryOptions) -> {
+            sb.append("!classpathentry ").append(path(entry)).append('\n');
+            for (String option : entryOptions) {
+                sb.append("  ").append(quoteValue(option)).append('\n');
+            }
+            sb.append("!end\n");
+        });
+        for (String module : modules) {
+            sb.append("!module ").append(path(module)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the project to {@code file} unless the file already has the same contents,
+     * so that its modification time changes only when the project does.
+     *
+     * @return {@code true} if the file was (re)written
+     */
+    public boolean write(File file) throws IOException {
+        byte[] content = content().getBytes(StandardCharsets.UTF_8);
+        if (file.isFile() && Arrays.equals(content, Files.readAllBytes(file.toPath()))) {
+            return false;
+        }
+        Files.write(file.toPath(), content);
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incrementally decodes bytes to text lines.
+ * Like {@link java.io.BufferedReader#readLine()}, treats {@code '\n'}, {@code '\r'} and {@code "\r\n"}
+ * as line terminators.
+ */
+class LineDecoder {
+
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars = CharBuffer.allocate(8 * 1024);
+    private ByteBuffer pending = ByteBuffer.allocate(0);
+    private final StringBuilder line = new StringBuilder();
+    private boolean afterCR;
+
+    LineDecoder(Charset charset) {
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Decodes the given bytes.
+     *
+     * @return lines completed by these bytes
+     */
+    List<String> decode(byte[] bytes, int off, int len) {
+        ByteBuffer in;
+        if (pending.hasRemaining()) {
+            in = ByteBuffer.allocate(pending.remaining() + len);
+            in.put(pending).put(bytes, off, len).flip();
+        } else {
+            in = ByteBuffer.wrap(bytes, off, len);
+        }
+        List<String> lines = new ArrayList<>();
+        while (true) {
+            boolean overflow = decoder.decode(in, chars, false).isOverflow();
+            drainChars(lines);
+            if (!overflow) {
+                break;
+            }
+        }
+        // keep an incomplete multi-byte sequence till the next chunk
+        pending = ByteBuffer.allocate(in.remaining());
+        pending.put(in).flip();
+        return lines;
+    }
+
+    /**
+     * Signals end of input.
+     *
+     * @return the last line if it was not terminated
+     */
+    List<String> finish() {
+        List<String> lines = new ArrayList<>();
+        decoder.decode(pending, chars, true);
+        decoder.flush(chars);
+        drainChars(lines);
+        if (line.length() > 0) {
+            lines.add(line.toString());
+            line.setLength(0);
+        }
+        return lines;
+    }
+
+    private void drainChars(List<String> lines) {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\n') {
+                if (!afterCR) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                }
+                afterCR = false;
+            } else if (c == '\r') {
+                lines.add(line.toString());
+                line.setLength(0);
+                afterCR = true;
+            } else {
+                line.append(c);
+                afterCR = false;
+            }
+        }
+        chars.clear();
+    }
+}
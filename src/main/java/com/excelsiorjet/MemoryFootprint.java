@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Memory footprint of a running process and its descendants sampled over time
+ * from {@code /proc/<pid>/status} and {@code /proc/<pid>/smaps} (Linux only).
+ */
+public class MemoryFootprint {
+
+    /**
+     * Memory usage at a moment, in bytes.
+     */
+    public static class Sample {
+        /** time since the start of the process in milliseconds */
+        public final long millis;
+        public long rss;
+        public long peakRss;
+        /** pages mapped by this process only */
+        public long privateBytes;
+        /** pages shared with other processes, e.g. pages of the executable and shared libraries */
+        public long sharedBytes;
+        /** proportional set size: private pages plus a share of the shared pages */
+        public long pss;
+
+        Sample(long millis) {
+            this.millis = millis;
+        }
+    }
+
+    private final List<Sample> samples = new ArrayList<>();
+
+    /**
+     * @return whether memory usage of processes can be sampled on this O/S
+     */
+    public static boolean isSupported() {
+        return Utils.isLinux();
+    }
+
+    /**
+     * Samples the memory usage of the process with its descendants.
+     *
+     * @param millis time since the start of the process
+     * @return {@code false} if the process has exited
+     */
+    public boolean sample(long pid, long millis) {
+        Sample sample = new Sample(millis);
+        List<Long> tree = new ArrayList<>(ProcessTree.descendants(pid));
+        tree.add(0, pid);
+        boolean alive = false;
+        for (long p : tree) {
+            try {
+                List<String> status = Files.readAllLines(new File("/proc/" + p + "/status").toPath());
+                File smaps = new File("/proc/" + p + "/smaps_rollup");
+                if (!smaps.exists()) {
+                    smaps = new File("/proc/" + p + "/smaps");
+                }
+                List<String> maps = Files.readAllLines(smaps.toPath());
+                addStatus(sample, status);
+                addSmaps(sample, maps);
+                alive = true;
+            } catch (IOException | RuntimeException ignore) {
+                // the process has exited
+            }
+        }
+        if (alive) {
+            synchronized (samples) {
+                samples.add(sample);
+            }
+        }
+        return alive;
+    }
+
+    // lines are like "VmRSS:     1234 kB"
+    private static long kb(String line) {
+        return Long.parseLong(line.substring(line.indexOf(':') + 1).trim().split("\\s+")[0]) * 1024;
+    }
+
+    static void addStatus(Sample sample, List<String> status) {
+        for (String line : status) {
+            if (line.startsWith("VmRSS:")) {
+                sample.rss += kb(line);
+            } else if (line.startsWith("VmHWM:")) {
+                sample.peakRss += kb(line);
+            }
+        }
+    }
+
+    /**
+     * Adds the totals of {@code smaps} or {@code smaps_rollup}, which are summed over the mappings.
+     */
+    static void addSmaps(Sample sample, List<String> smaps) {
+        for (String line : smaps) {
+            if (line.startsWith("Private_Clean:") || line.startsWith("Private_Dirty:")) {
+                sample.privateBytes += kb(line);
+            } else if (line.startsWith("Shared_Clean:") || line.startsWith("Shared_Dirty:")) {
+                sample.sharedBytes += kb(line);
+            } else if (line.startsWith("Pss:")) {
+                sample.pss += kb(line);
+            }
+        }
+    }
+
+    void add(Sample sample) {
+        synchronized (samples) {
+            samples.add(sample);
+        }
+    }
+
+    public List<Sample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * @return maximum peak RSS observed
+     */
+    public long peakRss() {
+        return getSamples().stream().mapToLong(s -> Math.max(s.rss, s.peakRss)).max().orElse(0);
+    }
+
+    /**
+     * Returns the samples of the steady state of the application: the ones taken after it became ready or,
+     * if the time it became ready is unknown, in the second half of the run.
+     *
+     * @param readyMillis time since the start when the application became ready, or a negative value
+     */
+    public List<Sample> steadyState(long readyMillis) {
+        List<Sample> all = getSamples();
+        if (all.isEmpty()) {
+            return all;
+        }
+        long from = (readyMillis >= 0) ? readyMillis : all.get(all.size() - 1).millis / 2;
+        List<Sample> steady = all.stream().filter(s -> s.millis >= from).collect(Collectors.toList());
+        return steady.isEmpty() ? Collections.singletonList(all.get(all.size() - 1)) : steady;
+    }
+
+    /**
+     * Writes the samples as CSV.
+     */
+    public void writeCsv(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.println("millis,rss,peakRss,private,shared,pss");
+            for (Sample s : getSamples()) {
+                out.println(s.millis + "," + s.rss + "," + s.peakRss + "," + s.privateBytes + "," + s.sharedBytes + "," + s.pss);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Transfers output of child processes to consumers of text lines.
+ *
+ * @see SharedOutputPump
+ * @see ThreadedOutputPump
+ */
+public interface OutputPump {
+
+    /**
+     * Handle of a stream being pumped.
+     */
+    interface Drain {
+        /**
+         * Waits until the stream is exhausted and all its lines are delivered.
+         */
+        void await() throws InterruptedException;
+
+        /**
+         * Waits at most {@code millis} until the stream is exhausted and all its lines are delivered.
+         *
+         * @return {@code false} if the stream is still open, e.g. held by a grandchild process
+         */
+        boolean await(long millis) throws InterruptedException;
+    }
+
+    /**
+     * Starts pumping the given output stream of {@code process}.
+     *
+     * @param process process owning {@code stream}
+     * @param stream stream to read
+     * @param charset charset to decode {@code stream} with
+     * @param sink consumer of lines read from {@code stream}, delivered in batches
+     */
+    Drain start(Process process, InputStream stream, Charset charset, Consumer<List<String>> sink);
+}
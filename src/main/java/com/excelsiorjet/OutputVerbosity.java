@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+/**
+ * How much of a tool output is shown on the console.
+ *
+ * @see CmdLineTool#withVerbosity(OutputVerbosity)
+ */
+public enum OutputVerbosity {
+    /** Every output line. */
+    FULL,
+    /** Warnings, errors, a rate-limited sample of other lines and phase durations. */
+    SUMMARY,
+    /** Warnings and errors only. */
+    QUIET
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Compares performance measurements of the application, such as startup time, memory footprint and size,
+ * with a stored baseline.
+ * <p>
+ * Measurements are kept as {@link Samples} by metric name, so that repeated measurements of a noisy metric
+ * are compared by their medians, and the noise, estimated as the median absolute deviation of either
+ * the baseline or the current samples, whichever is larger, widens the allowed margin.
+ * </p>
+ */
+public class PerfGate {
+
+    /** scales the median absolute deviation to the standard deviation of normally distributed samples */
+    private static final double MAD_SCALE = 1.4826;
+
+    private final double noiseFactor;
+    private final Map<String, Double> tolerances = new LinkedHashMap<>();
+    private final double defaultTolerance;
+
+    /**
+     * Result of the comparison of a metric.
+     */
+    public static class Check {
+        public final String metric;
+        public final double baseline;
+        public final double current;
+        /** maximum current value not considered a regression */
+        public final double limit;
+
+        Check(String metric, double baseline, double current, double limit) {
+            this.metric = metric;
+            this.baseline = baseline;
+            this.current = current;
+            this.limit = limit;
+        }
+
+        /**
+         * @return {@code true} if the metric is in the baseline, but was not measured
+         */
+        public boolean isMissing() {
+            return Double.isNaN(current);
+        }
+
+        /**
+         * @return {@code true} if the metric has grown beyond the limit or was not measured,
+         *         as a gate passing without data would not guard anything
+         */
+        public boolean isRegression() {
+            return isMissing() || (current > limit);
+        }
+
+        /**
+         * @return relative change of the current value in percent
+         */
+        public double changePercent() {
+            return ((baseline == 0) || isMissing()) ? 0 : (current - baseline) * 100 / baseline;
+        }
+    }
+
+    /**
+     * @param defaultTolerance allowed relative growth of a metric in percent
+     * @param noiseFactor number of (MAD-estimated) standard deviations of noise allowed on top of the tolerance
+     */
+    public PerfGate(double defaultTolerance, double noiseFactor) {
+        this.defaultTolerance = defaultTolerance;
+        this.noiseFactor = noiseFactor;
+    }
+
+    /**
+     * Sets the tolerance in percent for the metrics whose names start with {@code prefix},
+     * the longest matching prefix wins.
+     */
+    public PerfGate withTolerance(String prefix, double tolerance) {
+        tolerances.put(prefix, tolerance);
+        return this;
+    }
+
+    double tolerance(String metric) {
+        String best = null;
+        for (String prefix : tolerances.keySet()) {
+            if (metric.startsWith(prefix) && ((best == null) || (prefix.length() > best.length()))) {
+                best = prefix;
+            }
+        }
+        return (best == null) ? defaultTolerance : tolerances.get(best);
+    }
+
+    public Check check(String metric, Samples baseline, Samples current) {
+        double base = baseline.median();
+        double noise = MAD_SCALE * Math.max(baseline.mad(), current.mad());
+        double limit = base * (1 + tolerance(metric) / 100) + noiseFactor * noise;
+        return new Check(metric, base, current.median(), limit);
+    }
+
+    /**
+     * Compares the metrics of the baseline with the current measurements. The metrics missing
+     * from the current measurements are reported as {@link Check#isMissing missing}.
+     */
+    public List<Check> check(Map<String, Samples> baseline, Map<String, Samples> current) {
+        List<Check> checks = new ArrayList<>();
+        baseline.forEach((metric, samples) -> {
+            if (current.containsKey(metric) && (current.get(metric).size() > 0)) {
+                checks.add(check(metric, samples, current.get(metric)));
+            } else {
+                checks.add(new Check(metric, samples.median(), Double.NaN, Double.NaN));
+            }
+        });
+        return checks;
+    }
+
+    /**
+     * Reads measurements written by {@link #write}.
+     *
+     * @return the measurements by metric name, or {@code null} if the file does not exist
+     */
+    public static Map<String, Samples> read(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            props.load(in);
+        }
+        Map<String, Samples> measurements = new TreeMap<>();
+        try {
+            for (String metric : props.stringPropertyNames()) {
+                measurements.put(metric, Samples.parse(props.getProperty(metric)));
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException(Txt.s("PerfGate.BadBaseline.Error", file.getAbsolutePath(), e.getMessage()));
+        }
+        return measurements;
+    }
+
+    /**
+     * Writes the measurements as a properties file with comma-separated samples, sorted by metric name,
+     * so that the file diffs well under version control.
+     */
+    public static void write(File file, Map<String, Samples> measurements, String comment) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(comment).append('\n');
+        new TreeMap<>(measurements).forEach((metric, samples) ->
+                sb.append(metric).append('=').append(samples).append('\n'));
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Operations on a child process together with all its descendants.
+ * <p>
+ * The plugin has to run on Java 8, which has no API for process trees, so descendants are found
+ * via {@code /proc} on Linux and {@code ps} on OS X, and are killed with {@code kill};
+ * on Windows, {@code taskkill /T} is used.
+ * </p>
+ */
+public class ProcessTree {
+
+    private static final long GRACE_PERIOD_MILLIS = 2000;
+
+    /**
+     * @return the O/S process id of {@code process}, or -1 if it cannot be determined
+     */
+    public static long pid(Process process) {
+        try {
+            // Java 9+
+            Method pid = Process.class.getMethod("pid");
+            return (Long) pid.invoke(process);
+        } catch (ReflectiveOperationException | RuntimeException ignore) {
+        }
+        try {
+            // Java 8 on Unix
+            Field pid = process.getClass().getDeclaredField("pid");
+            pid.setAccessible(true);
+            return pid.getInt(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return ids of all descendants of the given process, children first
+     */
+    static List<Long> descendants(long pid) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        if (Utils.isLinux()) {
+            File[] procs = new File("/proc").listFiles();
+            if (procs != null) {
+                for (File proc : procs) {
+                    long ppid = linuxParentPid(proc);
+                    if (ppid > 0) {
+                        children.computeIfAbsent(ppid, k -> new ArrayList<>()).add(Long.parseLong(proc.getName()));
+                    }
+                }
+            }
+        } else if (Utils.isOSX()) {
+            for (String line : run("ps", "-A", "-o", "pid=,ppid=")) {
+                String[] ids = line.trim().split("\\s+");
+                if (ids.length == 2) {
+                    try {
+                        children.computeIfAbsent(Long.parseLong(ids[1]), k -> new ArrayList<>()).add(Long.parseLong(ids[0]));
+                    } catch (NumberFormatException ignore) {
+                    }
+                }
+            }
+        }
+        List<Long> result = new ArrayList<>();
+        Deque<Long> queue = new ArrayDeque<>(Collections.singleton(pid));
+        while (!queue.isEmpty()) {
+            for (Long child : children.getOrDefault(queue.poll(), Collections.emptyList())) {
+                result.add(child);
+                queue.add(child);
+            }
+        }
+        return result;
+    }
+
+    private static long linuxParentPid(File proc) {
+        if (!proc.getName().chars().allMatch(Character::isDigit)) {
+            return -1;
+        }
+        try {
+            String stat = new String(Files.readAllBytes(new File(proc, "stat").toPath()), StandardCharsets.UTF_8);
+            // the process name in parentheses may contain spaces, so skip it first: "pid (name) state ppid ..."
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return Long.parseLong(fields[1]);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Sends a signal to the given process (Unix only).
+     *
+     * @param signal signal name, such as "TERM" or "INT"
+     * @return {@code true} if the signal was sent
+     */
+    public static boolean signal(long pid, String signal) {
+        if (Utils.isWindows() || (pid <= 0)) {
+            return false;
+        }
+        try {
+            return new ProcessBuilder("kill", "-" + signal, Long.toString(pid)).start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Terminates the process and all its descendants, first gracefully, then forcibly.
+     */
+    public static void destroy(Process process) {
+        // the caller may have been interrupted, which must not prevent waiting for the helper tools below
+        boolean interrupted = Thread.interrupted();
+        try {
+            long pid = pid(process);
+            if (pid > 0) {
+                if (Utils.isWindows()) {
+                    run("taskkill", "/T", "/F", "/PID", Long.toString(pid));
+                } else {
+                    // collect the tree before its root dies and descendants get re-parented
+                    List<Long> tree = new ArrayList<>(descendants(pid));
+                    tree.add(0, pid);
+                    for (long p : tree) {
+                        signal(p, "TERM");
+                    }
+                    try {
+                        process.waitFor(GRACE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                    for (long p : tree) {
+                        if (isAlive(p)) {
+                            signal(p, "KILL");
+                        }
+                    }
+                }
+            }
+            process.destroyForcibly();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Terminates the given processes, first gracefully, then forcibly.
+     * It serves to stop the descendants of an exited process, which can no longer be found from it.
+     */
+    public static void destroy(Collection<Long> pids) {
+        if (pids.isEmpty()) {
+            return;
+        }
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (Utils.isWindows()) {
+                for (long p : pids) {
+                    run("taskkill", "/F", "/PID", Long.toString(p));
+                }
+                return;
+            }
+            for (long p : pids) {
+                signal(p, "TERM");
+            }
+            long deadline = System.currentTimeMillis() + GRACE_PERIOD_MILLIS;
+            while (!alive(pids).isEmpty() && (System.currentTimeMillis() < deadline)) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    break;
+                }
+            }
+            for (long p : alive(pids)) {
+                signal(p, "KILL");
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return those of the given processes that are still running, or all of them if it cannot be determined
+     */
+    public static List<Long> alive(Collection<Long> pids) {
+        return pids.stream().filter(ProcessTree::isAlive).collect(Collectors.toList());
+    }
+
+    private static boolean isAlive(long pid) {
+        if (Utils.isLinux()) {
+            return new File("/proc/" + pid).exists();
+        }
+        return true;
+    }
+
+    /**
+     * @return contents of {@code /proc/<pid>/status} for the process and its descendants, or an empty string
+     *         if it is not available
+     */
+    public static String status(long pid) {
+        if (!Utils.isLinux() || (pid <= 0)) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        List<Long> tree = new ArrayList<>(descendants(pid));
+        tree.add(0, pid);
+        for (long p : tree) {
+            try {
+                sb.append(new String(Files.readAllBytes(new File("/proc/" + p + "/status").toPath()),
+                        StandardCharsets.UTF_8));
+            } catch (IOException ignore) {
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return total peak resident set size ({@code VmHWM}) of the process and its descendants in bytes,
+     *         or {@code 0} if it is not available (Linux only)
+     */
+    public static long peakMemory(long pid) {
+        if (!Utils.isLinux() || (pid <= 0)) {
+            return 0;
+        }
+        long total = 0;
+        List<Long> tree = new ArrayList<>(descendants(pid));
+        tree.add(0, pid);
+        for (long p : tree) {
+            try {
+                for (String line : Files.readAllLines(new File("/proc/" + p + "/status").toPath())) {
+                    if (line.startsWith("VmHWM:")) {
+                        // e.g. "VmHWM:     1234 kB"
+                        total += Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024;
+                    }
+                }
+            } catch (IOException | RuntimeException ignore) {
+                // the process has exited
+            }
+        }
+        return total;
+    }
+
+    private static List<String> run(String... cmd) {
+        List<String> lines = new ArrayList<>();
+        try {
+            Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            p.waitFor();
+        } catch (IOException ignore) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Components of the Java runtime that Java Runtime Slim-Down may detach from the application package,
+ * and the class usage recorded during a Test Run, which tells the components an application never touches.
+ */
+public class RuntimeComponents {
+
+    /**
+     * Detachable components by the packages of their classes.
+     */
+    private static final Map<String, List<String>> COMPONENTS = new LinkedHashMap<>();
+
+    static {
+        COMPONENTS.put("corba", Arrays.asList("org.omg.", "javax.rmi.CORBA.", "com.sun.corba.", "com.sun.org.omg."));
+        COMPONENTS.put("management", Arrays.asList("javax.management.", "sun.management.", "com.sun.jmx.",
+                "com.sun.management."));
+        COMPONENTS.put("xml", Arrays.asList("javax.xml.", "org.w3c.dom.", "org.xml.sax.", "com.sun.org.apache.",
+                "com.sun.xml.internal."));
+        COMPONENTS.put("jndi", Arrays.asList("javax.naming.", "com.sun.jndi.", "com.sun.naming."));
+        COMPONENTS.put("jdbc", Arrays.asList("java.sql.", "javax.sql.", "com.sun.rowset.", "sun.jdbc."));
+        COMPONENTS.put("awt/java2d", Arrays.asList("java.awt.", "sun.awt.", "sun.java2d.", "java.applet.",
+                "javax.imageio.", "sun.font."));
+        COMPONENTS.put("swing", Arrays.asList("javax.swing.", "sun.swing.", "com.sun.java.swing."));
+        COMPONENTS.put("jsound", Arrays.asList("javax.sound.", "com.sun.media.sound."));
+        COMPONENTS.put("rmi", Arrays.asList("java.rmi.", "sun.rmi.", "javax.rmi.", "com.sun.rmi."));
+        COMPONENTS.put("jax-ws", Arrays.asList("javax.xml.ws.", "javax.jws.", "javax.xml.soap.",
+                "com.sun.xml.internal.ws.", "com.sun.xml.internal.messaging."));
+    }
+
+    /**
+     * "[Loaded java.lang.Object from ...]" (Java 8) or "[0.010s][info][class,load] java.lang.Object source: ..."
+     */
+    private static final Pattern LOADED_CLASS = Pattern.compile(
+            "^\\[Loaded (\\S+) from .*]$|^\\[[^]]*]\\[info]\\[class,load\\s*] (\\S+) source: ");
+
+    /**
+     * @return names of all detachable components
+     */
+    public static Set<String> all() {
+        return Collections.unmodifiableSet(COMPONENTS.keySet());
+    }
+
+    /**
+     * @return the class loaded according to a {@code -verbose:class} output line, or {@code null}
+     */
+    public static String loadedClass(String line) {
+        Matcher m = LOADED_CLASS.matcher(line);
+        if (!m.find()) {
+            return null;
+        }
+        return (m.group(1) != null) ? m.group(1) : m.group(2);
+    }
+
+    /**
+     * @return the component the class belongs to, or {@code null} if it is not in a detachable component
+     */
+    public static String componentOf(String className) {
+        // the most specific prefix wins, e.g. javax.xml.ws. is jax-ws, not xml
+        String component = null;
+        int length = 0;
+        for (Map.Entry<String, List<String>> entry : COMPONENTS.entrySet()) {
+            for (String prefix : entry.getValue()) {
+                if (className.startsWith(prefix) && (prefix.length() > length)) {
+                    component = entry.getKey();
+                    length = prefix.length();
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * @return detachable components none of the given classes belongs to
+     */
+    public static Set<String> unused(Collection<String> classNames) {
+        Set<String> unused = new LinkedHashSet<>(COMPONENTS.keySet());
+        for (String className : classNames) {
+            unused.remove(componentOf(className));
+        }
+        return unused;
+    }
+
+    /**
+     * Saves the names of the classes loaded during a Test Run, one per line, sorted.
+     */
+    public static void writeClassUsage(File file, Collection<String> classNames) throws IOException {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(classNames));
+        Files.write(file.toPath(), sorted, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the class names saved by {@link #writeClassUsage}, or {@code null} if the file does not exist
+     */
+    public static List<String> readClassUsage(File file) throws IOException {
+        return file.isFile() ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Measurements of a quantity taken over several runs, e.g. startup times in milliseconds.
+ */
+public class Samples {
+
+    private final List<Long> values = new ArrayList<>();
+
+    public Samples add(long value) {
+        values.add(value);
+        return this;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public List<Long> getValues() {
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * @return samples except the first {@code n} ones, e.g. except the cold run
+     */
+    public Samples skip(int n) {
+        Samples rest = new Samples();
+        values.stream().skip(n).forEach(rest::add);
+        return rest;
+    }
+
+    /**
+     * @param p percentile from 0 to 100
+     * @return the nearest-rank percentile, or {@code 0} if there are no samples
+     */
+    public long percentile(double p) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(p / 100 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size(), rank) - 1));
+    }
+
+    /**
+     * @return the median, or {@code 0} if there are no samples
+     */
+    public double median() {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return (sorted.size() % 2 == 1) ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2.0;
+    }
+
+    /**
+     * @return the median absolute deviation from the median, a measure of the noise robust to outliers
+     */
+    public double mad() {
+        double median = median();
+        List<Double> deviations = values.stream()
+                .map(value -> Math.abs(value - median))
+                .sorted()
+                .collect(Collectors.toList());
+        if (deviations.isEmpty()) {
+            return 0;
+        }
+        int middle = deviations.size() / 2;
+        return (deviations.size() % 2 == 1) ? deviations.get(middle) :
+                (deviations.get(middle - 1) + deviations.get(middle)) / 2;
+    }
+
+    /**
+     * @param values comma-separated values, as written by {@link #toString()}
+     */
+    public static Samples parse(String values) {
+        Samples samples = new Samples();
+        for (String value : values.split(",")) {
+            if (!value.trim().isEmpty()) {
+                samples.add(Long.parseLong(value.trim()));
+            }
+        }
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    public long min() {
+        return percentile(0);
+    }
+
+    public long max() {
+        return percentile(100);
+    }
+
+    /**
+     * Adds the statistics of the samples to the report under {@code prefix}.
+     */
+    public void describe(BuildReport report, String prefix) {
+        report.put(prefix + ".runs", size())
+                .put(prefix + ".min", min())
+                .put(prefix + ".p50", percentile(50))
+                .put(prefix + ".p90", percentile(90))
+                .put(prefix + ".p99", percentile(99))
+                .put(prefix + ".max", max())
+                .put(prefix + ".samples", toString());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link OutputPump} that serves all streams of all running tools with a single thread.
+ * <p>
+ * Process pipes cannot be multiplexed with a selector, so the pump polls the streams for available
+ * data, backing off while they are idle. Once a process exits, the rest of its output is drained
+ * separately, so that a grandchild process holding the pipe open cannot stall other streams.
+ * The pump thread terminates when there is nothing to serve for a while.
+ * </p>
+ */
+public class SharedOutputPump implements OutputPump {
+
+    private static final SharedOutputPump INSTANCE = new SharedOutputPump();
+
+    private static final int MAX_POLL_INTERVAL_MILLIS = 20;
+    private static final int IDLE_TIMEOUT_MILLIS = 1000;
+
+    private final List<Channel> channels = new ArrayList<>();
+    private Thread pumpThread;
+
+    private final ExecutorService finalDrainer = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "JET tool output drainer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public static SharedOutputPump getInstance() {
+        return INSTANCE;
+    }
+
+    private static class Channel implements Drain {
+        final Process process;
+        final InputStream stream;
+        final LineDecoder decoder;
+        final Consumer<List<String>> sink;
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Channel(Process process, InputStream stream, Charset charset, Consumer<List<String>> sink) {
+            this.process = process;
+            this.stream = stream;
+            this.decoder = new LineDecoder(charset);
+            this.sink = sink;
+        }
+
+        void deliver(List<String> lines) {
+            if (!lines.isEmpty()) {
+                sink.accept(lines);
+            }
+        }
+
+        void drainAndFinish() {
+            byte[] buf = new byte[8 * 1024];
+            try {
+                int n;
+                while ((n = stream.read(buf)) >= 0) {
+                    deliver(decoder.decode(buf, 0, n));
+                }
+            } catch (IOException ignore) {
+            }
+            finish();
+        }
+
+        void finish() {
+            deliver(decoder.finish());
+            done.countDown();
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            done.await();
+        }
+
+        @Override
+        public boolean await(long millis) throws InterruptedException {
+            return done.await(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized Drain start(Process process, InputStream stream, Charset charset, Consumer<List<String>> sink) {
+        Channel channel = new Channel(process, stream, charset, sink);
+        channels.add(channel);
+        if (pumpThread == null) {
+            pumpThread = new Thread(this::run, "JET tool output pump");
+            pumpThread.setDaemon(true);
+            pumpThread.start();
+        }
+        notifyAll();
+        return channel;
+    }
+
+    private synchronized List<Channel> awaitChannels() {
+        if (channels.isEmpty()) {
+            try {
+                wait(IDLE_TIMEOUT_MILLIS);
+            } catch (InterruptedException ignore) {
+            }
+            if (channels.isEmpty()) {
+                pumpThread = null;
+                return null;
+            }
+        }
+        return new ArrayList<>(channels);
+    }
+
+    private synchronized void remove(Channel channel) {
+        channels.remove(channel);
+    }
+
+    private void run() {
+        byte[] buf = new byte[64 * 1024];
+        int pollInterval = 1;
+        List<Channel> active;
+        while ((active = awaitChannels()) != null) {
+            boolean transferred = false;
+            for (Channel channel : active) {
+                transferred |= pump(channel, buf);
+            }
+            if (transferred) {
+                pollInterval = 1;
+            } else {
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException ignore) {
+                }
+                pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if some data was transferred
+     */
+    private boolean pump(Channel channel, byte[] buf) {
+        try {
+            int available = channel.stream.available();
+            if (available > 0) {
+                int n = channel.stream.read(buf, 0, Math.min(available, buf.length));
+                if (n >= 0) {
+                    channel.deliver(channel.decoder.decode(buf, 0, n));
+                    return true;
+                }
+            } else if (channel.process.isAlive()) {
+                return false;
+            }
+            remove(channel);
+            finalDrainer.execute(channel::drainAndFinish);
+            return true;
+        } catch (IOException e) {
+            remove(channel);
+            channel.finish();
+            return true;
+        }
+    }
+}
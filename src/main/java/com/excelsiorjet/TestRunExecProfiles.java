@@ -22,6 +22,11 @@
 package com.excelsiorjet;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
 
 /**
  * Encapsulates execution profile files gathered during Test Run.
@@ -32,10 +37,14 @@ public class TestRunExecProfiles {
 
     private File usg;
     private File startup;
+    private File classUsage;
+    private File metadata;
 
     public TestRunExecProfiles(File outputDir, String outputname) {
         this.usg = new File(outputDir, outputname + ".usg");
         this.startup = new File(outputDir, outputname + ".startup");
+        this.classUsage = new File(outputDir, outputname + ".classes");
+        this.metadata = new File(outputDir, outputname + ".profiles.properties");
     }
 
     public File getUsg() {
@@ -45,4 +54,130 @@ public class TestRunExecProfiles {
     public File getStartup() {
         return startup;
     }
+
+    /**
+     * @return list of the classes loaded during Test Run
+     * @see RuntimeComponents#writeClassUsage
+     */
+    public File getClassUsage() {
+        return classUsage;
+    }
+
+    /**
+     * @return description of what the profiles were collected for
+     * @see ExecProfilesMetadata
+     */
+    public File getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return all profile files, existing or not
+     */
+    public List<File> getFiles() {
+        return Arrays.asList(usg, startup, classUsage, metadata);
+    }
+
+    /**
+     * Tells which sources the {@link #merge merged} profiles were taken from.
+     */
+    public static class Merge {
+        /** index of the source the startup profile was taken from, {@code -1} if none has one */
+        public final int startupFrom;
+        /** index of the source the usage profile was taken from, {@code -1} if the usage profiles were united */
+        public final int usageFrom;
+
+        Merge(int startupFrom, int usageFrom) {
+            this.startupFrom = startupFrom;
+            this.usageFrom = usageFrom;
+        }
+    }
+
+    /**
+     * Merges profiles collected by several Test Runs into {@code target}.
+     * <p>
+     * The usage profiles and class usages are united line by line, keeping the order of first appearance.
+     * This relies on the usage profile being a text file listing one used item per line, independent
+     * of the other lines, as the class usage is. The lines are compared as bytes, so any encoding is kept intact.
+     * Should a usage profile contain NUL bytes, that is be binary, it is not merged, and the usage profile
+     * of the first source having one is taken as a whole.
+     * </p><p>
+     * The startup profile, which describes a single run, is taken from the first source having one.
+     * The metadata is not merged.
+     * </p>
+     */
+    public static Merge merge(List<TestRunExecProfiles> sources, TestRunExecProfiles target) throws IOException {
+        File[] usgs = sources.stream().map(TestRunExecProfiles::getUsg).toArray(File[]::new);
+        int usageFrom = -1;
+        if (Arrays.stream(usgs).anyMatch(TestRunExecProfiles::isBinary)) {
+            usageFrom = copyFirst(usgs, target.usg);
+        } else {
+            mergeLines(usgs, target.usg);
+        }
+        mergeLines(sources.stream().map(TestRunExecProfiles::getClassUsage).toArray(File[]::new), target.classUsage);
+        int startupFrom = copyFirst(sources.stream().map(TestRunExecProfiles::getStartup).toArray(File[]::new),
+                target.startup);
+        return new Merge(startupFrom, usageFrom);
+    }
+
+    /**
+     * Replaces {@code target} with the first of the {@code sources} that exists.
+     *
+     * @return index of the source copied, {@code -1} if none exists
+     */
+    private static int copyFirst(File[] sources, File target) throws IOException {
+        Files.deleteIfExists(target.toPath());
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].isFile()) {
+                Files.copy(sources[i].toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBinary(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        try {
+            for (byte b : Files.readAllBytes(file.toPath())) {
+                if (b == 0) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void mergeLines(File[] sources, File target) throws IOException {
+        // ISO-8859-1 maps each byte to a char and back, so lines of any encoding survive unchanged
+        Set<String> lines = new LinkedHashSet<>();
+        boolean found = false;
+        for (File source : sources) {
+            if (source.isFile()) {
+                found = true;
+                lines.addAll(Files.readAllLines(source.toPath(), StandardCharsets.ISO_8859_1));
+            }
+        }
+        Files.deleteIfExists(target.toPath());
+        if (found) {
+            lines.remove("");
+            Files.write(target.toPath(), lines, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * @return number of non-empty lines in the usage profile, or 0 if it does not exist
+     */
+    public static long usageEntries(File usg) throws IOException {
+        if (!usg.isFile()) {
+            return 0;
+        }
+        return Files.readAllLines(usg.toPath(), StandardCharsets.ISO_8859_1).stream()
+                .filter(line -> !line.trim().isEmpty())
+                .count();
+    }
 }
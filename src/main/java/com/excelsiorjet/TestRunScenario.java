@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Scripted Test Run of an application that does not exit by itself, such as a server or a GUI,
+ * so that execution profiles can be collected without a human, e.g. on a CI server.
+ * <p>
+ * The application is run with the given {@link #setArguments arguments} and {@link #setInput standard input}.
+ * If a {@link #setReadyPattern ready pattern} is set, the scenario waits for an output line matching it,
+ * then lets the application run for {@link #setDuration duration} seconds (counted from the start
+ * if there is no ready pattern) and shuts it down gracefully with the {@link #setShutdownSignal shutdown signal},
+ * so that the profiles are written. If neither is set, the scenario waits for the application to exit.
+ * </p>
+ */
+public class TestRunScenario {
+
+    public static final String DEFAULT_NAME = "default";
+
+    private String name = DEFAULT_NAME;
+    private String[] arguments = new String[0];
+    private String input;
+    private String readyPattern;
+    private long readyTimeout = 300;
+    private long duration;
+    private String shutdownSignal = "TERM";
+    private long shutdownTimeout = 30;
+
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Outcome of a scenario run.
+     */
+    public static class Result {
+        public final int exitCode;
+        /** {@code true} if the application was shut down by the scenario rather than exited by itself */
+        public final boolean shutDown;
+        /** time from the start until the application became ready, {@code -1} if there is no ready pattern */
+        public final long readyMillis;
+        public final long elapsedMillis;
+
+        Result(int exitCode, boolean shutDown, long readyMillis, long elapsedMillis) {
+            this.exitCode = exitCode;
+            this.shutDown = shutDown;
+            this.readyMillis = readyMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Sets the application arguments.
+     */
+    public void setArguments(String[] arguments) {
+        this.arguments = arguments;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * Sets the text fed to the standard input of the application, e.g. commands of a console application.
+     */
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public String getReadyPattern() {
+        return readyPattern;
+    }
+
+    /**
+     * Sets the regular expression matching the output line telling the application is ready, e.g. "Started in".
+     */
+    public void setReadyPattern(String readyPattern) {
+        this.readyPattern = readyPattern;
+    }
+
+    /**
+     * Sets the maximum time in seconds to wait for the application to become ready. {@code 0} means no limit.
+     */
+    public void setReadyTimeout(long readyTimeout) {
+        this.readyTimeout = readyTimeout;
+    }
+
+    /**
+     * Sets the time in seconds the application runs after it becomes ready (or starts, if there is no ready pattern)
+     * before it is shut down.
+     */
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Sets the signal to shut the application down with, "TERM" by default. On Windows, the application is terminated.
+     */
+    public void setShutdownSignal(String shutdownSignal) {
+        this.shutdownSignal = shutdownSignal.startsWith("SIG") ? shutdownSignal.substring(3) : shutdownSignal;
+    }
+
+    /**
+     * Sets the time in seconds the application may take to exit after the shutdown signal before it is killed.
+     */
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * @return {@code true} if the scenario shuts the application down rather than waits for it to exit
+     */
+    public boolean isScripted() {
+        return (readyPattern != null) || (duration > 0);
+    }
+
+    /**
+     * Runs the tool, which should already have the application arguments, according to the scenario.
+     */
+    public Result run(CmdLineTool tool, Log log) throws CmdLineToolException {
+        return run(tool, log, execution -> {});
+    }
+
+    /**
+     * Runs the tool according to the scenario, notifying {@code started} once the application is started,
+     * e.g. to observe the running process.
+     */
+    public Result run(CmdLineTool tool, Log log, Consumer<CmdLineTool.Execution> started) throws CmdLineToolException {
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicLong readyAt = new AtomicLong();
+        if (readyPattern != null) {
+            Pattern pattern = Pattern.compile(readyPattern);
+            tool.withOutputListener(line -> {
+                if ((ready.getCount() > 0) && pattern.matcher(line).find()) {
+                    // the time the line has been read rather than the time the latch wait returns
+                    readyAt.compareAndSet(0, System.currentTimeMillis());
+                    ready.countDown();
+                }
+            });
+        }
+        if (input != null) {
+            tool.withInput(input);
+        }
+        long start = System.currentTimeMillis();
+        CmdLineTool.Execution execution = tool.start();
+        started.accept(execution);
+        boolean shutDown = false;
+        try {
+            if (readyPattern != null) {
+                while (!ready.await(POLL_MILLIS, TimeUnit.MILLISECONDS) && execution.isAlive()) {
+                    if ((readyTimeout > 0) && (System.currentTimeMillis() - start > readyTimeout * 1000)) {
+                        execution.destroy();
+                        execution.await();
+                        throw new CmdLineToolException(Txt.s("TestRunScenario.NotReady.Error", name, readyTimeout));
+                    }
+                }
+                if (ready.getCount() == 0) {
+                    log.info(Txt.s("TestRunScenario.Ready.Info", name, (readyAt.get() - start) / 1000.0));
+                }
+            }
+            if (isScripted() && !execution.waitFor(duration * 1000)) {
+                shutDown = true;
+                shutdown(execution, log);
+            }
+        } catch (InterruptedException e) {
+            execution.destroy();
+            Thread.currentThread().interrupt();
+            throw new CmdLineToolException(Txt.s("CmdLineTool.Interrupted.Error", name));
+        }
+        int exitCode = execution.await();
+        // the ready line may also be read after the application has exited, once the output is drained
+        long readyMillis = (readyAt.get() > 0) ? readyAt.get() - start : -1;
+        return new Result(exitCode, shutDown, readyMillis, System.currentTimeMillis() - start);
+    }
+
+    private void shutdown(CmdLineTool.Execution execution, Log log) throws InterruptedException {
+        log.info(Txt.s("TestRunScenario.Shutdown.Info", name, shutdownSignal));
+        if (!execution.signal(shutdownSignal)) {
+            execution.destroy();
+            return;
+        }
+        if (!execution.waitFor(shutdownTimeout * 1000)) {
+            log.warn(Txt.s("TestRunScenario.ShutdownTimeout.Warning", name, shutdownTimeout));
+            execution.destroy();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests of a project to be run as a Test Run workload: the test classes and the runner
+ * of the test framework executing them.
+ */
+public class TestSuite {
+
+    public static final String JUNIT = "junit";
+    public static final String TESTNG = "testng";
+
+    static final String JUNIT_RUNNER = "org.junit.runner.JUnitCore";
+    static final String TESTNG_RUNNER = "org.testng.TestNG";
+
+    static final String JUNIT_ARGUMENTS = "junit-classes.txt";
+    static final String TESTNG_SUITE = "testng.xml";
+    static final String LAUNCHER_DIR = "launcher";
+
+    /**
+     * Default pattern of the simple names of test classes, covering the Surefire and Failsafe conventions.
+     */
+    public static final String DEFAULT_CLASS_PATTERN = "Test.*|.*Tests?|.*TestCase|IT.*|.*IT|.*ITCase";
+
+    /**
+     * Descriptors of the annotations marking a class or its methods as tests of JUnit 4 or TestNG,
+     * as they appear in the constant pool of the class file.
+     */
+    private static final Set<String> TEST_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "Lorg/junit/Test;", "Lorg/junit/runner/RunWith;", "Lorg/testng/annotations/Test;"));
+
+    /**
+     * Base class of JUnit 3 tests, which JUnit 4 runs as well.
+     */
+    private static final String JUNIT3_TEST_CASE = "junit/framework/TestCase";
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    private final String framework;
+    private final List<String> classes;
+
+    public TestSuite(String framework, List<String> classes) {
+        this.framework = framework;
+        this.classes = new ArrayList<>(classes);
+    }
+
+    /**
+     * Detects the test framework by the {@code groupId:artifactId} of the test dependencies.
+     * JUnit is preferred if both frameworks are present.
+     *
+     * @return {@link #JUNIT}, {@link #TESTNG} or {@code null} if neither is found
+     */
+    public static String detectFramework(Collection<String> dependencies) {
+        if (dependencies.contains("junit:junit")) {
+            return JUNIT;
+        } else if (dependencies.contains("org.testng:testng")) {
+            return TESTNG;
+        }
+        return null;
+    }
+
+    /**
+     * Finds top-level test classes in a compiled test classes directory, that is concrete classes
+     * having JUnit 4 or TestNG test annotations, or extending JUnit 3 {@code TestCase},
+     * themselves or through their superclasses in the directory. Helpers, such as {@code TestUtils},
+     * and abstract base classes of tests are thus skipped even if their names match.
+     *
+     * @param pattern regular expression the simple class names must match
+     * @return fully qualified class names, sorted
+     */
+    public static List<String> findClasses(File testClassesDir, String pattern) throws IOException {
+        if (!testClassesDir.isDirectory()) {
+            return Collections.emptyList();
+        }
+        Pattern simpleName = Pattern.compile(pattern);
+        Path root = testClassesDir.toPath();
+        List<String> candidates;
+        try (Stream<Path> files = Files.walk(root)) {
+            candidates = files
+                    .filter(file -> file.getFileName().toString().endsWith(".class"))
+                    .map(file -> {
+                        String path = root.relativize(file).toString();
+                        return path.substring(0, path.length() - ".class".length()).replace(File.separatorChar, '.');
+                    })
+                    .filter(name -> !name.contains("$") &&
+                            simpleName.matcher(name.substring(name.lastIndexOf('.') + 1)).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        List<String> classes = new ArrayList<>();
+        for (String name : candidates) {
+            ClassInfo info = ClassInfo.read(classFile(testClassesDir, name.replace('.', '/')));
+            if ((info != null) && ((info.access & (ACC_INTERFACE | ACC_ABSTRACT)) == 0) &&
+                    hasTests(testClassesDir, info)) {
+                classes.add(name);
+            }
+        }
+        return classes;
+    }
+
+    private static File classFile(File dir, String internalName) {
+        return new File(dir, internalName.replace('/', File.separatorChar) + ".class");
+    }
+
+    private static boolean hasTests(File dir, ClassInfo info) throws IOException {
+        // the superclasses are looked up in the same directory, so the chain ends at a class outside of it
+        for (int depth = 0; (info != null) && (depth < 100); depth++) {
+            if (!Collections.disjoint(info.utf8, TEST_ANNOTATIONS) || JUNIT3_TEST_CASE.equals(info.superName)) {
+                return true;
+            }
+            info = (info.superName != null) ? ClassInfo.read(classFile(dir, info.superName)) : null;
+        }
+        return false;
+    }
+
+    /**
+     * The parts of a class file telling whether it is a test: the access flags, the superclass
+     * and the strings of the constant pool, which include the descriptors of the annotations used.
+     */
+    private static class ClassInfo {
+        int access;
+        String superName;
+        final Set<String> utf8 = new HashSet<>();
+
+        /**
+         * @return the class information or {@code null} if the file does not exist or is not a class file
+         */
+        static ClassInfo read(File file) throws IOException {
+            if (!file.isFile()) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != 0xCAFEBABE) {
+                    return null;
+                }
+                in.readUnsignedShort(); // minor version
+                in.readUnsignedShort(); // major version
+                int count = in.readUnsignedShort();
+                String[] strings = new String[count];
+                int[] classNames = new int[count];
+                for (int i = 1; i < count; i++) {
+                    int tag = in.readUnsignedByte();
+                    switch (tag) {
+                        case 1: // Utf8
+                            strings[i] = in.readUTF();
+                            break;
+                        case 7: // Class
+                            classNames[i] = in.readUnsignedShort();
+                            break;
+                        case 8: case 16: case 19: case 20: // String, MethodType, Module, Package
+                            in.skipBytes(2);
+                            break;
+                        case 15: // MethodHandle
+                            in.skipBytes(3);
+                            break;
+                        case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                            in.skipBytes(4);
+                            break;
+                        case 5: case 6: // Long and Double take two entries
+                            in.skipBytes(8);
+                            i++;
+                            break;
+                        default:
+                            return null;
+                    }
+                }
+                ClassInfo info = new ClassInfo();
+                info.access = in.readUnsignedShort();
+                in.readUnsignedShort(); // this class
+                int superClass = in.readUnsignedShort();
+                info.superName = (superClass > 0) ? strings[classNames[superClass]] : null;
+                for (String string : strings) {
+                    if (string != null) {
+                        info.utf8.add(string);
+                    }
+                }
+                return info;
+            } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+    }
+
+    public String getFramework() {
+        return framework;
+    }
+
+    public List<String> getClasses() {
+        return Collections.unmodifiableList(classes);
+    }
+
+    /**
+     * @return directory to add to the classpath for the {@link #command command} to run
+     */
+    public static File launcherClasspath(File dir) {
+        return new File(dir, LAUNCHER_DIR);
+    }
+
+    /**
+     * Writes the list of the test classes to a file in {@code dir}, so that the command line does not grow
+     * with the number of the classes beyond the limits of the O/S: TestNG gets a suite file, and JUnit,
+     * which reads no argument files, is started by {@link ArgumentFileMain}, copied to
+     * {@link #launcherClasspath}.
+     *
+     * @return main class of the framework's test runner followed by its arguments
+     */
+    public List<String> command(File dir) throws IOException {
+        Files.createDirectories(dir.toPath());
+        if (TESTNG.equals(framework)) {
+            File suite = new File(dir, TESTNG_SUITE);
+            StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                    .append("<suite name=\"Test Run\">\n")
+                    .append("  <test name=\"Test Run\">\n")
+                    .append("    <classes>\n");
+            for (String name : classes) {
+                xml.append("      <class name=\"").append(name).append("\"/>\n");
+            }
+            xml.append("    </classes>\n")
+                    .append("  </test>\n")
+                    .append("</suite>\n");
+            Files.write(suite.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+            return Arrays.asList(TESTNG_RUNNER, suite.getAbsolutePath());
+        }
+        File arguments = new File(dir, JUNIT_ARGUMENTS);
+        Files.write(arguments.toPath(), classes, StandardCharsets.UTF_8);
+        String launcher = ArgumentFileMain.class.getName().replace('.', '/') + ".class";
+        File launcherFile = new File(launcherClasspath(dir), launcher.replace('/', File.separatorChar));
+        Files.createDirectories(launcherFile.getParentFile().toPath());
+        try (InputStream in = TestSuite.class.getResourceAsStream("/" + launcher)) {
+            Files.copy(in, launcherFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return Arrays.asList(ArgumentFileMain.class.getName(), JUNIT_RUNNER, arguments.getAbsolutePath());
+    }
+}
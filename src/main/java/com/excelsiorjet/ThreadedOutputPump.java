@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link OutputPump} that reads every stream in a dedicated thread.
+ */
+public class ThreadedOutputPump implements OutputPump {
+
+    private static class Reader extends Thread implements Drain {
+
+        private final InputStream stream;
+        private final LineDecoder decoder;
+        private final Consumer<List<String>> sink;
+
+        Reader(InputStream stream, Charset charset, Consumer<List<String>> sink) {
+            this.stream = stream;
+            this.decoder = new LineDecoder(charset);
+            this.sink = sink;
+            setDaemon(true);
+        }
+
+        public void run() {
+            byte[] buf = new byte[8 * 1024];
+            try {
+                int n;
+                while ((n = stream.read(buf)) >= 0) {
+                    List<String> lines = decoder.decode(buf, 0, n);
+                    if (!lines.isEmpty()) {
+                        sink.accept(lines);
+                    }
+                }
+            } catch (IOException ignore) {
+            }
+            List<String> lines = decoder.finish();
+            if (!lines.isEmpty()) {
+                sink.accept(lines);
+            }
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            join();
+        }
+
+        @Override
+        public boolean await(long millis) throws InterruptedException {
+            join(Math.max(millis, 1));
+            return !isAlive();
+        }
+    }
+
+    @Override
+    public Drain start(Process process, InputStream stream, Charset charset, Consumer<List<String>> sink) {
+        Reader reader = new Reader(stream, charset, sink);
+        reader.start();
+        return reader;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+/**
+ * Event recognized in the output of an Excelsior JET tool.
+ *
+ * @see ToolOutputParser
+ */
+public class ToolEvent {
+
+    public enum Kind {
+        /** A tool phase started. {@link #getPhase()} is its name. */
+        PHASE_STARTED,
+        /** A tool phase finished. {@link #getElapsedMillis()} is its duration as observed from the tool output. */
+        PHASE_FINISHED,
+        /** The tool reported a number of classes. */
+        CLASS_COUNT,
+        /** The tool reported a number of methods. */
+        METHOD_COUNT,
+        /** The tool reported a warning. */
+        WARNING,
+        /** The tool reported an error. */
+        ERROR,
+        /** The tool reported a time, as with the {@code -decor=ht} option of the compiler. */
+        TIMING
+    }
+
+    private final Kind kind;
+    private final String phase;
+    private final long count;
+    private final long elapsedMillis;
+    private final String line;
+    private final long timestamp;
+
+    ToolEvent(Kind kind, String phase, long count, long elapsedMillis, String line) {
+        this.kind = kind;
+        this.phase = phase;
+        this.count = count;
+        this.elapsedMillis = elapsedMillis;
+        this.line = line;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the tool phase current at the moment of the event, or {@code null} if the phase is not known yet
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the number of classes or methods for {@link Kind#CLASS_COUNT} and {@link Kind#METHOD_COUNT} events
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return duration for {@link Kind#PHASE_FINISHED} and {@link Kind#TIMING} events
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return the tool output line the event was recognized in
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * @return the time the event was recognized at, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return kind + (phase != null ? " [" + phase + "]" : "") + ": " + line;
+    }
+}
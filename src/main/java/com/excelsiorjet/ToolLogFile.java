@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed file receiving the complete output of a tool.
+ * <p>
+ * Files of previous runs are rotated: {@code name.log.gz} becomes {@code name.1.log.gz}, and so on,
+ * up to the configured number of kept files.
+ * </p>
+ */
+public class ToolLogFile implements Closeable {
+
+    static final String EXT = ".log.gz";
+    private static final String STDERR_PREFIX = "[stderr] ";
+
+    private final File file;
+    private final Writer out;
+
+    /**
+     * Rotates previous files and opens {@code <dir>/<name>.log.gz} for writing.
+     *
+     * @param keep the number of previous files to keep
+     */
+    public ToolLogFile(File dir, String name, int keep) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException(Txt.s("JetMojo.DirCreate.Error", dir.getAbsolutePath()));
+        }
+        for (int i = keep; i >= 1; i--) {
+            File older = new File(dir, name + "." + i + EXT);
+            File newer = new File(dir, name + ((i > 1) ? "." + (i - 1) : "") + EXT);
+            if (newer.exists()) {
+                Files.move(newer.toPath(), older.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        this.file = new File(dir, name + EXT);
+        this.out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file), 64 * 1024), StandardCharsets.UTF_8));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized void write(List<String> lines, boolean err) {
+        try {
+            for (String line : lines) {
+                if (err) {
+                    out.write(STDERR_PREFIX);
+                }
+                out.write(line);
+                out.write('\n');
+            }
+        } catch (IOException ignore) {
+            // the log file is auxiliary, the build should not fail because of it
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
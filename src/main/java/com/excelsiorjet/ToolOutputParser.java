@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes {@link ToolEvent}s in the output of Excelsior JET tools (jc, xpack, xjava).
+ * <p>
+ * The tools do not have a machine-readable output format, so recognition is heuristic:
+ * a line starting with a progress verb such as "Compiling" or "Linking" begins a phase,
+ * which lasts until a line beginning another phase or the end of the output;
+ * counts of classes and methods, warnings, errors and times are recognized by their wording.
+ * </p>
+ */
+public class ToolOutputParser {
+
+    private static final Pattern PHASE = Pattern.compile(
+            "^\\s*(Analy[sz]ing|Building|Checking|Collecting|Compiling|Creating|Generating|Linking|Loading|" +
+            "Optimizing|Packing|Preparing|Processing|Reading|Resolving|Writing)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CLASSES = Pattern.compile("(\\d[\\d,]*)\\s+classes\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern METHODS = Pattern.compile("(\\d[\\d,]*)\\s+methods\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern WARNING = Pattern.compile("^\\s*(\\*+\\s*)?warn(ing)?\\b|\\bwarning\\s*:",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ERROR = Pattern.compile("^\\s*(\\*+\\s*)?(error|fatal)\\b|\\berror\\s*:",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Bracketed prefix added to lines by {@code -decor} options.
+     */
+    private static final Pattern DECOR_PREFIX = Pattern.compile("^\\s*\\[[^\\]]*]\\s*");
+
+    /**
+     * A time in h:mm:ss[.fff] format either at the beginning of a line within brackets,
+     * or anywhere in a line mentioning time.
+     */
+    private static final Pattern TIMING = Pattern.compile(
+            "^\\s*\\[\\s*(\\d+):(\\d{2}):(\\d{2})(?:[.,](\\d{1,3}))?\\s*]|" +
+            "(?i)\\b(?:time|elapsed)\\b.*?(\\d+):(\\d{2}):(\\d{2})(?:[.,](\\d{1,3}))?");
+
+    private final ToolEventListener listener;
+    private String phase;
+    private long phaseStart;
+    /** whether {@link #phaseStart} is the time reported by {@code -decor=ht} rather than the wall clock */
+    private boolean phaseStartReported;
+    /** the time reported in the prefix of the last decorated line, {@code -1} if none */
+    private long lastReported = -1;
+
+    public ToolOutputParser(ToolEventListener listener) {
+        this.listener = listener;
+    }
+
+    private void fire(ToolEvent.Kind kind, long count, long elapsed, String line) {
+        listener.onEvent(new ToolEvent(kind, phase, count, elapsed, line));
+    }
+
+    public synchronized void lines(List<String> lines) {
+        for (String line : lines) {
+            line(line);
+        }
+    }
+
+    public synchronized void line(String line) {
+        Matcher timing = TIMING.matcher(line);
+        boolean timed = timing.find();
+        if (timed && (timing.group(1) != null)) {
+            lastReported = millis(timing, 1);
+        }
+        String text = DECOR_PREFIX.matcher(line).replaceFirst("");
+        Matcher m = PHASE.matcher(text);
+        if (m.find()) {
+            String newPhase = m.group(1).toLowerCase(Locale.ENGLISH);
+            if (!newPhase.equals(phase)) {
+                finishPhase(line);
+                phase = newPhase;
+                // the time of the decorated line is not skewed by the delivery of the output to the plugin
+                phaseStartReported = (lastReported >= 0);
+                phaseStart = phaseStartReported ? lastReported : System.currentTimeMillis();
+                fire(ToolEvent.Kind.PHASE_STARTED, 0, 0, line);
+            }
+        }
+        if ((m = CLASSES.matcher(line)).find()) {
+            fire(ToolEvent.Kind.CLASS_COUNT, parseCount(m.group(1)), 0, line);
+        }
+        if ((m = METHODS.matcher(line)).find()) {
+            fire(ToolEvent.Kind.METHOD_COUNT, parseCount(m.group(1)), 0, line);
+        }
+        if (ERROR.matcher(text).find()) {
+            fire(ToolEvent.Kind.ERROR, 0, 0, line);
+        } else if (WARNING.matcher(text).find()) {
+            fire(ToolEvent.Kind.WARNING, 0, 0, line);
+        }
+        if (timed) {
+            fire(ToolEvent.Kind.TIMING, 0, millis(timing, (timing.group(1) != null) ? 1 : 5), line);
+        }
+    }
+
+    private static long millis(Matcher m, int g) {
+        long millis = ((Long.parseLong(m.group(g)) * 60 + Long.parseLong(m.group(g + 1))) * 60
+                + Long.parseLong(m.group(g + 2))) * 1000;
+        String fraction = m.group(g + 3);
+        if (fraction != null) {
+            millis += Long.parseLong((fraction + "00").substring(0, 3));
+        }
+        return millis;
+    }
+
+    private void finishPhase(String line) {
+        if (phase != null) {
+            long elapsed = phaseStartReported ? lastReported - phaseStart : System.currentTimeMillis() - phaseStart;
+            fire(ToolEvent.Kind.PHASE_FINISHED, 0, elapsed, line);
+        }
+    }
+
+    /**
+     * Signals the end of the tool output.
+     */
+    public synchronized void finish() {
+        finishPhase(null);
+        phase = null;
+    }
+
+    private static long parseCount(String s) {
+        return Long.parseLong(s.replace(",", ""));
+    }
+}
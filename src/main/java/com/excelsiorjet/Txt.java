@@ -21,27 +21,24 @@
 */
 package com.excelsiorjet;
 
-import org.apache.maven.plugin.logging.Log;
-
 /**
  * @author Nikita Lipsky
  */
 public class Txt {
 
-    private static Messages messages = new Messages("Strings");
-    public static Log log;
+    private static final Messages messages = new Messages("Strings");
 
+    /**
+     * Formats the message with the given {@code id}. The class holds no mutable state,
+     * so it may be used by mojos executed in parallel.
+     *
+     * @throws IllegalStateException if there is no such message
+     */
     public static String s(String id, Object... params) {
         String str = messages.format(id, params);
-        if (str != null) {
-            return str;
-        } else {
-            if (log != null) {
-                log.error("JET message file broken: key = " + id);
-            } else {
-                throw new IllegalStateException("No log to issue error. JET message file broken: key = " + id);
-            }
-            return id;
+        if (str == null) {
+            throw new IllegalStateException("JET message file broken: key = " + id);
         }
+        return str;
     }
 }
@@ -21,10 +21,7 @@
 */
 package com.excelsiorjet.maven.plugin;
 
-import com.excelsiorjet.JetHome;
-import com.excelsiorjet.JetHomeException;
-import com.excelsiorjet.Txt;
-import com.excelsiorjet.Utils;
+import com.excelsiorjet.*;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -35,7 +32,9 @@ import org.apache.maven.project.MavenProject;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.ArrayList;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 import static com.excelsiorjet.Txt.s;
 
@@ -57,6 +56,18 @@ public abstract class AbstractJetMojo extends AbstractMojo {
     @Parameter(property = "mainClass", required = true)
     protected String mainClass;
 
+    /**
+     * Java launcher running the application as the baseline for {@code jet:benchmark} and {@code jet:footprint}.
+     */
+    @Parameter(property = "baselineJava", defaultValue = "${java.home}/bin/java")
+    protected File baselineJava;
+
+    /**
+     * Target executable name. If not set, the main class name is used.
+     */
+    @Parameter(property = "outputName")
+    protected String outputName;
+
     /**
      * The main application jar.
      * The default is the main project artifact, which must be a jar file.
@@ -76,6 +87,22 @@ public abstract class AbstractJetMojo extends AbstractMojo {
     @Parameter(property = "jetHome", defaultValue = "${jet.home}")
     protected String jetHome;
 
+    /**
+     * If set to {@code true}, the version, edition and CPU architecture of Excelsior JET installations
+     * are cached in the file specified by {@link #jetHomeCache}, so that they are not detected anew,
+     * e.g. by running the compiler, in every build. An entry is invalidated when the installation is updated.
+     */
+    @Parameter(property = "useJetHomeCache", defaultValue = "true")
+    protected boolean useJetHomeCache;
+
+    /**
+     * Location of the Excelsior JET installation properties cache.
+     *
+     * @see #useJetHomeCache
+     */
+    @Parameter(property = "jetHomeCache", defaultValue = "${user.home}/.m2/jet-home.cache")
+    protected File jetHomeCache;
+
     /**
      * Directory for temporary files generated during the build process
      * and the target directory for the resulting package.
@@ -106,12 +133,117 @@ public abstract class AbstractJetMojo extends AbstractMojo {
     @Parameter(property = "execProfilesName", defaultValue = "${project.artifactId}")
     protected String execProfilesName;
 
+    /**
+     * If set to {@code true}, dependency jars are kept in the user-level content-addressed store
+     * specified by {@link #dependencyStore} and hard-linked from there into the build directory,
+     * so that all projects built on this machine share a single copy of each jar.
+     */
+    @Parameter(property = "useDependencyStore", defaultValue = "false")
+    protected boolean useDependencyStore;
+
+    /**
+     * Location of the dependency store.
+     *
+     * @see #useDependencyStore
+     */
+    @Parameter(property = "dependencyStore", defaultValue = "${user.home}/.m2/jet-store")
+    protected File dependencyStore;
+
+    /**
+     * Maximum size of the dependency store in megabytes.
+     * When the store grows beyond that size, the least recently used jars are evicted from it.
+     * {@code 0} means no limit.
+     *
+     * @see #useDependencyStore
+     */
+    @Parameter(property = "dependencyStoreMaxSize", defaultValue = "0")
+    protected long dependencyStoreMaxSize;
+
+    /**
+     * Maximum duration of the Test Run in seconds.
+     * When it is exceeded, the application is terminated together with all its child processes
+     * and the Test Run fails. {@code 0} means no limit.
+     */
+    @Parameter(property = "testRunTimeout", defaultValue = "0")
+    protected long testRunTimeout;
+
+    /**
+     * Scenario of an unattended Test Run for applications that do not exit by themselves, such as servers and GUIs:
+     * <pre>{@code
+     * <testRunScenario>
+     *     <arguments><argument>--port=0</argument></arguments>
+     *     <input>...</input>                   <!-- fed to the standard input -->
+     *     <readyPattern>Started in</readyPattern>
+     *     <readyTimeout>300</readyTimeout>      <!-- seconds -->
+     *     <duration>30</duration>               <!-- seconds to run after the application is ready -->
+     *     <shutdownSignal>TERM</shutdownSignal>
+     *     <shutdownTimeout>30</shutdownTimeout> <!-- seconds to exit after the signal -->
+     * </testRunScenario>
+     * }</pre>
+     * The application is shut down gracefully, so that the execution profiles get written.
+     *
+     * @see TestRunScenario
+     */
+    @Parameter
+    protected TestRunScenario testRunScenario;
+
+    /**
+     * Several Test Run scenarios exercising different parts of the application, e.g. different workloads.
+     * The scenarios are run concurrently, each in its own working directory under {@code jetOutputDir/testrun}
+     * with its output going to the "logs" subdirectory, and their profiles are merged. The startup profile
+     * is taken from the first scenario, as startup profiles of different runs cannot be merged.
+     * As 64-bit Excelsior JET collects no usage profiles, with it the scenarios only contribute
+     * the classes they load, if {@link #recordClassUsage} is set, and the startup profile of one of them.
+     * Each scenario has the same settings as {@link #testRunScenario} and a unique {@code name}.
+     */
+    @Parameter
+    protected List<TestRunScenario> testRunScenarios;
+
+    /**
+     * Maximum number of {@link #testRunScenarios} run at once. By default, the number of processors.
+     */
+    @Parameter(property = "testRunParallelism", defaultValue = "0")
+    protected int testRunParallelism;
+
+    /**
+     * If set to {@code true}, the classes loaded during the Test Run are recorded in {@code <execProfilesName>.classes}
+     * next to the execution profiles, so that the build can suggest Java runtime components
+     * the application never uses for Java Runtime Slim-Down.
+     * The recording runs the application with {@code -verbose:class}, which slows down class loading
+     * and so skews the startup profile collected by the same Test Run, hence it is off by default.
+     *
+     * @see JetMojo#detachComponents
+     */
+    @Parameter(property = "recordClassUsage", defaultValue = "false")
+    protected boolean recordClassUsage;
+
+    /**
+     * User-level store of execution profiles, where the profiles collected by each Test Run are kept
+     * under a key made of the application jars, Excelsior JET version and bitness,
+     * and from where the build restores them when it returns to the same combination.
+     */
+    @Parameter(property = "execProfilesStore",
+            defaultValue = "${user.home}/.m2/jet-profiles/${project.groupId}.${project.artifactId}")
+    protected File execProfilesStore;
+
     protected static final String BUILD_DIR = "build";
+    protected static final String APP_DIR = "app";
+    protected static final String LOGS_DIR = "logs";
+    private static final String TEST_RUN_DIR = "testrun";
+    private static final String TEST_RUN_REPORT = "testrun-report.properties";
     protected static final String LIB_DIR = "lib";
 
-    protected JetHome checkPrerequisites() throws MojoFailureException {
-        Txt.log = getLog();
+    static final long MB = 1024 * 1024;
 
+    private static final int EXEC_PROFILES_KEPT = 10;
+
+    /**
+     * SHA-1 hashes of the jars staged by the last {@link #copyDependencies} invocation,
+     * by their pathnames relative to the build directory.
+     */
+    protected Map<String, String> dependencyHashes = Collections.emptyMap();
+
+    protected JetHome checkPrerequisites() throws MojoFailureException {
         // first check that main jar were built
         if (!mainJar.exists()) {
             String error;
@@ -130,6 +262,7 @@ public abstract class AbstractJetMojo extends AbstractMojo {
         }
 
         // check jet home
+        JetHome.setPropertiesCache(useJetHomeCache ? jetHomeCache : null);
         JetHome jetHomeObj;
         try {
             jetHomeObj = Utils.isEmpty(jetHome)? new JetHome() : new JetHome(jetHome);
@@ -141,6 +274,39 @@ public abstract class AbstractJetMojo extends AbstractMojo {
         return jetHomeObj;
     }
 
+    /**
+     * @return command line running the executable in the app directory of a {@code jet:build}
+     */
+    protected List<String> nativeCommand(File appDir) throws MojoFailureException {
+        File exe = new File(appDir, Utils.mangleExeName(outputName()));
+        if (!exe.isFile()) {
+            throw new MojoFailureException(s("AbstractJetMojo.NoExecutable.Failure", exe.getAbsolutePath()));
+        }
+        return new ArrayList<>(Collections.singletonList(exe.getAbsolutePath()));
+    }
+
+    /**
+     * Stages the application to {@code buildDir}.
+     *
+     * @return command line running the application on the {@link #baselineJava} JVM from {@code buildDir}
+     */
+    protected List<String> jvmCommand(File buildDir) throws MojoExecutionException {
+        List<String> classpath = copyDependencies(buildDir, mainJar);
+        return new ArrayList<>(Arrays.asList(baselineJava.getAbsolutePath(),
+                "-cp", String.join(File.pathSeparator, classpath), mainClass.replace('/', '.')));
+    }
+
+    /**
+     * @return {@link #outputName} or, if it is not set, the simple name of the main class
+     */
+    protected String outputName() {
+        if (outputName != null) {
+            return outputName;
+        }
+        String main = mainClass.replace('.', '/');
+        return main.substring(main.lastIndexOf('/') + 1);
+    }
+
     protected void mkdir(File dir) throws MojoExecutionException {
         if (!dir.exists() && !dir.mkdirs()) {
             if (!dir.exists()) {
@@ -156,36 +322,329 @@ public abstract class AbstractJetMojo extends AbstractMojo {
         return buildDir;
     }
 
-    private void copyDependency(File from, File to, File buildDir, ArrayList<String> dependencies) {
-        try {
-            if (!to.exists()) {
-                Files.copy(from.toPath(), to.toPath());
-            }
-            dependencies.add(buildDir.toPath().relativize(to.toPath()).toString());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * @return whether the artifact is a runtime dependency, as the goals resolving test dependencies
+     *         must stage the same dependencies as the build
+     */
+    protected static boolean isRuntimeArtifact(Artifact artifact) {
+        return (artifact.getScope() == null) ||
+                Artifact.SCOPE_COMPILE.equals(artifact.getScope()) ||
+                Artifact.SCOPE_RUNTIME.equals(artifact.getScope());
     }
 
     /**
      * Copies project dependencies.
+     * <p>
+     * Only the jars that have changed since the previous invocation are actually copied,
+     * and jars that are no longer dependencies of the project are removed.
+     * If several dependencies have the same file name, they are staged under names prefixed with their
+     * group ids.
+     * </p>
      *
      * @return list of dependencies relative to buildDir
      */
     protected ArrayList<String> copyDependencies(File buildDir, File mainJar) throws MojoExecutionException {
         File libDir = new File(buildDir, LIB_DIR);
         mkdir(libDir);
-        ArrayList<String> dependencies = new ArrayList<>();
+        LinkedHashMap<String, File> staged = new LinkedHashMap<>();
+        staged.put(mainJar.getName(), mainJar);
+        List<Artifact> artifacts = project.getArtifacts().stream()
+                .filter(a -> isRuntimeArtifact(a) && (a.getFile() != null) && a.getFile().isFile())
+                .collect(Collectors.toList());
+        Map<String, Long> nameCounts = artifacts.stream()
+                .collect(Collectors.groupingBy(a -> a.getFile().getName(), Collectors.counting()));
+        for (Artifact artifact : artifacts) {
+            File f = artifact.getFile();
+            String name = f.getName();
+            if (nameCounts.get(name) > 1) {
+                name = artifact.getGroupId() + "-" + name;
+            }
+            String relPath = LIB_DIR + File.separator + name;
+            for (int i = 1; staged.containsKey(relPath); i++) {
+                relPath = LIB_DIR + File.separator + i + "-" + name;
+            }
+            staged.put(relPath, f);
+        }
         try {
-            copyDependency(mainJar, new File(buildDir, mainJar.getName()), buildDir, dependencies);
-            project.getArtifacts().stream()
-                    .map(Artifact::getFile)
-                    .filter(File::isFile)
-                    .forEach(f -> copyDependency(f, new File(libDir, f.getName()), buildDir, dependencies))
-            ;
-            return dependencies;
+            DependencyStager stager = new DependencyStager(buildDir, libDir);
+            if (useDependencyStore) {
+                stager.withStore(new DependencyStore(dependencyStore), dependencyStoreMaxSize * MB);
+            }
+            DependencyStager.Stats stats = stager.stage(staged);
+            getLog().info(s("JetMojo.DependenciesStaged.Info", stats.staged, stats.upToDate, stats.removed));
+            dependencyHashes = stats.hashes;
+            return new ArrayList<>(staged.keySet());
         } catch (Exception e) {
             throw new MojoExecutionException(s("JetMojo.ErrorCopyingDependency.Exception"), e);
         }
     }
+
+    protected TestRunExecProfiles execProfiles() {
+        return new TestRunExecProfiles(execProfilesDir, execProfilesName);
+    }
+
+    protected ExecProfilesStore execProfilesStore() {
+        return new ExecProfilesStore(execProfilesStore, EXEC_PROFILES_KEPT);
+    }
+
+    /**
+     * @return description of the application and Excelsior JET the execution profiles are to be collected for
+     */
+    protected ExecProfilesMetadata execProfilesMetadata(JetHome jetHome) throws MojoFailureException {
+        try {
+            return new ExecProfilesMetadata(String.valueOf(jetHome.getJetVersion()), jetHome.is64bit(), dependencyHashes);
+        } catch (JetHomeException e) {
+            throw new MojoFailureException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return main class to launch during a Test Run followed by its arguments
+     */
+    protected List<String> testRunCommand() {
+        return Collections.singletonList(mainClass);
+    }
+
+    /**
+     * Prepares xjava to run the application for a Test Run.
+     *
+     * @param classpath classpath of the application relative to {@code workDir}
+     * @param loadedClasses receives the classes loaded by the application if {@link #recordClassUsage} is set
+     */
+    private XJava testRunTool(JetHome jetHome, File workDir, String classpath, TestRunScenario scenario,
+                              TestRunExecProfiles profiles, Set<String> loadedClasses) throws MojoFailureException {
+        XJava xjava = new XJava(jetHome);
+        try {
+            xjava.addTestRunArgs(profiles)
+                    .workingDirectory(workDir)
+                    .withTimeout(testRunTimeout, TimeUnit.SECONDS);
+        } catch (JetHomeException e) {
+            throw new MojoFailureException(e.getMessage());
+        }
+        if (recordClassUsage) {
+            xjava.arg("-verbose:class");
+            xjava.withOutputFilter(line -> {
+                String loaded = RuntimeComponents.loadedClass(line);
+                if (loaded == null) {
+                    return false;
+                }
+                loadedClasses.add(loaded);
+                return true;
+            });
+        }
+        xjava.arg("-cp");
+        xjava.arg(classpath);
+        for (String arg : testRunCommand()) {
+            xjava.arg(arg);
+        }
+        for (String arg : scenario.getArguments()) {
+            xjava.arg(arg);
+        }
+        return xjava;
+    }
+
+    /**
+     * Performs a Test Run of the application staged to {@code buildDir}, collecting execution profiles
+     * along with their metadata, and saves them to the profile store.
+     * A single run that fails, i.e. exits with a non-zero code unless shut down by the scenario,
+     * leaves no profiles behind, so that those of a previous run are never passed off as its result.
+     * If several {@link #testRunScenarios} are given, they are run concurrently and their profiles are merged.
+     *
+     * @param classpath main jar and dependencies, relative to buildDir or absolute
+     */
+    protected void testRun(JetHome jetHome, File buildDir, List<String> classpath) throws MojoExecutionException, MojoFailureException {
+        mkdir(execProfilesDir);
+
+        TestRunExecProfiles execProfiles = execProfiles();
+        try {
+            if ((testRunScenarios != null) && (testRunScenarios.size() > 1)) {
+                testRunScenarios(jetHome, buildDir, classpath, execProfiles);
+            } else {
+                TestRunScenario scenario = (testRunScenarios != null) && (testRunScenarios.size() == 1) ?
+                        testRunScenarios.get(0) :
+                        (testRunScenario != null) ? testRunScenario : new TestRunScenario();
+                // profiles of a previous run must not be saved as the result of this one if it fails
+                Files.deleteIfExists(execProfiles.getUsg().toPath());
+                Files.deleteIfExists(execProfiles.getStartup().toPath());
+                Files.deleteIfExists(execProfiles.getMetadata().toPath());
+                // recorded again below if recordClassUsage is set, otherwise it would be saved along with the profiles
+                Files.deleteIfExists(execProfiles.getClassUsage().toPath());
+                Set<String> loadedClasses = new HashSet<>();
+                XJava xjava = testRunTool(jetHome, buildDir, String.join(File.pathSeparator, classpath), scenario,
+                        execProfiles, loadedClasses);
+                xjava.withLog(getLog());
+
+                String cmdLine = xjava.getArgs().stream()
+                        .map(arg -> arg.contains(" ") ? '"' + arg + '"' : arg)
+                        .collect(Collectors.joining(" "));
+
+                getLog().info(s("TestRunMojo.Start.Info", cmdLine));
+
+                TestRunScenario.Result result = scenario.run(xjava, getLog());
+                int errCode = result.exitCode;
+                String finishText = s("TestRunMojo.Finish.Info", errCode);
+                if ((errCode != 0) && !result.shutDown) {
+                    getLog().warn(finishText);
+                    getLog().warn(s("TestRunMojo.ProfilesNotSaved.Warning"));
+                    return;
+                }
+                getLog().info(finishText);
+                if (recordClassUsage) {
+                    RuntimeComponents.writeClassUsage(execProfiles.getClassUsage(), loadedClasses);
+                    getLog().info(s("TestRunMojo.ClassUsage.Info", loadedClasses.size(),
+                            execProfiles.getClassUsage().getAbsolutePath()));
+                }
+            }
+            ExecProfilesMetadata metadata = execProfilesMetadata(jetHome);
+            metadata.write(execProfiles.getMetadata());
+            try {
+                execProfilesStore().save(metadata.key(), execProfiles);
+            } catch (IOException e) {
+                getLog().warn(s("TestRunMojo.ExecProfilesStore.Warning", execProfilesStore.getAbsolutePath(), e.getMessage()));
+            }
+        } catch (CmdLineToolException | IOException e) {
+            throw new MojoFailureException(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the {@link #testRunScenarios} concurrently, each in its own working directory
+     * under {@code jetOutputDir/testrun}, and merges their profiles into {@code execProfiles}.
+     */
+    private void testRunScenarios(JetHome jetHome, File buildDir, List<String> classpath,
+                                  TestRunExecProfiles execProfiles) throws MojoExecutionException, MojoFailureException, IOException, CmdLineToolException {
+        int n = testRunScenarios.size();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            String name = testRunScenarios.get(i).getName();
+            if (Utils.isEmpty(name) || name.equals(TestRunScenario.DEFAULT_NAME)) {
+                name = "scenario-" + (i + 1);
+            }
+            if (names.contains(name) || !name.matches("[\\w.-]+")) {
+                throw new MojoFailureException(s("TestRunMojo.BadScenarioName.Failure", name));
+            }
+            names.add(name);
+        }
+        String absoluteClasspath = classpath.stream()
+                .map(path -> new File(path).isAbsolute() ? path : new File(buildDir, path).getAbsolutePath())
+                .collect(Collectors.joining(File.pathSeparator));
+
+        List<TestRunExecProfiles> profiles = new ArrayList<>();
+        List<Set<String>> loadedClasses = new ArrayList<>();
+        List<XJava> tools = new ArrayList<>();
+        File scenariosDir = new File(jetOutputDir, TEST_RUN_DIR);
+        for (int i = 0; i < n; i++) {
+            File workDir = new File(scenariosDir, names.get(i));
+            Utils.cleanDirectory(workDir);
+            mkdir(workDir);
+            TestRunExecProfiles scenarioProfiles = new TestRunExecProfiles(workDir, execProfilesName);
+            Set<String> scenarioClasses = Collections.synchronizedSet(new HashSet<>());
+            XJava xjava = testRunTool(jetHome, workDir, absoluteClasspath, testRunScenarios.get(i),
+                    scenarioProfiles, scenarioClasses);
+            // the output of concurrent scenarios goes to the log files only
+            xjava.withOutputLog(new File(jetOutputDir, LOGS_DIR), "testrun-" + names.get(i));
+            profiles.add(scenarioProfiles);
+            loadedClasses.add(scenarioClasses);
+            tools.add(xjava);
+        }
+
+        int parallelism = Math.min(n, (testRunParallelism > 0) ? testRunParallelism : HostResources.processors());
+        getLog().info(s("TestRunMojo.Scenarios.Info", n, parallelism, new File(jetOutputDir, LOGS_DIR).getAbsolutePath()));
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<TestRunScenario.Result>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < n; i++) {
+                TestRunScenario scenario = testRunScenarios.get(i);
+                XJava xjava = tools.get(i);
+                futures.add(executor.submit(() -> scenario.run(xjava, getLog())));
+            }
+            List<TestRunScenario.Result> results = new ArrayList<>();
+            for (Future<TestRunScenario.Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw (cause instanceof CmdLineToolException) ? (CmdLineToolException) cause :
+                            new CmdLineToolException(cause.toString());
+                }
+            }
+            long wallMillis = System.currentTimeMillis() - start;
+            if (recordClassUsage) {
+                for (int i = 0; i < n; i++) {
+                    RuntimeComponents.writeClassUsage(profiles.get(i).getClassUsage(), loadedClasses.get(i));
+                }
+            }
+            TestRunExecProfiles.Merge merge = TestRunExecProfiles.merge(profiles, execProfiles);
+            reportScenarios(names, results, profiles, loadedClasses, execProfiles, merge, wallMillis, is64bit(jetHome));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmdLineToolException(s("CmdLineTool.Interrupted.Error", "xjava"));
+        } finally {
+            // cancelling interrupts the waiting scenarios, which terminate their applications
+            futures.forEach(future -> future.cancel(true));
+            executor.shutdown();
+        }
+    }
+
+    private static boolean is64bit(JetHome jetHome) throws MojoFailureException {
+        try {
+            return jetHome.is64bit();
+        } catch (JetHomeException e) {
+            throw new MojoFailureException(e.getMessage());
+        }
+    }
+
+    private void reportScenarios(List<String> names, List<TestRunScenario.Result> results,
+                                 List<TestRunExecProfiles> profiles, List<Set<String>> loadedClasses,
+                                 TestRunExecProfiles merged, TestRunExecProfiles.Merge merge,
+                                 long wallMillis, boolean is64bit) throws IOException {
+        BuildReport report = new BuildReport();
+        long totalMillis = 0;
+        Set<String> allClasses = new HashSet<>();
+        loadedClasses.forEach(allClasses::addAll);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            TestRunScenario.Result result = results.get(i);
+            Set<String> unique = new HashSet<>(loadedClasses.get(i));
+            for (int j = 0; j < names.size(); j++) {
+                if (j != i) {
+                    unique.removeAll(loadedClasses.get(j));
+                }
+            }
+            long usageEntries = TestRunExecProfiles.usageEntries(profiles.get(i).getUsg());
+            totalMillis += result.elapsedMillis;
+            if ((result.exitCode != 0) && !result.shutDown) {
+                getLog().warn(s("TestRunMojo.ScenarioExitCode.Warning", name, result.exitCode));
+            }
+            getLog().info(s("TestRunMojo.ScenarioSummary.Info", name, result.elapsedMillis / 1000.0, result.exitCode,
+                    loadedClasses.get(i).size(), unique.size(), usageEntries));
+            report.put(name + ".elapsedMillis", result.elapsedMillis)
+                    .put(name + ".readyMillis", result.readyMillis)
+                    .put(name + ".exitCode", result.exitCode)
+                    .put(name + ".shutDown", result.shutDown)
+                    .put(name + ".classes", loadedClasses.get(i).size())
+                    .put(name + ".uniqueClasses", unique.size())
+                    .put(name + ".usageEntries", usageEntries);
+        }
+        long mergedEntries = TestRunExecProfiles.usageEntries(merged.getUsg());
+        String startupFrom = (merge.startupFrom >= 0) ? names.get(merge.startupFrom) : "";
+        getLog().info(s("TestRunMojo.ScenariosMerged.Info", names.size(), wallMillis / 1000.0, totalMillis / 1000.0,
+                allClasses.size(), mergedEntries, startupFrom));
+        if (merge.usageFrom >= 0) {
+            getLog().warn(s("TestRunMojo.UsageNotMerged.Warning", names.get(merge.usageFrom)));
+        }
+        if ((mergedEntries == 0) && !recordClassUsage) {
+            getLog().warn(s("TestRunMojo.NothingMerged.Warning", startupFrom));
+        } else if (is64bit) {
+            getLog().info(s("TestRunMojo.Scenarios64.Info", startupFrom));
+        }
+        report.put("wallMillis", wallMillis)
+                .put("totalMillis", totalMillis)
+                .put("classes", allClasses.size())
+                .put("usageEntries", mergedEntries)
+                .put("startupProfileFrom", startupFrom)
+                .put("usageProfileFrom", (merge.usageFrom >= 0) ? names.get(merge.usageFrom) : "");
+        report.write(new File(jetOutputDir, TEST_RUN_REPORT));
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.maven.plugin;
+
+import com.excelsiorjet.*;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.excelsiorjet.Txt.s;
+
+/**
+ * Mojo for measuring the startup time of the natively compiled application built by {@code jet:build}
+ * against the original application running on the JVM Maven runs on:
+ * <p>
+ * <code>
+ *     mvn jet:benchmark -DbenchmarkRuns=20
+ * </code>
+ * </p>
+ * Each variant is run {@link #benchmarkRuns} times, interleaved with the other variants so that
+ * drift of the host load affects them equally. The first run of each variant is reported as the cold start
+ * and the others as warm starts. The startup time is the time until the application exits or,
+ * if {@link #benchmarkScenario} has a ready pattern, until it prints a line matching the pattern.
+ * The results are logged and written to {@code jet/benchmark-report.properties}.
+ */
+@Mojo(name = "benchmark", requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class BenchmarkMojo extends AbstractJetMojo {
+
+    static final String NATIVE = "native";
+    static final String COMPARED = "compared";
+    static final String JVM = "jvm";
+
+    static final String BENCHMARK_REPORT = "benchmark-report.properties";
+
+    /**
+     * Number of runs of each variant.
+     */
+    @Parameter(property = "benchmarkRuns", defaultValue = "10")
+    protected int benchmarkRuns;
+
+    /**
+     * How to run the application and when it is considered started, see {@link #testRunScenario}.
+     * With a ready pattern, the application is shut down as soon as it is ready.
+     * By default, the application is run without arguments until it exits.
+     */
+    @Parameter
+    protected TestRunScenario benchmarkScenario;
+
+    /**
+     * Whether to run the application on the JVM as the baseline.
+     */
+    @Parameter(property = "benchmarkJvm", defaultValue = "true")
+    protected boolean benchmarkJvm;
+
+    /**
+     * App directory of another build of the application to compare with, e.g. one built
+     * with {@code -DuseStartupProfile=false -DjetOutputDir=target/jet-noprofile} to measure the effect
+     * of the startup profile.
+     */
+    @Parameter(property = "benchmarkCompareAppDir")
+    protected File benchmarkCompareAppDir;
+
+    /**
+     * (Linux) If set, the runs are bound to that many processors with {@code taskset}
+     * to emulate small production containers.
+     */
+    @Parameter(property = "benchmarkCpus", defaultValue = "0")
+    protected int benchmarkCpus;
+
+    /**
+     * Maximum duration of a single run in seconds. {@code 0} means no limit.
+     */
+    @Parameter(property = "benchmarkTimeout", defaultValue = "300")
+    protected long benchmarkTimeout;
+
+    /**
+     * An application variant being measured.
+     */
+    private static class Variant {
+        final String name;
+        final File workDir;
+        final List<String> command;
+        final Samples samples = new Samples();
+
+        Variant(String name, File workDir, List<String> command) {
+            this.name = name;
+            this.workDir = workDir;
+            this.command = command;
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkPrerequisites();
+        if (benchmarkRuns < 1) {
+            throw new MojoFailureException(s("BenchmarkMojo.BadRuns.Failure", benchmarkRuns));
+        }
+        TestRunScenario scenario = (benchmarkScenario != null) ? benchmarkScenario : new TestRunScenario();
+
+        List<Variant> variants = new ArrayList<>();
+        File appDir = new File(jetOutputDir, APP_DIR);
+        variants.add(new Variant(NATIVE, appDir, nativeCommand(appDir)));
+        if (benchmarkCompareAppDir != null) {
+            variants.add(new Variant(COMPARED, benchmarkCompareAppDir, nativeCommand(benchmarkCompareAppDir)));
+        }
+        if (benchmarkJvm) {
+            File buildDir = createBuildDir();
+            variants.add(new Variant(JVM, buildDir, jvmCommand(buildDir)));
+        }
+
+        List<String> affinity = affinityCommand();
+        getLog().info(s("BenchmarkMojo.Start.Info", variants.size(), benchmarkRuns));
+        try {
+            for (int run = 0; run < benchmarkRuns; run++) {
+                for (Variant variant : variants) {
+                    List<String> args = new ArrayList<>(affinity);
+                    args.addAll(variant.command);
+                    args.addAll(Arrays.asList(scenario.getArguments()));
+                    // a dedicated reader per stream without a log file, so that the ready line
+                    // is seen as soon as it is printed rather than on the next poll of the shared pump
+                    CmdLineTool tool = new CmdLineTool(args.toArray(new String[args.size()]))
+                            .workingDirectory(variant.workDir)
+                            .withOutputPump(new ThreadedOutputPump())
+                            .withTimeout(benchmarkTimeout, TimeUnit.SECONDS);
+                    TestRunScenario.Result result = scenario.run(tool, getLog());
+                    if ((result.exitCode != 0) && !result.shutDown) {
+                        throw new MojoFailureException(s("BenchmarkMojo.RunFailed.Failure", variant.name, result.exitCode));
+                    }
+                    if ((scenario.getReadyPattern() != null) && (result.readyMillis < 0)) {
+                        throw new MojoFailureException(s("BenchmarkMojo.NotReady.Failure", variant.name));
+                    }
+                    variant.samples.add((scenario.getReadyPattern() != null) ? result.readyMillis : result.elapsedMillis);
+                }
+            }
+            report(variants);
+        } catch (CmdLineToolException | IOException e) {
+            throw new MojoFailureException(e.getMessage());
+        }
+    }
+
+    private List<String> affinityCommand() {
+        if (benchmarkCpus <= 0) {
+            return Collections.emptyList();
+        }
+        if (!Utils.isLinux()) {
+            getLog().warn(s("BenchmarkMojo.AffinityUnsupported.Warning"));
+            return Collections.emptyList();
+        }
+        return Arrays.asList("taskset", "-c", (benchmarkCpus == 1) ? "0" : "0-" + (benchmarkCpus - 1));
+    }
+
+    private void report(List<Variant> variants) throws IOException {
+        BuildReport report = new BuildReport();
+        report.put("cpus", benchmarkCpus)
+                .put("readyPattern", (benchmarkScenario != null) && (benchmarkScenario.getReadyPattern() != null));
+        long nativeWarm = 0;
+        for (Variant variant : variants) {
+            Samples warm = variant.samples.size() > 1 ? variant.samples.skip(1) : variant.samples;
+            long cold = variant.samples.getValues().get(0);
+            report.put(variant.name + ".cold", cold);
+            warm.describe(report, variant.name + ".warm");
+            if (variant.name.equals(NATIVE)) {
+                nativeWarm = warm.percentile(50);
+                getLog().info(s("BenchmarkMojo.Result.Info", variant.name, cold, warm.percentile(50),
+                        warm.percentile(90), warm.percentile(99), warm.min(), warm.max()));
+            } else {
+                double speedup = (nativeWarm > 0) ? (double) warm.percentile(50) / nativeWarm : 0;
+                report.put(variant.name + ".nativeSpeedup", String.format(Locale.ROOT, "%.2f", speedup));
+                getLog().info(s("BenchmarkMojo.Result.Info", variant.name, cold, warm.percentile(50),
+                        warm.percentile(90), warm.percentile(99), warm.min(), warm.max()) +
+                        s("BenchmarkMojo.Speedup.Info", speedup));
+            }
+        }
+        File reportFile = new File(jetOutputDir, BENCHMARK_REPORT);
+        report.write(reportFile);
+        getLog().info(s("BenchmarkMojo.Report.Info", reportFile.getAbsolutePath()));
+    }
+}
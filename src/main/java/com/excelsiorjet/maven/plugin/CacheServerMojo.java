@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.maven.plugin;
+
+import com.excelsiorjet.BuildCacheServer;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.excelsiorjet.Txt.s;
+
+/**
+ * Mojo for running a simple file-backed remote build cache server on this machine,
+ * which may stand in for a real shared cache server in small setups and for trying the feature out.
+ * Run it as follows:
+ * <p>
+ * <code>
+ *     mvn jet:cache-server -DbuildCacheServerDir=/var/cache/jet -DbuildCacheServerPort=8855 -DbuildCacheServerHost=0.0.0.0
+ * </code>
+ * </p>
+ * and point the builds to it with {@code -DbuildCacheUrl=http://<host>:8855/}.
+ * The server runs until the Maven process is terminated.
+ *
+ * @see JetMojo#buildCacheUrl
+ */
+@Mojo(name = "cache-server", requiresProject = false, threadSafe = true)
+public class CacheServerMojo extends AbstractMojo {
+
+    /**
+     * Directory to keep the cache entries in.
+     */
+    @Parameter(property = "buildCacheServerDir", defaultValue = "${user.home}/.m2/jet-build-cache-server")
+    protected File buildCacheServerDir;
+
+    /**
+     * Address to listen on. By default, only this machine may access the server;
+     * set it to "0.0.0.0" to serve the whole network, which should be trusted, as the server has no authentication.
+     */
+    @Parameter(property = "buildCacheServerHost", defaultValue = BuildCacheServer.LOOPBACK)
+    protected String buildCacheServerHost;
+
+    /**
+     * Maximum size of an uploaded cache entry in megabytes.
+     */
+    @Parameter(property = "buildCacheServerMaxEntrySize", defaultValue = "1024")
+    protected long buildCacheServerMaxEntrySize;
+
+    /**
+     * Port to listen on.
+     */
+    @Parameter(property = "buildCacheServerPort", defaultValue = "8855")
+    protected int buildCacheServerPort;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        BuildCacheServer server;
+        try {
+            server = new BuildCacheServer(buildCacheServerDir, buildCacheServerHost, buildCacheServerPort,
+                    buildCacheServerMaxEntrySize * AbstractJetMojo.MB).start();
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        getLog().info(s("CacheServerMojo.Started.Info", buildCacheServerDir.getAbsolutePath(), server.getUrl()));
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop();
+        }
+    }
+}
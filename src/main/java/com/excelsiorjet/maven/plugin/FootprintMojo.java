@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.maven.plugin;
+
+import com.excelsiorjet.*;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import static com.excelsiorjet.Txt.s;
+
+/**
+ * Mojo for profiling the memory footprint of the natively compiled application built by {@code jet:build}
+ * against the original application running on the JVM (Linux only):
+ * <p>
+ * <code>
+ *     mvn jet:footprint
+ * </code>
+ * </p>
+ * Each variant is run according to {@link #footprintScenario} while its resident set size, private and
+ * shared pages are sampled from {@code /proc}. The peak and the steady-state (median after the application
+ * became ready) values are logged and written to {@code jet/footprint-report.properties}, and the samples
+ * to {@code jet/footprint-<variant>.csv}.
+ */
+@Mojo(name = "footprint", requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class FootprintMojo extends AbstractJetMojo {
+
+    static final String NATIVE = "native";
+    static final String JVM = "jvm";
+
+    static final String FOOTPRINT_REPORT = "footprint-report.properties";
+
+    /**
+     * How to run the application, see {@link #testRunScenario}. To measure the steady state, set a ready pattern
+     * and a duration for the application to run under load, e.g. driven by {@code input}.
+     * By default, the application is run without arguments until it exits.
+     */
+    @Parameter
+    protected TestRunScenario footprintScenario;
+
+    /**
+     * Whether to run the application on the JVM as the baseline.
+     */
+    @Parameter(property = "footprintJvm", defaultValue = "true")
+    protected boolean footprintJvm;
+
+    /**
+     * Interval between the memory samples in milliseconds.
+     */
+    @Parameter(property = "footprintSamplingInterval", defaultValue = "250")
+    protected long footprintSamplingInterval;
+
+    /**
+     * Maximum duration of a run in seconds. {@code 0} means no limit.
+     */
+    @Parameter(property = "footprintTimeout", defaultValue = "600")
+    protected long footprintTimeout;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkPrerequisites();
+        if (!MemoryFootprint.isSupported()) {
+            throw new MojoFailureException(s("FootprintMojo.Unsupported.Failure"));
+        }
+        TestRunScenario scenario = (footprintScenario != null) ? footprintScenario : new TestRunScenario();
+
+        Map<String, List<String>> commands = new LinkedHashMap<>();
+        Map<String, File> workDirs = new HashMap<>();
+        File appDir = new File(jetOutputDir, APP_DIR);
+        commands.put(NATIVE, nativeCommand(appDir));
+        workDirs.put(NATIVE, appDir);
+        if (footprintJvm) {
+            File buildDir = createBuildDir();
+            commands.put(JVM, jvmCommand(buildDir));
+            workDirs.put(JVM, buildDir);
+        }
+
+        File logsDir = new File(jetOutputDir, LOGS_DIR);
+        mkdir(logsDir);
+        BuildReport report = new BuildReport();
+        long nativeSteadyRss = 0;
+        try {
+            for (Map.Entry<String, List<String>> entry : commands.entrySet()) {
+                String variant = entry.getKey();
+                List<String> args = new ArrayList<>(entry.getValue());
+                args.addAll(Arrays.asList(scenario.getArguments()));
+                CmdLineTool tool = new CmdLineTool(args.toArray(new String[args.size()]))
+                        .workingDirectory(workDirs.get(variant))
+                        .withOutputLog(logsDir, "footprint-" + variant)
+                        .withTimeout(footprintTimeout, TimeUnit.SECONDS);
+                getLog().info(s("FootprintMojo.Start.Info", variant));
+
+                MemoryFootprint footprint = new MemoryFootprint();
+                Thread[] sampler = new Thread[1];
+                TestRunScenario.Result result = scenario.run(tool, getLog(), execution -> {
+                    sampler[0] = startSampler(execution, footprint);
+                });
+                sampler[0].interrupt();
+                sampler[0].join();
+                if ((result.exitCode != 0) && !result.shutDown) {
+                    throw new MojoFailureException(s("FootprintMojo.RunFailed.Failure", variant, result.exitCode));
+                }
+                if (footprint.getSamples().isEmpty()) {
+                    throw new MojoFailureException(s("FootprintMojo.NoSamples.Failure", variant));
+                }
+
+                List<MemoryFootprint.Sample> steady = footprint.steadyState(result.readyMillis);
+                long peakRss = footprint.peakRss();
+                long steadyRss = median(steady, sample -> sample.rss);
+                long steadyPrivate = median(steady, sample -> sample.privateBytes);
+                long steadyShared = median(steady, sample -> sample.sharedBytes);
+                long steadyPss = median(steady, sample -> sample.pss);
+                report.put(variant + ".peakRss", peakRss)
+                        .put(variant + ".steadyRss", steadyRss)
+                        .put(variant + ".steadyPrivate", steadyPrivate)
+                        .put(variant + ".steadyShared", steadyShared)
+                        .put(variant + ".steadyPss", steadyPss)
+                        .put(variant + ".samples", footprint.getSamples().size());
+                File csv = new File(jetOutputDir, "footprint-" + variant + ".csv");
+                footprint.writeCsv(csv);
+
+                String summary = s("FootprintMojo.Result.Info", variant, mb(peakRss), mb(steadyRss),
+                        mb(steadyPrivate), mb(steadyShared), mb(steadyPss));
+                if (variant.equals(NATIVE)) {
+                    nativeSteadyRss = steadyRss;
+                    getLog().info(summary);
+                } else {
+                    double ratio = (nativeSteadyRss > 0) ? (double) steadyRss / nativeSteadyRss : 0;
+                    report.put(variant + ".nativeRatio", String.format(Locale.ROOT, "%.2f", ratio));
+                    getLog().info(summary + s("FootprintMojo.Ratio.Info", ratio));
+                }
+            }
+            File reportFile = new File(jetOutputDir, FOOTPRINT_REPORT);
+            report.write(reportFile);
+            getLog().info(s("FootprintMojo.Report.Info", reportFile.getAbsolutePath()));
+        } catch (CmdLineToolException | IOException e) {
+            throw new MojoFailureException(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException(s("CmdLineTool.Interrupted.Error", "footprint"));
+        }
+    }
+
+    private Thread startSampler(CmdLineTool.Execution execution, MemoryFootprint footprint) {
+        long pid = execution.pid();
+        long start = System.currentTimeMillis();
+        Thread sampler = new Thread(() -> {
+            try {
+                while (execution.isAlive() && footprint.sample(pid, System.currentTimeMillis() - start)) {
+                    Thread.sleep(footprintSamplingInterval);
+                }
+            } catch (InterruptedException ignore) {
+                // the run is over
+            }
+        }, "footprint sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+        return sampler;
+    }
+
+    private static long median(List<MemoryFootprint.Sample> samples, ToLongFunction<MemoryFootprint.Sample> value) {
+        Samples values = new Samples();
+        samples.forEach(sample -> values.add(value.applyAsLong(sample)));
+        return values.percentile(50);
+    }
+
+    private static double mb(long bytes) {
+        return (double) bytes / MB;
+    }
+}
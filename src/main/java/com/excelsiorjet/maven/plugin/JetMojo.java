@@ -25,14 +25,19 @@ import com.excelsiorjet.*;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.utils.IOUtils;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.*;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static com.excelsiorjet.Txt.s;
 import static com.excelsiorjet.EncodingDetector.detectEncoding;
@@ -43,7 +48,7 @@ import static com.excelsiorjet.EncodingDetector.detectEncoding;
  * @author Nikita Lipsky
  */
 @Execute(phase = LifecyclePhase.PACKAGE)
-@Mojo( name = "build", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyResolution = ResolutionScope.RUNTIME)
+@Mojo( name = "build", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
 public class JetMojo extends AbstractJetMojo {
 
     public static final String AUTO_DETECT_EULA_ENCODING = "autodetect";
@@ -56,12 +61,6 @@ public class JetMojo extends AbstractJetMojo {
         add(AUTO_DETECT_EULA_ENCODING);
     }};
 
-    /**
-     * Target executable name. If not set, the main class name is used.
-     */
-    @Parameter(property = "outputName")
-    protected String outputName;
-
     /**
      * (Windows) .ico file to associate with the resulting executable file.
      */
@@ -96,6 +95,209 @@ public class JetMojo extends AbstractJetMojo {
     @Parameter(property = "profileStartupTimeout", defaultValue = "20")
     protected int profileStartupTimeout;
 
+    /**
+     * Whether to compile the application with the startup profile collected during the Test Run.
+     * Disable it to build a variant for comparison with {@code jet:benchmark}.
+     */
+    @Parameter(property = "useStartupProfile", defaultValue = "true")
+    protected boolean useStartupProfile;
+
+    /**
+     * Maximum duration of the native compilation in seconds.
+     * When it is exceeded, the compiler is terminated together with all its child processes
+     * and the build fails. {@code 0} means no limit.
+     */
+    @Parameter(property = "compilerTimeout", defaultValue = "0")
+    protected long compilerTimeout;
+
+    /**
+     * Maximum duration of each packaging step in seconds. {@code 0} means no limit.
+     *
+     * @see #compilerTimeout
+     */
+    @Parameter(property = "packagerTimeout", defaultValue = "0")
+    protected long packagerTimeout;
+
+    /**
+     * How much of the Excelsior JET compiler and packager output is shown in the Maven log. Permitted values are:
+     * <dl>
+     *   <dt>full</dt>
+     *   <dd>every output line</dd>
+     *   <dt>summary</dt>
+     *   <dd>warnings, errors, durations of compilation phases and a sample of other lines (default)</dd>
+     *   <dt>quiet</dt>
+     *   <dd>warnings and errors only</dd>
+     * </dl>
+     * Regardless of this setting, the complete output is saved to gzip-compressed files
+     * in the "logs" subdirectory of {@code jetOutputDir}; the files of the last five builds are kept.
+     */
+    @Parameter(property = "toolOutput", defaultValue = "summary")
+    protected String toolOutput;
+
+    private OutputVerbosity toolOutputVerbosity;
+
+    /**
+     * If set to {@code true}, the dependencies of the project are compiled into a separate native shared library,
+     * which is reused as long as the dependencies do not change, so that only the main application jar
+     * is compiled on most builds. The libraries are kept in the "deps" subdirectory of {@code jetOutputDir}
+     * (the last three sets of dependencies), and also in the build cache, if enabled.
+     * The shared library is placed next to the executable.
+     */
+    @Parameter(property = "splitCompilation", defaultValue = "false")
+    protected boolean splitCompilation;
+
+    /**
+     * Maximum number of native compilations running at once when modules are built in parallel
+     * ({@code mvn -T}). By default, half the number of processors.
+     * Compilations are also limited by {@link #compileMemoryBudget} and are started longest-expected-first,
+     * judging by the previous compilations of the modules.
+     */
+    @Parameter(property = "maxParallelCompilations", defaultValue = "0")
+    protected int maxParallelCompilations;
+
+    /**
+     * Memory in megabytes that native compilations running at once may consume, estimated from the sizes
+     * of the compiled jars. By default, three quarters of the physical memory.
+     *
+     * @see #maxParallelCompilations
+     */
+    @Parameter(property = "compileMemoryBudget", defaultValue = "0")
+    protected long compileMemoryBudget;
+
+    /**
+     * If set to {@code true}, the Excelsior JET compiler and packager are run only in a free slot of
+     * the pool shared by all builds on this machine, including independent Maven processes,
+     * so that concurrent builds do not oversubscribe the machine. Builds get slots in the order they ask for them.
+     *
+     * @see #hostSlots
+     */
+    @Parameter(property = "useHostSlots", defaultValue = "false")
+    protected boolean useHostSlots;
+
+    /**
+     * Number of slots in the host-wide pool. By default, half the number of processors.
+     * All builds sharing {@link #hostSlotsDir} should use the same value.
+     *
+     * @see #useHostSlots
+     */
+    @Parameter(property = "hostSlots", defaultValue = "0")
+    protected int hostSlots;
+
+    /**
+     * Directory of the host-wide slot pool.
+     *
+     * @see #useHostSlots
+     */
+    @Parameter(property = "hostSlotsDir", defaultValue = "${java.io.tmpdir}/excelsior-jet-slots")
+    protected File hostSlotsDir;
+
+    /**
+     * Heap size of the Excelsior JET compiler in megabytes.
+     * By default, it is chosen from the total size of the compiled jars, limited by the physical memory
+     * or the cgroup memory limit shared by the compilations that may run at once.
+     */
+    @Parameter(property = "compilerHeap", defaultValue = "0")
+    protected long compilerHeap;
+
+    /**
+     * Number of threads of the Excelsior JET compiler.
+     * By default, it is chosen from the number of processors (or the cgroup CPU quota)
+     * shared by the compilations that may run at once, and from the compiler heap size.
+     */
+    @Parameter(property = "compilerThreads", defaultValue = "0")
+    protected int compilerThreads;
+
+    /**
+     * CSV file to which the statistics of each native compilation of the project are appended
+     * (duration of the compilation and its phases, numbers of compiled classes and methods, size of the executable,
+     * peak memory consumption of the compiler, git commit), to follow compilation time trends across commits.
+     * The statistics of the last build are also written to "build-report.properties" in {@code jetOutputDir}.
+     * The history also tells how long the next compilation is expected to take, so that the longest ones
+     * are started first in parallel builds, see {@link #maxParallelCompilations}.
+     * Set to an empty value to disable the history.
+     */
+    @Parameter(property = "compileStatsHistory",
+            defaultValue = "${user.home}/.m2/jet-compile-stats/${project.groupId}.${project.artifactId}.csv")
+    protected File compileStatsHistory;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    private String buildCacheSummary;
+
+    private final BuildReport buildReport = new BuildReport();
+
+    /**
+     * If set to {@code true}, the build stages (native compilation, creation of the application directory
+     * and packaging) whose inputs have not changed since the previous build are skipped.
+     * The inputs are fingerprinted in the "build.manifest" file in {@code jetOutputDir}.
+     * Set to {@code false} to force a full rebuild.
+     */
+    @Parameter(property = "incremental", defaultValue = "true")
+    protected boolean incremental;
+
+    /**
+     * If set to {@code true}, the results of native compilation are kept in the user-level build cache
+     * specified by {@link #buildCache} under a hash of all compilation inputs,
+     * and compilation is replaced with restoring its results from the cache whenever possible,
+     * e.g. after switching back to a previously built branch.
+     */
+    @Parameter(property = "useBuildCache", defaultValue = "false")
+    protected boolean useBuildCache;
+
+    /**
+     * Location of the build cache.
+     *
+     * @see #useBuildCache
+     */
+    @Parameter(property = "buildCache", defaultValue = "${user.home}/.m2/jet-build-cache")
+    protected File buildCache;
+
+    /**
+     * Maximum size of the build cache in megabytes.
+     * When the cache grows beyond that size, the least recently used entries are evicted from it.
+     * {@code 0} means no limit.
+     *
+     * @see #useBuildCache
+     */
+    @Parameter(property = "buildCacheMaxSize", defaultValue = "4096")
+    protected long buildCacheMaxSize;
+
+    /**
+     * Base URL of a remote build cache shared by several machines, such as CI agents.
+     * Compilation results are fetched from {@code <buildCacheUrl>/<key>.zip} with HTTP GET
+     * and, depending on {@link #buildCacheRemoteMode}, uploaded there with HTTP PUT.
+     * If {@link #useBuildCache} is also set, the local cache is looked up first
+     * and receives the entries fetched from the remote one.
+     * Unavailability of the remote cache does not fail the build.
+     */
+    @Parameter(property = "buildCacheUrl")
+    protected String buildCacheUrl;
+
+    //remote build cache modes
+    private static final String READ_ONLY = "read-only";
+    private static final String READ_WRITE = "read-write";
+
+    //stale profiles policies
+    private static final String WARN = "warn";
+    private static final String SKIP = "skip";
+    private static final String FAIL = "fail";
+    private static final String REFRESH = "refresh";
+
+    /**
+     * Remote build cache mode. Permitted values are:
+     * <dl>
+     *   <dt>read-only</dt>
+     *   <dd>only fetch compilation results from the remote cache (default)</dd>
+     *   <dt>read-write</dt>
+     *   <dd>also upload compilation results to the remote cache, typically set on CI agents</dd>
+     * </dl>
+     *
+     * @see #buildCacheUrl
+     */
+    @Parameter(property = "buildCacheRemoteMode", defaultValue = READ_ONLY)
+    protected String buildCacheRemoteMode;
+
     //packaging types
     private static final String ZIP = "zip";
     private static final String NONE = "none";
@@ -216,7 +418,69 @@ public class JetMojo extends AbstractJetMojo {
     @Parameter(property = "installerSplash", defaultValue = "${project.basedir}/src/main/jetresources/installerSplash.bmp")
     protected File installerSplash;
 
-    private static final String APP_DIR = "app";
+    /**
+     * Java Runtime Slim-Down: components of the Java runtime to detach from the application package,
+     * such as {@code corba}, {@code management}, {@code xml}, {@code jndi}, {@code jdbc}, {@code awt/java2d},
+     * {@code swing}, {@code jsound}, {@code rmi} or {@code jax-ws}. The detached components are placed to
+     * the separate {@link #detachedPackage} to be published at {@link #detachedBaseURL}, from where the application
+     * downloads them should it ever use them. Requires the Global Optimizer, which is enabled automatically.
+     * <p>
+     * If execution profiles contain the list of classes loaded during Test Run (see {@code recordClassUsage}),
+     * the plugin suggests the components the application has not used.
+     * </p>
+     */
+    @Parameter(property = "detachComponents")
+    protected String[] detachComponents;
+
+    /**
+     * Java Runtime Slim-Down: URL where the detached package is going to be published.
+     * Required if {@link #detachComponents} is set.
+     */
+    @Parameter(property = "detachedBaseURL")
+    protected String detachedBaseURL;
+
+    /**
+     * Java Runtime Slim-Down: file name of the package of detached components placed to {@code jetOutputDir}.
+     */
+    @Parameter(property = "detachedPackage", defaultValue = "${project.build.finalName}.pkl")
+    protected String detachedPackage;
+
+    /**
+     * What to do if the execution profiles are stale, that is, they were collected by a Test Run of other jars,
+     * or with another Excelsior JET version or bitness than those of the build:
+     * <dl>
+     *   <dt>warn</dt>
+     *   <dd>use them, issuing a warning (default)</dd>
+     *   <dt>skip</dt>
+     *   <dd>compile without them</dd>
+     *   <dt>fail</dt>
+     *   <dd>fail the build</dd>
+     *   <dt>refresh</dt>
+     *   <dd>perform a Test Run to collect them anew</dd>
+     * </dl>
+     * In any case, if the profile store has the profiles collected for the jars and the Excelsior JET
+     * of the build, they replace the stale ones instead.
+     */
+    @Parameter(property = "staleProfiles", defaultValue = WARN)
+    protected String staleProfiles;
+
+    /**
+     * Whether the execution profiles are to be used by the compilation.
+     */
+    private boolean useExecProfiles = true;
+
+    private static final String PROJECT_FILE_EXT = ".prj";
+    private static final String BUILD_MANIFEST = "build.manifest";
+    private static final String BUILD_REPORT = "build-report.properties";
+    private static final long MEMORY_SAMPLING_MILLIS = 200;
+    private static final String DEPS_DIR = "deps";
+    private static final String DEPS_SUFFIX = "-deps";
+    private static final int DEPS_KEPT = 3;
+
+    //build stages
+    private static final String STAGE_COMPILE = "compile";
+    private static final String STAGE_APP_DIR = "appdir";
+    private static final String STAGE_PACKAGE = "package";
 
     private void checkVersionInfo(JetHome jetHome) throws JetHomeException {
         if (!Utils.isWindows()) {
@@ -284,10 +548,7 @@ public class JetMojo extends AbstractJetMojo {
 
         //normalize main and set outputName
         mainClass = mainClass.replace('.', '/');
-        if (outputName == null) {
-            int lastSlash = mainClass.lastIndexOf('/');
-            outputName = lastSlash < 0 ? mainClass : mainClass.substring(lastSlash + 1);
-        }
+        outputName = outputName();
 
         //check eula settings
         if (!VALID_EULA_ENCODING_VALUES.contains(eulaEncoding)) {
@@ -295,6 +556,37 @@ public class JetMojo extends AbstractJetMojo {
         }
 
 
+        //check tool output verbosity
+        try {
+            toolOutputVerbosity = OutputVerbosity.valueOf(toolOutput.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new MojoFailureException(s("JetMojo.UnknownToolOutput.Failure", toolOutput));
+        }
+
+        //check remote build cache mode
+        if (!READ_ONLY.equals(buildCacheRemoteMode) && !READ_WRITE.equals(buildCacheRemoteMode)) {
+            throw new MojoFailureException(s("JetMojo.UnknownBuildCacheRemoteMode.Failure", buildCacheRemoteMode));
+        }
+
+        //check Java Runtime Slim-Down settings
+        if (isSlimDown()) {
+            for (String component : detachComponents) {
+                if (!RuntimeComponents.all().contains(component)) {
+                    throw new MojoFailureException(s("JetMojo.UnknownRuntimeComponent.Failure", component,
+                            String.join(", ", RuntimeComponents.all())));
+                }
+            }
+            if (Utils.isEmpty(detachedBaseURL)) {
+                throw new MojoFailureException(s("JetMojo.DetachedBaseURLNotSpecified.Failure"));
+            }
+        }
+
+        //check stale profiles policy
+        switch (staleProfiles) {
+            case WARN: case SKIP: case FAIL: case REFRESH: break;
+            default: throw new MojoFailureException(s("JetMojo.UnknownStaleProfilesPolicy.Failure", staleProfiles));
+        }
+
         //check packaging type
         switch (packaging) {
              case ZIP: case NONE: break;
@@ -316,6 +608,11 @@ public class JetMojo extends AbstractJetMojo {
                 multiApp = false;
             }
 
+            if (isSlimDown() && (jetHomeObj.getEdition() == JetEdition.STANDARD)) {
+                getLog().warn(s("JetMojo.NoSlimDownInStandard.Warning"));
+                detachComponents = null;
+            }
+
         } catch (JetHomeException e) {
             throw new MojoFailureException(e.getMessage());
         }
@@ -324,49 +621,329 @@ public class JetMojo extends AbstractJetMojo {
     }
 
     /**
-     * Invokes the Excelsior JET AOT compiler.
+     * Checks that the execution profiles were collected for the jars being compiled and the Excelsior JET
+     * used, restoring them from the profile store or applying the {@link #staleProfiles} policy otherwise.
+     *
+     * @param dependencies main jar and dependencies relative to the build directory
+     */
+    private void checkExecProfiles(JetHome jetHome, File buildDir, List<String> dependencies) throws MojoExecutionException, MojoFailureException, IOException {
+        TestRunExecProfiles execProfiles = execProfiles();
+        ExecProfilesMetadata current = execProfilesMetadata(jetHome);
+        ExecProfilesMetadata recorded = ExecProfilesMetadata.read(execProfiles.getMetadata());
+        boolean exist = execProfiles.getUsg().exists() || execProfiles.getStartup().exists();
+        if (!exist || (recorded == null)) {
+            // no profiles are used, or they were collected by an older version of the plugin,
+            // so there is nothing to check against
+            return;
+        }
+        List<String> differences = recorded.differences(current);
+        if (differences.isEmpty()) {
+            return;
+        }
+        String reasons = String.join("; ", differences);
+        if (execProfilesStore().restore(current.key(), execProfiles)) {
+            // replaces the profiles in the project directory, which the user may want to commit
+            getLog().warn(s("JetMojo.ExecProfilesRestored.Warning", reasons, execProfilesStore.getAbsolutePath(),
+                    execProfiles.getUsg().getParentFile().getAbsolutePath()));
+            return;
+        }
+        switch (staleProfiles) {
+            case FAIL:
+                throw new MojoFailureException(s("JetMojo.StaleExecProfiles.Failure", reasons));
+            case SKIP:
+                getLog().warn(s("JetMojo.StaleExecProfilesSkipped.Warning", reasons));
+                useExecProfiles = false;
+                break;
+            case REFRESH:
+                getLog().info(s("JetMojo.StaleExecProfilesRefresh.Info", reasons));
+                testRun(jetHome, buildDir, dependencies);
+                break;
+            default:
+                getLog().warn(s("JetMojo.StaleExecProfiles.Warning", reasons));
+        }
+    }
+
+    /**
+     * Creates the Excelsior JET project describing compilation of the application.
+     *
+     * @param dependencies main jar and dependencies relative to the build directory
      */
-    private void compile(JetHome jetHome, File buildDir, ArrayList<String> compilerArgs) throws MojoFailureException, CmdLineToolException {
+    private JetProject createJetProject(ArrayList<String> dependencies) {
+        JetProject project = new JetProject();
         if (Utils.isWindows()) {
             if (icon.isFile()) {
-                compilerArgs.add(icon.getAbsolutePath());
+                project.module(icon.getAbsolutePath());
             }
             if (hideConsole) {
-                compilerArgs.add("-gui+");
+                project.option("-gui+");
             }
         }
-        compilerArgs.add("-main=" + mainClass);
-        compilerArgs.add("-outputname=" + outputName);
-        compilerArgs.add("-decor=ht");
+        project.option("-main=" + mainClass);
+        project.option("-outputname=" + outputName);
+        project.option("-decor=ht");
+        if (isSlimDown()) {
+            project.option("-global+");
+        }
 
         if (profileStartup) {
-            compilerArgs.add("-saprofmode=ALWAYS");
-            compilerArgs.add("-saproftimeout=" + profileStartupTimeout);
+            project.option("-saprofmode=ALWAYS");
+            project.option("-saproftimeout=" + profileStartupTimeout);
         }
 
         if (addWindowsVersionInfo) {
-            compilerArgs.add("-versioninfocompanyname=" + vendor);
-            compilerArgs.add("-versioninfoproductname=" + product);
-            compilerArgs.add("-versioninfoproductversion=" + winVIVersion);
-            compilerArgs.add("-versioninfolegalcopyright=" + winVICopyright);
-            compilerArgs.add("-versioninfofiledescription=" + winVIDescription);
+            project.option("-versioninfocompanyname=" + vendor);
+            project.option("-versioninfoproductname=" + product);
+            project.option("-versioninfoproductversion=" + winVIVersion);
+            project.option("-versioninfolegalcopyright=" + winVICopyright);
+            project.option("-versioninfofiledescription=" + winVIDescription);
         }
 
         if (multiApp) {
-            compilerArgs.add("-multiapp+");
+            project.option("-multiapp+");
+        }
+
+        TestRunExecProfiles execProfiles = execProfiles();
+        if (useExecProfiles && useStartupProfile && execProfiles.getStartup().exists()) {
+            project.option("-startupprofile=" + execProfiles.getStartup().getAbsolutePath());
+        }
+        if (useExecProfiles && execProfiles.getUsg().exists()) {
+            project.module(execProfiles.getUsg().getAbsolutePath());
+        }
+
+        dependencies.forEach(project::classpathEntry);
+        return project;
+    }
+
+    /**
+     * @return modification stamps of the regular files directly in {@code dir} by their names
+     */
+    private static Map<String, String> fileStamps(File dir) {
+        Map<String, String> stamps = new HashMap<>();
+        File[] files = dir.listFiles(File::isFile);
+        if (files != null) {
+            for (File f : files) {
+                stamps.put(f.getName(), f.length() + ":" + f.lastModified());
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * Invokes the Excelsior JET AOT compiler on the project file written to the given directory.
+     *
+     * @param name base name of the project file, also used for the compiler log
+     * @return the executable and other files created or updated in the directory by the compiler
+     */
+    private List<File> compile(JetHome jetHome, File buildDir, JetProject jetProject, String name) throws MojoFailureException, CmdLineToolException, IOException {
+        File projectFile = new File(buildDir, name + PROJECT_FILE_EXT);
+        jetProject.write(projectFile);
+        Map<String, String> before = fileStamps(buildDir);
+
+        // the dependencies project refers to the staged jars by absolute paths
+        long inputBytes = jetProject.getClasspath().stream()
+                .mapToLong(path -> (new File(path).isAbsolute() ? new File(path) : new File(buildDir, path)).length())
+                .sum();
+        String logName = name.equals(outputName) ? "jc" : "jc-" + name;
+        CompileHistory history = new CompileHistory(isCompileStatsHistory() ? compileStatsHistory : null);
+        CompileScheduler scheduler = CompileScheduler.getInstance();
+        // parallel builds clone the session for each module, but share the request
+        if (!scheduler.configure((session != null) ? session.getRequest() : null,
+                maxParallelCompilations, compileMemoryBudget * MB)) {
+            getLog().warn(s("JetMojo.CompileLimitsConflict.Warning", scheduler.getMaxConcurrent(),
+                    scheduler.getMemoryBudget() / MB));
+        }
+        int concurrent = ((session != null) && session.isParallel()) ? scheduler.getMaxConcurrent() : 1;
+        CompilerResources resources = CompilerResources.forHost(inputBytes, concurrent, compilerHeap * MB, compilerThreads);
+        getLog().info(s("JetMojo.CompilerResources.Info", resources.getHeap() / MB, resources.getThreads()));
+        buildReport.putAll(logName, resources.describe());
+        long memory = resources.getHeap();
+        long expectedMillis = history.estimateMillis(name, inputBytes);
+        CompileScheduler.Permit permit;
+        try {
+            permit = scheduler.acquire(memory, expectedMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException(s("CmdLineTool.Interrupted.Error", "jc"));
+        }
+        try {
+            getLog().info(s("JetMojo.CompileAdmitted.Info", permit.getWaitedMillis() / 1000,
+                    memory / MB, expectedMillis / 1000));
+            try (HostSlots.Slot ignored = acquireHostSlot("jc")) {
+                long start = System.currentTimeMillis();
+                JetCompiler jc = JetCompiler.forProject(jetHome, projectFile);
+                resources.options().forEach(jc::arg);
+                CompileReport report = new CompileReport();
+                int exitCode = jc.workingDirectory(buildDir).withLog(getLog())
+                        .withVerbosity(toolOutputVerbosity).withOutputLog(new File(jetOutputDir, LOGS_DIR), logName)
+                        .withTimeout(compilerTimeout, TimeUnit.SECONDS)
+                        .withListener(report).withPeakMemorySampling(MEMORY_SAMPLING_MILLIS)
+                        .execute();
+                long elapsed = System.currentTimeMillis() - start;
+                File output = name.equals(outputName) ? new File(buildDir, Utils.mangleExeName(name)) :
+                        findLibrary(buildDir, name);
+                recordCompileStats(report.finish(exitCode, inputBytes, elapsed, output, jc.getPeakMemory()),
+                        logName, name);
+                if (exitCode != 0) {
+                    throw new MojoFailureException(s("JetMojo.Build.Failure"));
+                }
+            }
+        } finally {
+            permit.close();
+        }
+        List<File> produced = new ArrayList<>();
+        fileStamps(buildDir).forEach((file, stamp) -> {
+            if (!stamp.equals(before.get(file))) {
+                produced.add(new File(buildDir, file));
+            }
+        });
+        return produced;
+    }
+
+    /**
+     * Restores the results of compilation from the local or remote build cache, or compiles the project
+     * and puts the results into the caches.
+     */
+    private void compileCached(JetHome jetHome, File buildDir, JetProject jetProject, String name, String key) throws MojoFailureException, CmdLineToolException, IOException {
+        BuildCache local = useBuildCache ? new BuildCache(buildCache) : null;
+        HttpBuildCache remote = Utils.isEmpty(buildCacheUrl) ? null :
+                new HttpBuildCache(buildCacheUrl, !READ_WRITE.equals(buildCacheRemoteMode));
+
+        List<File> restored = (local != null) ? local.restore(key, buildDir) : null;
+        if ((restored == null) && (remote != null)) {
+            try {
+                restored = remote.restore(key, buildDir);
+                if ((restored != null) && (local != null)) {
+                    local.store(key, restored);
+                }
+            } catch (IOException e) {
+                getLog().warn(s("JetMojo.RemoteBuildCache.Warning", buildCacheUrl, e.getMessage()));
+            }
+        }
+
+        long restoredBytes = -1;
+        if (restored != null) {
+            restoredBytes = restored.stream().mapToLong(File::length).sum();
+            getLog().info(s("JetMojo.BuildCacheHit.Info", key, restoredBytes / MB));
+        } else {
+            List<File> produced = compile(jetHome, buildDir, jetProject, name);
+            if (local != null) {
+                local.store(key, produced);
+            }
+            if (remote != null) {
+                try {
+                    remote.store(key, produced);
+                } catch (IOException e) {
+                    getLog().warn(s("JetMojo.RemoteBuildCache.Warning", buildCacheUrl, e.getMessage()));
+                }
+            }
+        }
+
+        if (local != null) {
+            if (buildCacheMaxSize > 0) {
+                local.trim(buildCacheMaxSize * MB);
+            }
+            BuildCache.Stats stats = local.record(restoredBytes);
+            buildCacheSummary = s("JetMojo.BuildCacheStats.Info", stats.hits, stats.misses, stats.hitRatePercent(),
+                    stats.bytesRestored / MB);
+        }
+    }
+
+    private boolean isBuildCacheEnabled() {
+        return useBuildCache || !Utils.isEmpty(buildCacheUrl);
+    }
+
+    /**
+     * @return native shared library in {@code dir} compiled from the project with the given output name,
+     *         or {@code null} if there is none
+     */
+    private static File findLibrary(File dir, String name) {
+        File[] libraries = dir.listFiles(f -> f.isFile() &&
+                (f.getName().startsWith(name + ".") || f.getName().startsWith("lib" + name + ".")) &&
+                (f.getName().endsWith(".dll") || f.getName().endsWith(".so") || f.getName().endsWith(".dylib")));
+        return ((libraries == null) || (libraries.length == 0)) ? null : libraries[0];
+    }
+
+    /**
+     * Compiles the dependencies into a native shared library, unless it has been compiled for the same
+     * set of dependencies before.
+     *
+     * @param libs dependencies relative to the build directory
+     * @return project file of the shared library
+     */
+    private File compileDependencies(JetHome jetHome, File buildDir, List<String> libs) throws MojoExecutionException, MojoFailureException, CmdLineToolException, IOException, JetHomeException {
+        String depsName = outputName + DEPS_SUFFIX;
+        BuildManifest.Fingerprint inputs = new BuildManifest.Fingerprint()
+                .add("name", depsName)
+                .add("jet", BuildCache.toolchain(jetHome));
+        for (String lib : libs) {
+            inputs.add("dependency:" + lib, dependencyHashes.get(lib));
         }
+        String key = inputs.hash();
+        File depsRoot = new File(jetOutputDir, DEPS_DIR);
+        File depsDir = new File(depsRoot, key);
+        File projectFile = new File(depsDir, depsName + PROJECT_FILE_EXT);
+        mkdir(depsDir);
 
-        TestRunExecProfiles execProfiles = new TestRunExecProfiles(execProfilesDir, execProfilesName);
-        if (execProfiles.getStartup().exists()) {
-            compilerArgs.add("-startupprofile=" + execProfiles.getStartup().getAbsolutePath());
+        JetProject depsProject = new JetProject()
+                .option("-gendll+")
+                .option("-outputname=" + depsName)
+                .option("-decor=ht");
+        libs.forEach(lib -> depsProject.classpathEntry(new File(buildDir, lib).getAbsolutePath()));
+        depsProject.write(projectFile);
+
+        if (findLibrary(depsDir, depsName) != null) {
+            getLog().info(s("JetMojo.DependenciesLibraryUpToDate.Info", libs.size()));
+        } else {
+            getLog().info(s("JetMojo.CompilingDependenciesLibrary.Info", libs.size()));
+            if (isBuildCacheEnabled()) {
+                compileCached(jetHome, depsDir, depsProject, depsName, key);
+            } else {
+                compile(jetHome, depsDir, depsProject, depsName);
+            }
+            if (findLibrary(depsDir, depsName) == null) {
+                throw new MojoFailureException(s("JetMojo.Build.Failure"));
+            }
         }
-        if (execProfiles.getUsg().exists()) {
-            compilerArgs.add(execProfiles.getUsg().getAbsolutePath());
+
+        // keep the libraries for a few recent sets of dependencies to switch between branches quickly
+        //noinspection ResultOfMethodCallIgnored
+        depsDir.setLastModified(System.currentTimeMillis());
+        File[] all = depsRoot.listFiles(File::isDirectory);
+        if ((all != null) && (all.length > DEPS_KEPT)) {
+            Arrays.sort(all, Comparator.comparingLong(File::lastModified).reversed());
+            for (int i = DEPS_KEPT; i < all.length; i++) {
+                Utils.cleanDirectory(all[i]);
+            }
         }
+        return projectFile;
+    }
 
-        if (new JetCompiler(jetHome, compilerArgs.toArray(new String[compilerArgs.size()]))
-                .workingDirectory(buildDir).withLog(getLog()).execute() != 0) {
-            throw new MojoFailureException(s("JetMojo.Build.Failure"));
+    /**
+     * Waits for a free slot in the host-wide pool to run the given tool.
+     *
+     * @return the slot, or {@code null} if the pool is disabled or unavailable
+     */
+    private HostSlots.Slot acquireHostSlot(String tool) throws MojoFailureException {
+        if (!useHostSlots) {
+            return null;
+        }
+        HostSlots pool = new HostSlots(hostSlotsDir, (hostSlots > 0) ? hostSlots : Math.max(1, HostResources.processors() / 2));
+        try {
+            HostSlots.Slot slot = pool.acquire();
+            String message = s("JetMojo.HostSlotAcquired.Info", tool, slot.getWaitedMillis() / 1000.0,
+                    slot.getIndex() + 1, pool.getSlots());
+            if (slot.getWaitedMillis() >= 1000) {
+                getLog().info(message);
+            } else {
+                getLog().debug(message);
+            }
+            return slot;
+        } catch (IOException e) {
+            getLog().warn(s("JetMojo.HostSlotsUnavailable.Warning", hostSlotsDir.getAbsolutePath(), e.getMessage()));
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException(s("CmdLineTool.Interrupted.Error", tool));
         }
     }
 
@@ -374,12 +951,76 @@ public class JetMojo extends AbstractJetMojo {
      * Packages the generated executable and required Excelsior JET runtime files
      * as a self-contained directory
      */
-    private void createAppDir(JetHome jetHome, File buildDir, File appDir) throws CmdLineToolException, MojoFailureException {
-        if (new JetPackager(jetHome,
-                 "-add-file", Utils.mangleExeName(outputName), "/",
-                 "-target", appDir.getAbsolutePath())
-                .workingDirectory(buildDir).withLog(getLog()).execute() != 0) {
-            throw new MojoFailureException(s("JetMojo.Package.Failure"));
+    private void createAppDir(JetHome jetHome, File buildDir, File appDir, File library) throws CmdLineToolException, MojoFailureException, IOException {
+        JetPackager xpack = new JetPackager(jetHome, "-target", appDir.getAbsolutePath())
+                .addApplicationFiles(Utils.mangleExeName(outputName), library);
+        if (isSlimDown()) {
+            xpack.arg("-detached-base-url").arg(detachedBaseURL)
+                 .arg("-detach-components").arg(String.join(",", detachComponents))
+                 .arg("-detached-package").arg(new File(jetOutputDir, detachedPackage).getAbsolutePath());
+        }
+        try (HostSlots.Slot ignored = acquireHostSlot("xpack")) {
+            if (xpack.workingDirectory(buildDir).withLog(getLog())
+                    .withVerbosity(toolOutputVerbosity).withOutputLog(new File(jetOutputDir, LOGS_DIR), "xpack-app")
+                    .withTimeout(packagerTimeout, TimeUnit.SECONDS)
+                    .execute() != 0) {
+                throw new MojoFailureException(s("JetMojo.Package.Failure"));
+            }
+        }
+    }
+
+    private boolean isSlimDown() {
+        return (detachComponents != null) && (detachComponents.length > 0);
+    }
+
+    private static long sizeOf(File file) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(file.toPath())) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    /**
+     * Reports the size of the application directory and, with Java Runtime Slim-Down,
+     * how much smaller it is than with all runtime components.
+     */
+    private void reportAppDirSize(File appDir) throws IOException {
+        long appBytes = sizeOf(appDir);
+        buildReport.put("package.appDirBytes", appBytes);
+        if (isSlimDown()) {
+            long detachedBytes = sizeOf(new File(jetOutputDir, detachedPackage));
+            long fullBytes = appBytes + detachedBytes;
+            buildReport.put("package.detachedBytes", detachedBytes);
+            getLog().info(s("JetMojo.SlimDownSize.Info", fullBytes / (double) MB, appBytes / (double) MB,
+                    (fullBytes > 0) ? detachedBytes * 100 / fullBytes : 0, String.join(", ", detachComponents)));
+        } else {
+            getLog().info(s("JetMojo.AppDirSize.Info", appBytes / (double) MB));
+        }
+    }
+
+    /**
+     * Suggests the Java runtime components to detach judging by the classes loaded during Test Run,
+     * and warns about detached components that were used.
+     */
+    private void suggestDetachedComponents() throws IOException {
+        TestRunExecProfiles execProfiles = execProfiles();
+        List<String> loadedClasses = RuntimeComponents.readClassUsage(execProfiles.getClassUsage());
+        if (loadedClasses == null) {
+            return;
+        }
+        Set<String> unused = RuntimeComponents.unused(loadedClasses);
+        Set<String> detached = isSlimDown() ? new LinkedHashSet<>(Arrays.asList(detachComponents)) : Collections.emptySet();
+        Set<String> suggested = new LinkedHashSet<>(unused);
+        suggested.removeAll(detached);
+        if (!suggested.isEmpty()) {
+            getLog().info(s("JetMojo.DetachComponentsSuggestion.Info", String.join(",", suggested)));
+        }
+        for (String component : detached) {
+            if (!unused.contains(component)) {
+                getLog().warn(s("JetMojo.DetachedComponentUsed.Warning", component));
+            }
         }
     }
 
@@ -387,8 +1028,7 @@ public class JetMojo extends AbstractJetMojo {
      * Packages the generated executable and required Excelsior JET runtime files
      * as a excelsior installer file.
      */
-    private File packWithEI(JetHome jetHome, File buildDir) throws CmdLineToolException, MojoFailureException {
-        File target = new File(jetOutputDir, Utils.mangleExeName(project.getBuild().getFinalName()));
+    private void packWithEI(JetHome jetHome, File buildDir, File target, File library) throws CmdLineToolException, MojoFailureException, IOException {
         ArrayList<String> xpackArgs = new ArrayList<>();
         if (eula.exists()) {
             xpackArgs.add(eulaFlag());
@@ -398,18 +1038,22 @@ public class JetMojo extends AbstractJetMojo {
             xpackArgs.add("-splash"); xpackArgs.add(installerSplash.getAbsolutePath());
         }
         xpackArgs.addAll(Arrays.asList(
-                        "-add-file", Utils.mangleExeName(outputName), "/",
                         "-backend", "excelsior-installer",
                         "-company", vendor,
                         "-product", product,
                         "-version", version,
                         "-target", target.getAbsolutePath())
         );
-        if (new JetPackager(jetHome, xpackArgs.toArray(new String[xpackArgs.size()]))
-                .workingDirectory(buildDir).withLog(getLog()).execute() != 0) {
-            throw new MojoFailureException(s("JetMojo.Package.Failure"));
+        try (HostSlots.Slot ignored = acquireHostSlot("xpack")) {
+            if (new JetPackager(jetHome, xpackArgs.toArray(new String[xpackArgs.size()]))
+                    .addApplicationFiles(Utils.mangleExeName(outputName), library)
+                    .workingDirectory(buildDir).withLog(getLog())
+                    .withVerbosity(toolOutputVerbosity).withOutputLog(new File(jetOutputDir, LOGS_DIR), "xpack-installer")
+                    .withTimeout(packagerTimeout, TimeUnit.SECONDS)
+                    .execute() != 0) {
+                throw new MojoFailureException(s("JetMojo.Package.Failure"));
+            }
         }
-        return target;
     }
 
     private String eulaFlag() throws MojoFailureException {
@@ -467,17 +1111,39 @@ public class JetMojo extends AbstractJetMojo {
         }
     }
 
-    private void packageBuild(JetHome jetHome, File buildDir, File packageDir) throws IOException, MojoFailureException, CmdLineToolException {
+    /**
+     * @return the zip archive or installer to be created, or {@code null} if packaging is disabled
+     */
+    private File packageTarget() {
+        switch (packaging) {
+            case ZIP:
+                return new File(jetOutputDir, project.getBuild().getFinalName() + ".zip");
+            case EXCELSIOR_INSTALLER:
+                return new File(jetOutputDir, Utils.mangleExeName(project.getBuild().getFinalName()));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param library shared library of the dependencies with split compilation, or {@code null}
+     * @param upToDate if {@code true}, the package created by the previous build is reused
+     */
+    private void packageBuild(JetHome jetHome, File buildDir, File packageDir, File library, boolean upToDate) throws IOException, MojoFailureException, CmdLineToolException {
+        File target = packageTarget();
         switch (packaging){
             case ZIP:
-                getLog().info(s("JetMojo.ZipApp.Info"));
-                File targetZip = new File(jetOutputDir, project.getBuild().getFinalName() + ".zip");
-                compressZipfile(packageDir, targetZip);
+                if (!upToDate) {
+                    getLog().info(s("JetMojo.ZipApp.Info"));
+                    compressZipfile(packageDir, target);
+                }
                 getLog().info(s("JetMojo.Build.Success"));
-                getLog().info(s("JetMojo.GetZip.Info", targetZip.getAbsolutePath()));
+                getLog().info(s("JetMojo.GetZip.Info", target.getAbsolutePath()));
                 break;
             case EXCELSIOR_INSTALLER :
-                File target = packWithEI(jetHome, buildDir);
+                if (!upToDate) {
+                    packWithEI(jetHome, buildDir, target, library);
+                }
                 getLog().info(s("JetMojo.Build.Success"));
                 getLog().info(s("JetMojo.GetEI.Info", target.getAbsolutePath()));
                 break;
@@ -487,6 +1153,71 @@ public class JetMojo extends AbstractJetMojo {
         }
     }
 
+    /**
+     * Replaces the project base directory in {@code s} with a placeholder, so that compilation inputs
+     * of the same project checked out to different locations or machines have equal fingerprints.
+     */
+    private String portable(String s) {
+        String basedir = project.getBasedir().getAbsolutePath();
+        return s.replace(basedir, "${basedir}").replace(basedir.replace(File.separatorChar, '/'), "${basedir}");
+    }
+
+    /**
+     * Fingerprints the compilation inputs. The fingerprint does not depend on the locations
+     * of the project and the Excelsior JET installation, so its hash may serve as a build cache key.
+     */
+    private BuildManifest.Fingerprint compileInputs(JetHome jetHome, JetProject jetProject) throws IOException, JetHomeException {
+        BuildManifest.Fingerprint inputs = new BuildManifest.Fingerprint()
+                .add("project", portable(jetProject.content()))
+                .add("jet", BuildCache.toolchain(jetHome));
+        for (Map.Entry<String, String> dependency : dependencyHashes.entrySet()) {
+            inputs.add("dependency:" + dependency.getKey(), dependency.getValue());
+        }
+        for (String module : jetProject.getModules()) {
+            inputs.addFile("module:" + portable(module), new File(module));
+        }
+        return useExecProfiles && useStartupProfile ? inputs.addFile("startupProfile", execProfiles().getStartup()) : inputs;
+    }
+
+    private BuildManifest.Fingerprint packageInputs(BuildManifest.Fingerprint appDirInputs, File appExe, File library) throws IOException {
+        BuildManifest.Fingerprint inputs = new BuildManifest.Fingerprint()
+                .addFingerprint(STAGE_APP_DIR, appDirInputs)
+                .addFileStamp("appExecutable", appExe);
+        if (library != null) {
+            inputs.addFileStamp("library", library);
+        }
+        return inputs
+                .add("packaging", packaging)
+                .add("finalName", project.getBuild().getFinalName())
+                .add("vendor", vendor)
+                .add("product", product)
+                .add("version", version)
+                .add("eulaEncoding", eulaEncoding)
+                .addFile("eula", eula)
+                .addFile("installerSplash", installerSplash);
+    }
+
+    /**
+     * Checks whether a build stage may be skipped. Otherwise, the stage is removed from the manifest
+     * until it completes anew.
+     *
+     * @param output a file the stage produces
+     */
+    private boolean isUpToDate(BuildManifest manifest, String stage, BuildManifest.Fingerprint inputs, File output) throws IOException {
+        if (manifest.isUpToDate(stage, inputs) && output.exists()) {
+            getLog().info(s("JetMojo.StageUpToDate.Info", stage));
+            return true;
+        }
+        if (manifest.isRecorded(stage)) {
+            List<String> changed = manifest.changedInputs(stage, inputs);
+            if (!changed.isEmpty()) {
+                getLog().info(s("JetMojo.StageInputsChanged.Info", stage, String.join(", ", changed)));
+            }
+        }
+        manifest.invalidate(stage);
+        return false;
+    }
+
     public void execute() throws MojoExecutionException, MojoFailureException {
         JetHome jetHome = checkPrerequisites();
 
@@ -494,25 +1225,106 @@ public class JetMojo extends AbstractJetMojo {
         File buildDir = createBuildDir();
 
         File appDir = new File(jetOutputDir, APP_DIR);
-        //cleanup packageDir
-        try {
-            Utils.cleanDirectory(appDir);
-        } catch (IOException e) {
-            throw new MojoFailureException(e.getMessage(), e);
-        }
 
-        ArrayList<String> compilerArgs = copyDependencies(buildDir, mainJar);
+        ArrayList<String> dependencies = copyDependencies(buildDir, mainJar);
 
         try {
-            compile(jetHome, buildDir, compilerArgs);
+            BuildManifest manifest = new BuildManifest(new File(jetOutputDir, BUILD_MANIFEST));
+            if (!incremental) {
+                manifest.clear();
+            }
+
+            checkExecProfiles(jetHome, buildDir, dependencies);
+
+            JetProject jetProject;
+            File library = null;
+            if (splitCompilation && (dependencies.size() > 1)) {
+                // the main jar goes first
+                File depsProject = compileDependencies(jetHome, buildDir, dependencies.subList(1, dependencies.size()));
+                File depsLibrary = findLibrary(depsProject.getParentFile(), outputName + DEPS_SUFFIX);
+                library = new File(buildDir, depsLibrary.getName());
+                DependencyStager.stageFile(depsLibrary, library);
+                jetProject = createJetProject(new ArrayList<>(dependencies.subList(0, 1)))
+                        .uses(depsProject.getAbsolutePath());
+            } else {
+                jetProject = createJetProject(dependencies);
+            }
+            String exeName = Utils.mangleExeName(outputName);
+            File exe = new File(buildDir, exeName);
+            BuildManifest.Fingerprint compileInputs = compileInputs(jetHome, jetProject);
+            if (!isUpToDate(manifest, STAGE_COMPILE, compileInputs, exe)) {
+                if (isBuildCacheEnabled()) {
+                    compileCached(jetHome, buildDir, jetProject, outputName, compileInputs.hash());
+                } else {
+                    compile(jetHome, buildDir, jetProject, outputName);
+                }
+                manifest.update(STAGE_COMPILE, compileInputs);
+            }
 
-            createAppDir(jetHome, buildDir, appDir);
+            File appExe = new File(appDir, exeName);
+            BuildManifest.Fingerprint appDirInputs = new BuildManifest.Fingerprint()
+                    .addFingerprint(STAGE_COMPILE, compileInputs)
+                    .addFileStamp("executable", exe);
+            if (library != null) {
+                appDirInputs.addFileStamp("library", library);
+            }
+            if (isSlimDown()) {
+                appDirInputs.add("detach", String.join(",", detachComponents) + " " + detachedBaseURL + " " + detachedPackage);
+            }
+            if (!isUpToDate(manifest, STAGE_APP_DIR, appDirInputs, appExe)) {
+                //cleanup packageDir
+                Utils.cleanDirectory(appDir);
+                createAppDir(jetHome, buildDir, appDir, library);
+                manifest.update(STAGE_APP_DIR, appDirInputs);
+            }
+            reportAppDirSize(appDir);
+            buildReport.put("package.executableBytes", appExe.length());
+            suggestDetachedComponents();
 
-            packageBuild(jetHome, buildDir, appDir);
+            File target = packageTarget();
+            BuildManifest.Fingerprint packageInputs = packageInputs(appDirInputs, appExe, library);
+            boolean packageUpToDate = (target != null) && isUpToDate(manifest, STAGE_PACKAGE, packageInputs, target);
+            packageBuild(jetHome, buildDir, appDir, library, packageUpToDate);
+            if (target != null) {
+                manifest.update(STAGE_PACKAGE, packageInputs);
+                buildReport.put("package.bytes", target.length());
+            }
+            if (buildCacheSummary != null) {
+                getLog().info(buildCacheSummary);
+            }
 
         } catch (Exception e) {
             getLog().error(e.getMessage());
             throw new MojoExecutionException(s("JetMojo.Unexpected.Error"), e);
+        } finally {
+            writeBuildReport();
+        }
+    }
+
+    private void recordCompileStats(CompileReport report, String reportName, String name) {
+        buildReport.putAll(reportName, report.describe());
+        getLog().info(s("JetMojo.CompileStats.Info", report.getWallMillis() / 1000.0, report.getClasses(),
+                report.getMethods()));
+        if (isCompileStatsHistory()) {
+            try {
+                report.appendHistory(compileStatsHistory, CompileReport.gitHead(project.getBasedir()), name);
+            } catch (IOException e) {
+                getLog().warn(s("JetMojo.CompileStatsHistory.Warning", compileStatsHistory.getAbsolutePath(),
+                        e.getMessage()));
+            }
+        }
+    }
+
+    private boolean isCompileStatsHistory() {
+        return (compileStatsHistory != null) && !compileStatsHistory.getPath().isEmpty();
+    }
+
+    private void writeBuildReport() {
+        File reportFile = new File(jetOutputDir, BUILD_REPORT);
+        try {
+            buildReport.write(reportFile);
+        } catch (IOException e) {
+            getLog().warn(s("JetMojo.BuildReport.Warning", reportFile.getAbsolutePath(), e.getMessage()));
         }
     }
 }
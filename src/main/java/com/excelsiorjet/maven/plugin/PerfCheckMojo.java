@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.maven.plugin;
+
+import com.excelsiorjet.PerfGate;
+import com.excelsiorjet.Samples;
+import com.excelsiorjet.Utils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.excelsiorjet.Txt.s;
+
+/**
+ * Mojo for failing the build if the natively compiled application has become slower, larger
+ * or more memory hungry than its committed performance baseline.
+ * <p>
+ * The check takes the fresh measurements from the reports written by {@code jet:build}, {@code jet:benchmark}
+ * and {@code jet:footprint} earlier in the same build, so bind those goals to the lifecycle before it,
+ * e.g. to the {@code package} and {@code integration-test} phases, and this goal to {@code verify}.
+ * Reports older than the executable are ignored. To create or update the baseline, run it with
+ * {@code -DupdatePerfBaseline} and commit the baseline file.
+ * </p>
+ * Metrics:
+ * <ul>
+ *     <li>{@code startup.warm} - warm startup times of the executable in milliseconds</li>
+ *     <li>{@code footprint.steadyRss}, {@code footprint.peakRss} - resident set size of the executable in bytes</li>
+ *     <li>{@code size.executable}, {@code size.appDir}, {@code size.package} - sizes in bytes</li>
+ * </ul>
+ */
+@Mojo(name = "perf-check", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class PerfCheckMojo extends AbstractJetMojo {
+
+    private static final String BUILD_REPORT = "build-report.properties";
+
+    /**
+     * The performance baseline, a properties file with comma-separated samples of each metric.
+     */
+    @Parameter(property = "perfBaseline", defaultValue = "${project.basedir}/src/main/jetresources/perf-baseline.properties")
+    protected File perfBaseline;
+
+    /**
+     * If set, the current measurements are written to {@link #perfBaseline} instead of being checked.
+     */
+    @Parameter(property = "updatePerfBaseline", defaultValue = "false")
+    protected boolean updatePerfBaseline;
+
+    /**
+     * Allowed growth of the startup time in percent.
+     */
+    @Parameter(property = "startupTolerance", defaultValue = "10")
+    protected double startupTolerance;
+
+    /**
+     * Allowed growth of the memory footprint in percent.
+     */
+    @Parameter(property = "footprintTolerance", defaultValue = "5")
+    protected double footprintTolerance;
+
+    /**
+     * Allowed growth of the executable and package sizes in percent.
+     */
+    @Parameter(property = "sizeTolerance", defaultValue = "2")
+    protected double sizeTolerance;
+
+    /**
+     * Number of standard deviations of the measurement noise, estimated from the median absolute deviation
+     * of the samples, allowed on top of the tolerance. Only affects metrics measured several times, such as
+     * the startup time.
+     */
+    @Parameter(property = "perfNoiseFactor", defaultValue = "3")
+    protected double perfNoiseFactor;
+
+    /**
+     * Whether to fail the build on a regression rather than just warn.
+     */
+    @Parameter(property = "failOnPerfRegression", defaultValue = "true")
+    protected boolean failOnPerfRegression;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        try {
+            Map<String, Samples> current = currentMeasurements();
+            if (updatePerfBaseline) {
+                if (current.isEmpty()) {
+                    throw new MojoFailureException(s("PerfCheckMojo.NoMeasurements.Failure", jetOutputDir.getAbsolutePath()));
+                }
+                mkdir(perfBaseline.getParentFile());
+                PerfGate.write(perfBaseline, current, s("PerfCheckMojo.BaselineComment", project.getVersion()));
+                getLog().info(s("PerfCheckMojo.BaselineUpdated.Info", perfBaseline.getAbsolutePath(),
+                        String.join(", ", current.keySet())));
+                return;
+            }
+            Map<String, Samples> baseline = PerfGate.read(perfBaseline);
+            if (baseline == null) {
+                getLog().warn(s("PerfCheckMojo.NoBaseline.Warning", perfBaseline.getAbsolutePath()));
+                return;
+            }
+            PerfGate gate = new PerfGate(sizeTolerance, perfNoiseFactor)
+                    .withTolerance("startup.", startupTolerance)
+                    .withTolerance("footprint.", footprintTolerance)
+                    .withTolerance("size.", sizeTolerance);
+            List<String> regressions = new ArrayList<>();
+            for (PerfGate.Check check : gate.check(baseline, current)) {
+                String text = check.isMissing() ? s("PerfCheckMojo.NotMeasured.Warning", check.metric) :
+                        s("PerfCheckMojo.Check.Info", check.metric, check.baseline, check.current,
+                                check.changePercent(), check.limit);
+                if (check.isRegression()) {
+                    regressions.add(text);
+                    getLog().warn(text);
+                } else {
+                    getLog().info(text);
+                }
+            }
+            if (!regressions.isEmpty()) {
+                String message = s("PerfCheckMojo.Regression.Failure", regressions.size(), perfBaseline.getAbsolutePath());
+                if (failOnPerfRegression) {
+                    throw new MojoFailureException(message);
+                }
+                getLog().warn(message);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the measurements found in the reports not older than the executable
+     */
+    private Map<String, Samples> currentMeasurements() throws IOException {
+        File exe = new File(new File(jetOutputDir, APP_DIR), Utils.mangleExeName(outputName()));
+        Map<String, Samples> current = new TreeMap<>();
+
+        Properties build = report(BUILD_REPORT, exe);
+        putValue(current, "size.executable", build.getProperty("package.executableBytes"));
+        putValue(current, "size.appDir", build.getProperty("package.appDirBytes"));
+        putValue(current, "size.package", build.getProperty("package.bytes"));
+
+        Properties benchmark = report(BenchmarkMojo.BENCHMARK_REPORT, exe);
+        String startup = benchmark.getProperty(BenchmarkMojo.NATIVE + ".warm.samples");
+        if (startup != null) {
+            current.put("startup.warm", Samples.parse(startup));
+        }
+
+        Properties footprint = report(FootprintMojo.FOOTPRINT_REPORT, exe);
+        putValue(current, "footprint.steadyRss", footprint.getProperty(FootprintMojo.NATIVE + ".steadyRss"));
+        putValue(current, "footprint.peakRss", footprint.getProperty(FootprintMojo.NATIVE + ".peakRss"));
+        return current;
+    }
+
+    private static void putValue(Map<String, Samples> measurements, String metric, String value) {
+        if (value != null) {
+            measurements.put(metric, Samples.parse(value));
+        }
+    }
+
+    /**
+     * @return the report contents or empty properties if the report does not exist or predates the executable
+     */
+    private Properties report(String name, File exe) throws IOException {
+        File file = new File(jetOutputDir, name);
+        Properties props = new Properties();
+        if (!file.isFile()) {
+            return props;
+        }
+        if (exe.isFile() && (file.lastModified() < exe.lastModified())) {
+            getLog().warn(s("PerfCheckMojo.StaleReport.Warning", file.getAbsolutePath()));
+            return props;
+        }
+        try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            props.load(in);
+        }
+        return props;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.maven.plugin;
+
+import com.excelsiorjet.DependencyStore;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.excelsiorjet.Txt.s;
+
+/**
+ * Mojo for trimming the user-level dependency store down to its maximum size.
+ * Run it as follows:
+ * <p>
+ * <code>
+ *     mvn jet:store-prune -DdependencyStoreMaxSize=1024
+ * </code>
+ * </p>
+ * If the maximum size is not set, the store is emptied.
+ *
+ * @see AbstractJetMojo#useDependencyStore
+ */
+@Mojo(name = "store-prune", requiresProject = false, threadSafe = true)
+public class StorePruneMojo extends AbstractMojo {
+
+    /**
+     * Location of the dependency store.
+     */
+    @Parameter(property = "dependencyStore", defaultValue = "${user.home}/.m2/jet-store")
+    protected File dependencyStore;
+
+    /**
+     * Size in megabytes to trim the dependency store to, evicting the least recently used jars.
+     * Either this or {@link #pruneAll} must be set.
+     */
+    @Parameter(property = "dependencyStoreMaxSize")
+    protected Long dependencyStoreMaxSize;
+
+    /**
+     * If set to {@code true}, the dependency store is emptied.
+     */
+    @Parameter(property = "pruneAll", defaultValue = "false")
+    protected boolean pruneAll;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!pruneAll && ((dependencyStoreMaxSize == null) || (dependencyStoreMaxSize <= 0))) {
+            throw new MojoFailureException(s("StorePruneMojo.NoSize.Failure"));
+        }
+        long maxSize = pruneAll ? 0 : dependencyStoreMaxSize * AbstractJetMojo.MB;
+        try {
+            DependencyStore.TrimStats stats = new DependencyStore(dependencyStore).trim(maxSize);
+            getLog().info(s("StorePruneMojo.Pruned.Info", dependencyStore.getAbsolutePath(), stats.removed,
+                    stats.freedBytes / AbstractJetMojo.MB, stats.remainingBytes / AbstractJetMojo.MB));
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+}
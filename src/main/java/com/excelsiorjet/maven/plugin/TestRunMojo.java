@@ -21,14 +21,13 @@
 */
 package com.excelsiorjet.maven.plugin;
 
-import com.excelsiorjet.*;
+import com.excelsiorjet.JetHome;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.*;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 /**
  * Mojo for performing a Test Run before building the application.
@@ -56,7 +55,9 @@ import java.util.stream.Collectors;
  * <p>
  * It is recommended to commit the collected profiles (.usg, .startup) to VCS so as to
  * enable the plugin to re-use them during subsequent builds without performing the Test Run.
- * The profiles are placed to {@code ${project.basedir}/src/main/jetresources} by default.
+ * The profiles are placed to {@code ${project.basedir}/src/main/jetresources} by default,
+ * together with the {@code .profiles.properties} file describing the jars and the Excelsior JET version
+ * they were collected for, which enables the build to detect stale profiles.
  * </p>
  *
  *  Note: During a Test Run, the application is executed in a special profiling mode,
@@ -65,7 +66,7 @@ import java.util.stream.Collectors;
  * @author Nikita Lipsky
  */
 @Execute(phase = LifecyclePhase.PACKAGE)
-@Mojo( name = "testrun", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyResolution = ResolutionScope.RUNTIME)
+@Mojo( name = "testrun", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
 public class TestRunMojo extends AbstractJetMojo {
 
     @Override
@@ -77,35 +78,6 @@ public class TestRunMojo extends AbstractJetMojo {
 
         ArrayList<String> compilerArgs = copyDependencies(buildDir, mainJar);
 
-        mkdir(execProfilesDir);
-
-        XJava xjava = new XJava(jetHome);
-        try {
-            xjava.addTestRunArgs(new TestRunExecProfiles(execProfilesDir, execProfilesName))
-                    .withLog(getLog())
-                    .workingDirectory(buildDir);
-        } catch (JetHomeException e) {
-            throw new MojoFailureException(e.getMessage());
-        }
-        xjava.arg("-cp");
-        xjava.arg(String.join(File.pathSeparator, compilerArgs));
-        xjava.arg(mainClass);
-        try {
-            String cmdLine = xjava.getArgs().stream()
-                    .map(arg -> arg.contains(" ") ? '"' + arg + '"' : arg)
-                    .collect(Collectors.joining(" "));
-
-            getLog().info(Txt.s("TestRunMojo.Start.Info", cmdLine));
-
-            int errCode = xjava.execute();
-            String finishText = Txt.s("TestRunMojo.Finish.Info", errCode);
-            if (errCode != 0) {
-                getLog().warn(finishText);
-            } else {
-                getLog().info(finishText);
-            }
-        } catch (CmdLineToolException e) {
-            throw new MojoFailureException(e.getMessage());
-        }
+        testRun(jetHome, buildDir, compilerArgs);
     }
 }
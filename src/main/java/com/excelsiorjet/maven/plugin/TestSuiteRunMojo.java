@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2015, Excelsior LLC.
+ *
+ *  This file is part of Excelsior JET Maven Plugin.
+ *
+ *  Excelsior JET Maven Plugin is free software:
+ *  you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Excelsior JET Maven Plugin is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Excelsior JET Maven Plugin.
+ *  If not, see <http://www.gnu.org/licenses/>.
+ *
+*/
+package com.excelsiorjet.maven.plugin;
+
+import com.excelsiorjet.JetHome;
+import com.excelsiorjet.TestSuite;
+import com.excelsiorjet.Utils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.excelsiorjet.Txt.s;
+
+/**
+ * Mojo for performing a Test Run that executes the project's JUnit 4 or TestNG tests instead of
+ * the main class, so that the test suite, e.g. integration tests, serves as the profiling workload:
+ * <p>
+ * <code>
+ *     mvn jet:testrun-tests
+ * </code>
+ * </p>
+ * The tests run from the staged build directory with the test classes and test dependencies
+ * appended to the application classpath, and the collected profiles are handled as for {@link TestRunMojo}.
+ */
+@Execute(phase = LifecyclePhase.PACKAGE)
+@Mojo(name = "testrun-tests", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyResolution = ResolutionScope.TEST, threadSafe = true)
+public class TestSuiteRunMojo extends AbstractJetMojo {
+
+    private static final String TEST_SUITE_DIR = "testrun-tests";
+    private static final String JUPITER_API = "org.junit.jupiter:junit-jupiter-api";
+
+    /**
+     * Test framework running the tests: {@code junit} (JUnit 4, including JUnit 3 style tests) or {@code testng}.
+     * By default, it is detected from the test dependencies. JUnit 5 Jupiter tests are not supported.
+     */
+    @Parameter(property = "testFramework")
+    protected String testFramework;
+
+    /**
+     * Fully qualified names of the test classes to run. By default, all top-level classes of the
+     * test output directory whose simple names match {@link #testClassPattern}.
+     */
+    @Parameter(property = "testClasses")
+    protected String[] testClasses;
+
+    /**
+     * Regular expression the simple names of the test classes must match.
+     */
+    @Parameter(property = "testClassPattern", defaultValue = TestSuite.DEFAULT_CLASS_PATTERN)
+    protected String testClassPattern;
+
+    @Parameter(defaultValue = "${project.build.testOutputDirectory}", readonly = true)
+    protected File testOutputDirectory;
+
+    private List<String> runnerCommand;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        JetHome jetHome = checkPrerequisites();
+
+        File buildDir = createBuildDir();
+
+        ArrayList<String> classpath = copyDependencies(buildDir, mainJar);
+
+        TestSuite testSuite = testSuite();
+        getLog().info(s("TestSuiteRunMojo.Tests.Info", testSuite.getClasses().size(), testSuite.getFramework()));
+        File runnerDir = new File(jetOutputDir, TEST_SUITE_DIR);
+        try {
+            runnerCommand = testSuite.command(runnerDir);
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+
+        // test classes and dependencies are not staged, as they are not part of the application
+        if (testSuite.getFramework().equals(TestSuite.JUNIT)) {
+            classpath.add(TestSuite.launcherClasspath(runnerDir).getAbsolutePath());
+        }
+        classpath.add(testOutputDirectory.getAbsolutePath());
+        project.getArtifacts().stream()
+                .filter(a -> !isRuntimeArtifact(a) && (a.getFile() != null) && a.getFile().exists())
+                .forEach(a -> classpath.add(a.getFile().getAbsolutePath()));
+
+        testRun(jetHome, buildDir, classpath);
+    }
+
+    private TestSuite testSuite() throws MojoFailureException {
+        String framework = testFramework;
+        Set<String> dependencies = project.getArtifacts().stream()
+                .map(a -> a.getGroupId() + ":" + a.getArtifactId())
+                .collect(Collectors.toSet());
+        if (dependencies.contains(JUPITER_API)) {
+            getLog().warn(s("TestSuiteRunMojo.Jupiter.Warning"));
+        }
+        if (Utils.isEmpty(framework)) {
+            framework = TestSuite.detectFramework(dependencies);
+            if (framework == null) {
+                throw new MojoFailureException(s("TestSuiteRunMojo.NoFramework.Failure"));
+            }
+        } else if (!framework.equals(TestSuite.JUNIT) && !framework.equals(TestSuite.TESTNG)) {
+            throw new MojoFailureException(s("TestSuiteRunMojo.UnknownFramework.Failure", framework));
+        }
+        List<String> classes;
+        if ((testClasses != null) && (testClasses.length > 0)) {
+            classes = Arrays.asList(testClasses);
+        } else {
+            try {
+                classes = TestSuite.findClasses(testOutputDirectory, testClassPattern);
+            } catch (IOException e) {
+                throw new MojoFailureException(e.getMessage());
+            }
+        }
+        if (classes.isEmpty()) {
+            throw new MojoFailureException(s("TestSuiteRunMojo.NoTests.Failure", testOutputDirectory.getAbsolutePath()));
+        }
+        return new TestSuite(framework, classes);
+    }
+
+    @Override
+    protected List<String> testRunCommand() {
+        return runnerCommand;
+    }
+}
@@ -0,0 +1,93 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class BuildCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static File write(File f, String content) throws IOException {
+        Files.write(f.toPath(), content.getBytes());
+        return f;
+    }
+
+    private static String read(File f) throws IOException {
+        return new String(Files.readAllBytes(f.toPath()));
+    }
+
+    @Test
+    public void storeAndRestore() throws IOException {
+        BuildCache cache = new BuildCache(tmp.newFolder("cache"));
+        File buildDir = tmp.newFolder("build");
+        File exe = write(new File(buildDir, "app"), "native code");
+        assertTrue(exe.setExecutable(true));
+        File sidecar = write(new File(buildDir, "app.rsp"), "sidecar");
+        String key = Utils.sha1("inputs");
+
+        assertNull(cache.restore(key, buildDir));
+        cache.store(key, Arrays.asList(exe, sidecar));
+
+        File otherDir = tmp.newFolder("other");
+        assertEquals(2, cache.restore(key, otherDir).size());
+        assertEquals("native code", read(new File(otherDir, "app")));
+        assertEquals("sidecar", read(new File(otherDir, "app.rsp")));
+        assertTrue(new File(otherDir, "app").canExecute());
+    }
+
+    @Test
+    public void trimEvictsLeastRecentlyUsed() throws IOException {
+        BuildCache cache = new BuildCache(tmp.newFolder("cache"));
+        File buildDir = tmp.newFolder("build");
+        File exe = write(new File(buildDir, "app"), "0123456789");
+        String old = Utils.sha1("old");
+        String recent = Utils.sha1("recent");
+        cache.store(old, Collections.singletonList(exe));
+        cache.store(recent, Collections.singletonList(exe));
+        assertTrue(cache.dirFor(old).setLastModified(System.currentTimeMillis() - 60000));
+        assertEquals(20, cache.size());
+
+        DependencyStore.TrimStats stats = cache.trim(15);
+        assertEquals(1, stats.removed);
+        assertEquals(10, stats.freedBytes);
+        assertNull(cache.restore(old, tmp.newFolder("restored")));
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void hitAndMissCounters() throws IOException {
+        BuildCache cache = new BuildCache(new File(tmp.getRoot(), "cache"));
+        cache.record(-1);
+        cache.record(100);
+        BuildCache.Stats stats = new BuildCache(cache.getRoot()).record(50);
+        assertEquals(2, stats.hits);
+        assertEquals(1, stats.misses);
+        assertEquals(150, stats.bytesRestored);
+        assertEquals(66, stats.hitRatePercent());
+    }
+
+    @Test
+    public void keysDifferAcrossPlatforms() {
+        String linux = BuildCache.toolchain("1100", "ENTERPRISE", true, "Linux", "amd64");
+        String windows = BuildCache.toolchain("1100", "ENTERPRISE", true, "Windows 10", "amd64");
+        String arm = BuildCache.toolchain("1100", "ENTERPRISE", true, "Linux", "aarch64");
+        assertEquals(linux, BuildCache.toolchain("1100", "ENTERPRISE", true, "LINUX", "AMD64"));
+
+        String project = "-main=Main\n";
+        String linuxKey = new BuildManifest.Fingerprint().add("project", project).add("jet", linux).hash();
+        String windowsKey = new BuildManifest.Fingerprint().add("project", project).add("jet", windows).hash();
+        String armKey = new BuildManifest.Fingerprint().add("project", project).add("jet", arm).hash();
+        assertFalse(linuxKey.equals(windowsKey));
+        assertFalse(linuxKey.equals(armKey));
+    }
+}
@@ -0,0 +1,85 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class BuildManifestTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File manifestFile() {
+        return new File(tmp.getRoot(), "build.manifest");
+    }
+
+    @Test
+    public void stageUpToDateAcrossBuilds() throws IOException {
+        File eula = tmp.newFile("eula.txt");
+        Files.write(eula.toPath(), "v1".getBytes());
+        BuildManifest.Fingerprint inputs = new BuildManifest.Fingerprint().add("main", "Main").addFile("eula", eula);
+
+        BuildManifest manifest = new BuildManifest(manifestFile());
+        assertFalse(manifest.isRecorded("package"));
+        assertFalse(manifest.isUpToDate("package", inputs));
+        manifest.update("package", inputs);
+
+        manifest = new BuildManifest(manifestFile());
+        assertTrue(manifest.isUpToDate("package", inputs));
+        assertTrue(manifest.changedInputs("package", inputs).isEmpty());
+
+        Files.write(eula.toPath(), "v2".getBytes());
+        BuildManifest.Fingerprint changed = new BuildManifest.Fingerprint().add("main", "Main").addFile("eula", eula);
+        assertFalse(manifest.isUpToDate("package", changed));
+        assertEquals(Collections.singletonList("eula"), manifest.changedInputs("package", changed));
+    }
+
+    @Test
+    public void addedAndRemovedInputs() throws IOException {
+        BuildManifest manifest = new BuildManifest(manifestFile());
+        manifest.update("compile", new BuildManifest.Fingerprint().add("a", "1").add("b", "2"));
+        BuildManifest.Fingerprint inputs = new BuildManifest.Fingerprint().add("b", "2").add("c", "3");
+        assertEquals(Arrays.asList("c", "a"), manifest.changedInputs("compile", inputs));
+    }
+
+    @Test
+    public void chainedStages() throws IOException {
+        BuildManifest.Fingerprint compile = new BuildManifest.Fingerprint().add("project", "-main=A");
+        BuildManifest.Fingerprint appDir = new BuildManifest.Fingerprint().addFingerprint("compile", compile);
+        BuildManifest manifest = new BuildManifest(manifestFile());
+        manifest.update("appdir", appDir);
+
+        compile.add("project", "-main=B");
+        assertFalse(manifest.isUpToDate("appdir", new BuildManifest.Fingerprint().addFingerprint("compile", compile)));
+    }
+
+    @Test
+    public void invalidateAndClear() throws IOException {
+        BuildManifest.Fingerprint inputs = new BuildManifest.Fingerprint().add("x", "y");
+        BuildManifest manifest = new BuildManifest(manifestFile());
+        manifest.update("compile", inputs);
+        manifest.update("appdir", inputs);
+
+        manifest.invalidate("compile");
+        manifest = new BuildManifest(manifestFile());
+        assertFalse(manifest.isRecorded("compile"));
+        assertTrue(manifest.isUpToDate("appdir", inputs));
+
+        manifest.clear();
+        assertFalse(new BuildManifest(manifestFile()).isRecorded("appdir"));
+    }
+
+    @Test
+    public void corruptManifestIsEmpty() throws IOException {
+        Files.write(manifestFile().toPath(), "compile=\\uZZZZ".getBytes());
+        assertFalse(new BuildManifest(manifestFile()).isRecorded("compile"));
+    }
+}
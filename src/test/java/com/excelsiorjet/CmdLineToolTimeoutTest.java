@@ -0,0 +1,123 @@
+package com.excelsiorjet;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CmdLineToolTimeoutTest {
+
+    private final List<String> output = Collections.synchronizedList(new ArrayList<>());
+
+    private final SystemStreamLog log = new SystemStreamLog() {
+        public void info(CharSequence line) {
+            output.add(line.toString());
+        }
+
+        public void error(CharSequence line) {
+            output.add(line.toString());
+        }
+    };
+
+    private String getJavaExe() {
+        return Utils.mangleExeName(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    }
+
+    @Test
+    public void timeoutKillsProcessTree() throws Exception {
+        long start = System.currentTimeMillis();
+        try {
+            new CmdLineTool(getJavaExe(), "-cp",
+                    TestUtils.workDir().getAbsolutePath() + File.pathSeparator + TestUtils.classesDir().getAbsolutePath(),
+                    "testClasses.SleepTree")
+                    .withLog(log)
+                    .withTimeout(3, TimeUnit.SECONDS)
+                    .execute();
+            fail("timeout expected");
+        } catch (CmdLineToolException expected) {
+        }
+        assertTrue(System.currentTimeMillis() - start < 30000);
+        // the last output lines are part of the diagnostic snapshot
+        String childLine = output.stream().filter(l -> l.startsWith("child ")).findFirst().orElse(null);
+        assertNotNull(childLine);
+        if (Utils.isLinux()) {
+            File childProc = new File("/proc/" + childLine.substring("child ".length()));
+            for (int i = 0; i < 50 && childProc.exists(); i++) {
+                Thread.sleep(100);
+            }
+            assertFalse(childProc.exists());
+        }
+    }
+
+    @Test
+    public void noTimeoutWhenCompleted() throws Exception {
+        assertEquals(0, new CmdLineTool(getJavaExe(), "testClasses.HelloWorld")
+                .withLog(log)
+                .workingDirectory(TestUtils.workDir())
+                .withTimeout(1, TimeUnit.MINUTES)
+                .execute());
+        assertTrue(output.contains("Hello world!"));
+    }
+
+    @Test
+    public void peakMemorySampled() throws Exception {
+        CmdLineTool tool = new CmdLineTool(getJavaExe(), "-cp",
+                TestUtils.workDir().getAbsolutePath() + File.pathSeparator + TestUtils.classesDir().getAbsolutePath(),
+                "testClasses.SleepTree")
+                .withLog(log)
+                .withTimeout(2, TimeUnit.SECONDS)
+                .withPeakMemorySampling(100);
+        try {
+            tool.execute();
+        } catch (CmdLineToolException expected) {
+        }
+        if (Utils.isLinux()) {
+            assertTrue(tool.getPeakMemory() > 0);
+        }
+    }
+
+    @Test
+    public void outputFilterConsumesLines() throws Exception {
+        List<String> consumed = new ArrayList<>();
+        assertEquals(0, new CmdLineTool(getJavaExe(), "testClasses.PrintLines", "10")
+                .workingDirectory(TestUtils.workDir())
+                .withLog(log)
+                .withOutputFilter(line -> line.endsWith("0") && consumed.add(line))
+                .execute());
+        assertEquals(Collections.singletonList("line 0"), consumed);
+        assertEquals(9, output.size());
+        assertFalse(output.contains("line 0"));
+    }
+
+    @Test
+    public void outputHeldByGrandchildIsAbandoned() throws Exception {
+        Assume.assumeTrue(Utils.isUnix());
+        long start = System.currentTimeMillis();
+        assertEquals(0, new CmdLineTool(getJavaExe(), "-cp",
+                TestUtils.workDir().getAbsolutePath() + File.pathSeparator + TestUtils.classesDir().getAbsolutePath(),
+                "testClasses.SleepTree", "orphan")
+                // unlike the shared pump, it waits for the end of the output rather than the exit of the tool
+                .withOutputPump(new ThreadedOutputPump())
+                .withLog(log)
+                .withTimeout(5, TimeUnit.SECONDS)
+                .execute());
+        assertTrue(System.currentTimeMillis() - start < 20000);
+        String child = output.stream().filter(line -> line.startsWith("child ")).findFirst().orElse(null);
+        assertNotNull(child);
+        long orphan = Long.parseLong(child.substring("child ".length()));
+        try {
+            // the orphan has been seen while its parent was running, so it is terminated
+            String status = ProcessTree.status(orphan);
+            assertTrue(status, status.isEmpty() || status.contains("zombie"));
+        } finally {
+            ProcessTree.signal(orphan, "KILL");
+        }
+    }
+}
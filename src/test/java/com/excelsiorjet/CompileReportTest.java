@@ -0,0 +1,96 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CompileReportTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
+    private CompileReport parse(String... lines) {
+        CompileReport report = new CompileReport();
+        ToolOutputParser parser = new ToolOutputParser(report);
+        parser.lines(Arrays.asList(lines));
+        parser.finish();
+        return report;
+    }
+
+    @Test
+    public void statisticsFromOutput() throws IOException {
+        File exe = tmp.newFile("app");
+        Files.write(exe.toPath(), new byte[1000]);
+        CompileReport report = parse(
+                "[0:00:01] Compiling java/lang/Object",
+                "[0:00:05] 100 classes, 2,000 methods compiled",
+                "[0:00:09] 250 classes, 4,500 methods compiled",
+                "[0:00:10] Warning: class X not found",
+                "[0:01:02.5] Linking app")
+                .finish(0, 2000, 63000, exe, 512 * 1024 * 1024);
+        assertEquals(Arrays.asList("compiling", "linking"), Arrays.asList(report.getPhaseMillis().keySet().toArray()));
+        Map<String, String> values = report.describe();
+        assertEquals("250", values.get("classes"));
+        assertEquals("4500", values.get("methods"));
+        assertEquals("1", values.get("warnings"));
+        assertEquals("0", values.get("errors"));
+        assertEquals("62500", values.get("reportedMillis"));
+        assertEquals("63000", values.get("wallMillis"));
+        assertEquals("2000", values.get("inputBytes"));
+        assertEquals("1000", values.get("outputBytes"));
+        assertEquals(String.valueOf(512 * 1024 * 1024), values.get("peakMemoryBytes"));
+        assertNotNull(values.get("phase.compiling.millis"));
+    }
+
+    @Test
+    public void historyAppended() throws IOException {
+        File history = new File(tmp.getRoot(), "stats/app.csv");
+        write(history, "timestamp,commit,name,wallMillis\n1,,app,1000\n");
+        parse("10 classes").finish(0, 500, 1000, null, 0).appendHistory(history, COMMIT, "app");
+        parse("20 classes").finish(1, 600, 2000, null, 0).appendHistory(history, COMMIT, "app");
+        List<String> lines = Files.readAllLines(history.toPath());
+        assertEquals(3, lines.size());
+        assertEquals(CompileReport.HISTORY_HEADER, lines.get(0));
+        assertEquals(CompileReport.HISTORY_HEADER.split(",").length, lines.get(2).split(",", -1).length);
+        assertTrue(lines.get(1).contains("," + COMMIT + ",app,0,500,1000,0,10,"));
+        assertTrue(lines.get(2).contains("," + COMMIT + ",app,1,600,2000,0,20,"));
+        // the history with other columns is kept aside
+        assertTrue(new File(history.getPath() + ".old").isFile());
+    }
+
+    private void write(File file, String content) throws IOException {
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        Files.write(file.toPath(), content.getBytes());
+    }
+
+    @Test
+    public void gitHead() throws IOException {
+        File repo = tmp.newFolder("repo");
+        File module = new File(repo, "module");
+        assertTrue(module.mkdirs());
+        File git = new File(repo, ".git");
+        write(new File(git, "HEAD"), "ref: refs/heads/master\n");
+        assertEquals("", CompileReport.gitHead(module));
+
+        write(new File(git, "packed-refs"), "# pack-refs with: peeled\n" + COMMIT + " refs/heads/master\n");
+        assertEquals(COMMIT, CompileReport.gitHead(module));
+
+        String other = COMMIT.replace('0', 'f');
+        write(new File(git, "refs/heads/master"), other + "\n");
+        assertEquals(other, CompileReport.gitHead(module));
+
+        write(new File(git, "HEAD"), COMMIT + "\n");
+        assertEquals(COMMIT, CompileReport.gitHead(module));
+    }
+}
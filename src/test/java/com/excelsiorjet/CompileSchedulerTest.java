@@ -0,0 +1,124 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CompileSchedulerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void limitsConcurrencyAndMemory() throws Exception {
+        CompileScheduler scheduler = new CompileScheduler(3, 1000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread t = new Thread(() -> {
+                try (CompileScheduler.Permit ignored = scheduler.acquire(400, 0)) {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        // memory allows two compilations, though three are permitted
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test(timeout = 10000)
+    public void oversizedCompilationRunsAlone() throws InterruptedException {
+        CompileScheduler scheduler = new CompileScheduler(2, 100);
+        try (CompileScheduler.Permit permit = scheduler.acquire(1000, 0)) {
+            assertEquals(1000, permit.getMemory());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void longestExpectedFirst() throws Exception {
+        CompileScheduler scheduler = new CompileScheduler(1, Long.MAX_VALUE);
+        List<Long> order = Collections.synchronizedList(new ArrayList<>());
+        CompileScheduler.Permit first = scheduler.acquire(1, 0);
+        CountDownLatch queued = new CountDownLatch(3);
+        List<Thread> threads = new ArrayList<>();
+        for (long expected : new long[]{10, 30, 20}) {
+            Thread t = new Thread(() -> {
+                queued.countDown();
+                try (CompileScheduler.Permit ignored = scheduler.acquire(1, expected)) {
+                    order.add(expected);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        // let the threads get into the queue
+        while (threads.stream().anyMatch(t -> t.getState() != Thread.State.WAITING)) {
+            Thread.sleep(5);
+        }
+        first.close();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(Arrays.asList(30L, 20L, 10L), order);
+    }
+
+    @Test
+    public void configuredOncePerBuild() {
+        CompileScheduler scheduler = new CompileScheduler(3, 1000);
+        Object build = new Object();
+        assertTrue(scheduler.configure(build, 2, 500));
+        assertEquals(2, scheduler.getMaxConcurrent());
+        // the other modules of the same build do not change the limits
+        assertTrue(scheduler.configure(build, 0, 0));
+        assertTrue(scheduler.configure(build, 2, 500));
+        assertFalse(scheduler.configure(build, 4, 500));
+        assertEquals(2, scheduler.getMaxConcurrent());
+        assertEquals(500, scheduler.getMemoryBudget());
+        // while the next build does
+        assertTrue(scheduler.configure(new Object(), 4, 800));
+        assertEquals(4, scheduler.getMaxConcurrent());
+        assertEquals(800, scheduler.getMemoryBudget());
+    }
+
+    @Test
+    public void historyEstimates() throws Exception {
+        File stats = tmp.newFolder("stats");
+        File appHistory = new File(stats, "g.a.csv");
+        CompileHistory history = new CompileHistory(appHistory);
+        long mb = 1024 * 1024;
+        assertTrue(history.estimateMillis("app", 10 * mb) > 0);
+        assertEquals(history.estimateMillis("app", 10 * mb), new CompileHistory(null).estimateMillis("app", 10 * mb));
+
+        new CompileReport().finish(0, 10 * mb, 60000, null, 0).appendHistory(appHistory, "", "app");
+        // failed compilations are not taken into account
+        new CompileReport().finish(1, 10 * mb, 1000, null, 0).appendHistory(appHistory, "", "app");
+        assertEquals(60000, history.estimateMillis("app", 10 * mb));
+        assertEquals(120000, history.estimateMillis("app", 20 * mb));
+        // extrapolated from the other components and projects
+        assertEquals(30000, history.estimateMillis("lib", 5 * mb));
+        assertEquals(30000, new CompileHistory(new File(stats, "g.b.csv")).estimateMillis("b", 5 * mb));
+    }
+}
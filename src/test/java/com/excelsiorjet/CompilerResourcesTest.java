@@ -0,0 +1,103 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CompilerResourcesTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final long GB = 1024 * MB;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sizedByClasspathOnLargeHost() {
+        CompilerResources resources = new CompilerResources(100 * MB, 64 * GB, 16, 1, 0, 0);
+        assertEquals(CompileScheduler.estimateMemory(100 * MB), resources.getHeap());
+        assertEquals(10, resources.getThreads());
+    }
+
+    @Test
+    public void limitedByMemoryAndProcessorsShare() {
+        CompilerResources resources = new CompilerResources(200 * MB, 8 * GB, 8, 4, 0, 0);
+        assertEquals(1536 * MB, resources.getHeap());
+        assertEquals(2, resources.getThreads());
+    }
+
+    @Test
+    public void neverBelowMinimum() {
+        CompilerResources resources = new CompilerResources(100 * MB, GB, 1, 8, 0, 0);
+        assertEquals(CompilerResources.MIN_HEAP, resources.getHeap());
+        assertEquals(1, resources.getThreads());
+    }
+
+    @Test
+    public void overrides() {
+        CompilerResources resources = new CompilerResources(100 * MB, GB, 1, 1, 3 * GB, 6);
+        assertEquals(Arrays.asList("-compilerheap=3072m", "-compilerthreads=6"), resources.options());
+        assertEquals("override", resources.describe().get("heap.source"));
+        assertEquals("override", resources.describe().get("threads.source"));
+    }
+
+    private void write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        Files.write(file.toPath(), content.getBytes());
+    }
+
+    @Test
+    public void cgroupV2Limits() throws IOException {
+        File root = tmp.getRoot();
+        assertEquals(0, HostResources.cgroupMemoryLimit(root));
+        assertEquals(0, HostResources.cgroupCpuLimit(root));
+        write(root, "memory.max", "2147483648\n");
+        write(root, "cpu.max", "150000 100000\n");
+        assertEquals(2 * GB, HostResources.cgroupMemoryLimit(root));
+        assertEquals(2, HostResources.cgroupCpuLimit(root));
+        write(root, "memory.max", "max\n");
+        write(root, "cpu.max", "max 100000\n");
+        assertEquals(0, HostResources.cgroupMemoryLimit(root));
+        assertEquals(0, HostResources.cgroupCpuLimit(root));
+    }
+
+    @Test
+    public void cgroupV1Limits() throws IOException {
+        File root = tmp.getRoot();
+        write(root, "memory/memory.limit_in_bytes", "1073741824\n");
+        write(root, "cpu/cpu.cfs_quota_us", "400000\n");
+        write(root, "cpu/cpu.cfs_period_us", "100000\n");
+        assertEquals(GB, HostResources.cgroupMemoryLimit(root));
+        assertEquals(4, HostResources.cgroupCpuLimit(root));
+        write(root, "memory/memory.limit_in_bytes", "9223372036854771712\n");
+        write(root, "cpu/cpu.cfs_quota_us", "-1\n");
+        assertEquals(0, HostResources.cgroupMemoryLimit(root));
+        assertEquals(0, HostResources.cgroupCpuLimit(root));
+    }
+
+    @Test
+    public void cgroupMemoryHeadroom() throws IOException {
+        File root = tmp.getRoot();
+        assertEquals(0, HostResources.cgroupMemoryHeadroom(root));
+        write(root, "memory.max", "2147483648\n");
+        write(root, "memory.current", "536870912\n");
+        assertEquals(2 * GB - GB / 2, HostResources.cgroupMemoryHeadroom(root));
+        write(root, "memory.max", "max\n");
+        assertEquals(0, HostResources.cgroupMemoryHeadroom(root));
+    }
+
+    @Test
+    public void hostMemory() {
+        long physical = HostResources.physicalMemory();
+        assertTrue(physical > 0);
+        assertTrue(HostResources.availableMemory() <= physical);
+    }
+}
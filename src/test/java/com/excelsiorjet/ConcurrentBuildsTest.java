@@ -0,0 +1,97 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Shared state used by the modules of a reactor built in parallel ({@code mvn -T}).
+ */
+public class ConcurrentBuildsTest {
+
+    private static final int MODULES = 8;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static void runConcurrently(Callable<Void> module) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(MODULES);
+        try {
+            CyclicBarrier start = new CyclicBarrier(MODULES);
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < MODULES; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return module.call();
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void stagingThroughSharedStore() throws Exception {
+        File repo = tmp.newFolder("repo");
+        File shared = new File(repo, "shared.jar");
+        Files.write(shared.toPath(), "shared dependency".getBytes());
+        DependencyStore store = new DependencyStore(tmp.newFolder("store"));
+        File modules = tmp.newFolder("modules");
+        runConcurrently(() -> {
+            File buildDir = Files.createTempDirectory(modules.toPath(), "module").toFile();
+            LinkedHashMap<String, File> files = new LinkedHashMap<>();
+            files.put("lib/shared.jar", shared);
+            new DependencyStager(buildDir, new File(buildDir, "lib")).withStore(store, 0).stage(files);
+            assertEquals("shared dependency",
+                    new String(Files.readAllBytes(new File(buildDir, "lib/shared.jar").toPath())));
+            return null;
+        });
+        assertEquals(shared.length(), store.size());
+    }
+
+    @Test
+    public void sharedBuildCache() throws Exception {
+        File cacheDir = tmp.newFolder("cache");
+        File exe = new File(tmp.newFolder("build"), "app");
+        Files.write(exe.toPath(), "native code".getBytes());
+        String key = Utils.sha1("inputs");
+        File modules = tmp.newFolder("modules");
+        runConcurrently(() -> {
+            BuildCache cache = new BuildCache(cacheDir);
+            File buildDir = Files.createTempDirectory(modules.toPath(), "module").toFile();
+            List<File> restored = cache.restore(key, buildDir);
+            if (restored == null) {
+                cache.store(key, Collections.singletonList(exe));
+            }
+            cache.record((restored == null) ? -1 : exe.length());
+            return null;
+        });
+        BuildCache.Stats stats = new BuildCache(cacheDir).record(-1);
+        assertEquals(MODULES + 1, stats.hits + stats.misses);
+    }
+
+    @Test
+    public void manifestsOfDifferentModules() throws Exception {
+        File modules = tmp.newFolder("modules");
+        runConcurrently(() -> {
+            File dir = Files.createTempDirectory(modules.toPath(), "module").toFile();
+            BuildManifest.Fingerprint inputs = new BuildManifest.Fingerprint().add("module", dir.getName());
+            new BuildManifest(new File(dir, "build.manifest")).update("compile", inputs);
+            assertTrue(new BuildManifest(new File(dir, "build.manifest")).isUpToDate("compile", inputs));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.*;
+
+public class DependencyStagerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File write(File f, String content) throws IOException {
+        Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private String read(File f) throws IOException {
+        return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void stageIncrementally() throws IOException {
+        File repo = tmp.newFolder("repo");
+        File buildDir = tmp.newFolder("build");
+        File libDir = new File(buildDir, "lib");
+        File a = write(new File(repo, "a.jar"), "a");
+        File b = write(new File(repo, "b.jar"), "b");
+
+        LinkedHashMap<String, File> files = new LinkedHashMap<>();
+        files.put("lib/a.jar", a);
+        files.put("lib/b.jar", b);
+        DependencyStager stager = new DependencyStager(buildDir, libDir);
+
+        DependencyStager.Stats stats = stager.stage(files);
+        assertEquals(2, stats.staged);
+        assertEquals("a", read(new File(libDir, "a.jar")));
+
+        stats = stager.stage(files);
+        assertEquals(0, stats.staged);
+        assertEquals(2, stats.upToDate);
+        assertEquals(Utils.sha1(b), stats.hashes.get("lib/b.jar"));
+
+        write(a, "a2");
+        assertTrue(a.setLastModified(a.lastModified() + 2000));
+        stats = stager.stage(files);
+        assertEquals(1, stats.staged);
+        assertEquals("a2", read(new File(libDir, "a.jar")));
+    }
+
+    @Test
+    public void pruneOrphans() throws IOException {
+        File repo = tmp.newFolder("repo");
+        File buildDir = tmp.newFolder("build");
+        File libDir = new File(buildDir, "lib");
+        File a = write(new File(repo, "a.jar"), "a");
+        File b = write(new File(repo, "b.jar"), "b");
+
+        LinkedHashMap<String, File> files = new LinkedHashMap<>();
+        files.put("lib/a.jar", a);
+        files.put("lib/b.jar", b);
+        DependencyStager stager = new DependencyStager(buildDir, libDir);
+        stager.stage(files);
+        write(new File(libDir, "stale.jar"), "stale");
+
+        files.remove("lib/b.jar");
+        DependencyStager.Stats stats = stager.stage(files);
+        assertEquals(2, stats.removed);
+        assertFalse(new File(libDir, "b.jar").exists());
+        assertFalse(new File(libDir, "stale.jar").exists());
+        assertTrue(new File(libDir, "a.jar").exists());
+    }
+
+    @Test
+    public void restageDoesNotWriteThrough() throws IOException {
+        File repo = tmp.newFolder("repo");
+        File buildDir = tmp.newFolder("build");
+        File a = write(new File(repo, "a.jar"), "a");
+        File other = write(new File(repo, "other.jar"), "other");
+
+        LinkedHashMap<String, File> files = new LinkedHashMap<>();
+        files.put("a.jar", a);
+        DependencyStager stager = new DependencyStager(buildDir, new File(buildDir, "lib"));
+        stager.stage(files);
+
+        files.put("a.jar", other);
+        stager.stage(files);
+        assertEquals("other", read(new File(buildDir, "a.jar")));
+        assertEquals("a", read(a));
+    }
+}
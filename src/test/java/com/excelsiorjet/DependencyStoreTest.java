@@ -0,0 +1,68 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.*;
+
+public class DependencyStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File write(File f, String content) throws IOException {
+        Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    @Test
+    public void sameContentStoredOnce() throws IOException {
+        File repo = tmp.newFolder("repo");
+        DependencyStore store = new DependencyStore(tmp.newFolder("store"));
+        File a = write(new File(repo, "a.jar"), "same");
+        File b = write(new File(repo, "b.jar"), "same");
+        File storedA = store.put(a, Utils.sha1(a));
+        File storedB = store.put(b, Utils.sha1(b));
+        assertEquals(storedA, storedB);
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    public void trimEvictsLeastRecentlyUsed() throws IOException {
+        File repo = tmp.newFolder("repo");
+        DependencyStore store = new DependencyStore(tmp.newFolder("store"));
+        File old = store.put(write(new File(repo, "old.jar"), "old"), Utils.sha1("old"));
+        File recent = store.put(write(new File(repo, "new.jar"), "new"), Utils.sha1("new"));
+        assertTrue(old.setLastModified(recent.lastModified() - 10000));
+
+        DependencyStore.TrimStats stats = store.trim(3);
+        assertEquals(1, stats.removed);
+        assertFalse(old.exists());
+        assertTrue(recent.exists());
+    }
+
+    @Test
+    public void stageThroughStore() throws IOException {
+        File repo = tmp.newFolder("repo");
+        DependencyStore store = new DependencyStore(tmp.newFolder("store"));
+        File a = write(new File(repo, "a.jar"), "a");
+        LinkedHashMap<String, File> files = new LinkedHashMap<>();
+        files.put("lib/a.jar", a);
+
+        for (String module : new String[]{"m1", "m2"}) {
+            File buildDir = tmp.newFolder(module);
+            new DependencyStager(buildDir, new File(buildDir, "lib")).withStore(store, 0).stage(files);
+            assertEquals("a", new String(Files.readAllBytes(new File(buildDir, "lib/a.jar").toPath()),
+                    StandardCharsets.UTF_8));
+        }
+        assertTrue(store.fileFor(Utils.sha1(a)).isFile());
+        assertEquals(1, store.size());
+    }
+}
@@ -0,0 +1,161 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class ExecProfilesStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static Map<String, String> jars(String... nameHashPairs) {
+        Map<String, String> jars = new TreeMap<>();
+        for (int i = 0; i < nameHashPairs.length; i += 2) {
+            jars.put(nameHashPairs[i], nameHashPairs[i + 1]);
+        }
+        return jars;
+    }
+
+    @Test
+    public void metadataRoundTripAndDifferences() throws IOException {
+        ExecProfilesMetadata recorded = new ExecProfilesMetadata("1100", true,
+                jars("app.jar", "a1", "lib" + File.separator + "my dep.jar", "d1", "lib/old.jar", "o1"));
+        File file = new File(tmp.getRoot(), "app.profiles.properties");
+        recorded.write(file);
+        ExecProfilesMetadata read = ExecProfilesMetadata.read(file);
+        assertEquals(recorded.key(), read.key());
+        assertEquals(Collections.emptyList(), read.differences(recorded));
+
+        ExecProfilesMetadata current = new ExecProfilesMetadata("1130", false,
+                jars("app.jar", "a2", "lib/my dep.jar", "d1", "lib/new.jar", "n1"));
+        assertFalse(recorded.key().equals(current.key()));
+        List<String> differences = read.differences(current);
+        assertEquals(5, differences.size());
+        assertTrue(differences.get(0).contains("1100") && differences.get(0).contains("1130"));
+        assertTrue(differences.contains(Txt.s("ExecProfilesMetadata.JarChanged", "app.jar")));
+        assertTrue(differences.contains(Txt.s("ExecProfilesMetadata.JarAdded", "lib/new.jar")));
+        assertTrue(differences.contains(Txt.s("ExecProfilesMetadata.JarRemoved", "lib/old.jar")));
+
+        assertNull(ExecProfilesMetadata.read(new File(tmp.getRoot(), "missing")));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes());
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void saveAndRestore() throws IOException {
+        File dir = tmp.newFolder("jetresources");
+        TestRunExecProfiles profiles = new TestRunExecProfiles(dir, "app");
+        ExecProfilesStore store = new ExecProfilesStore(new File(tmp.getRoot(), "store"), 10);
+        write(profiles.getUsg(), "usg 1");
+        write(profiles.getStartup(), "startup 1");
+        store.save("k1", profiles);
+
+        write(profiles.getUsg(), "usg 2");
+        assertTrue(profiles.getStartup().delete());
+        store.save("k2", profiles);
+
+        assertTrue(store.restore("k1", profiles));
+        assertEquals("usg 1", read(profiles.getUsg()));
+        assertEquals("startup 1", read(profiles.getStartup()));
+
+        assertTrue(store.restore("k2", profiles));
+        assertEquals("usg 2", read(profiles.getUsg()));
+        assertFalse(profiles.getStartup().exists());
+
+        assertFalse(store.restore("k3", profiles));
+    }
+
+    @Test
+    public void keepsRecentEntries() throws IOException {
+        File dir = tmp.newFolder("jetresources");
+        TestRunExecProfiles profiles = new TestRunExecProfiles(dir, "app");
+        File root = new File(tmp.getRoot(), "store");
+        ExecProfilesStore store = new ExecProfilesStore(root, 2);
+        write(profiles.getUsg(), "usg");
+        for (String key : Arrays.asList("k1", "k2", "k3")) {
+            store.save(key, profiles);
+            assertTrue(new File(root, key).setLastModified(System.currentTimeMillis() - 100000 + key.charAt(1) * 1000));
+        }
+        assertFalse(new File(root, "k1").exists());
+        assertTrue(new File(root, "k3").isDirectory());
+    }
+
+    @Test
+    public void mergeScenarioProfiles() throws IOException {
+        TestRunExecProfiles first = new TestRunExecProfiles(tmp.newFolder("first"), "app");
+        TestRunExecProfiles second = new TestRunExecProfiles(tmp.newFolder("second"), "app");
+        TestRunExecProfiles third = new TestRunExecProfiles(tmp.newFolder("third"), "app");
+        write(first.getUsg(), "a\nb\n");
+        write(second.getUsg(), "b\nc\n\n");
+        write(second.getStartup(), "startup 2");
+        write(third.getStartup(), "startup 3");
+        write(first.getClassUsage(), "java.lang.Object\n");
+        write(third.getClassUsage(), "java.awt.Frame\njava.lang.Object\n");
+
+        TestRunExecProfiles merged = new TestRunExecProfiles(tmp.newFolder("merged"), "app");
+        write(merged.getStartup(), "stale");
+        TestRunExecProfiles.Merge merge = TestRunExecProfiles.merge(Arrays.asList(first, second, third), merged);
+        assertEquals(1, merge.startupFrom);
+        assertEquals(-1, merge.usageFrom);
+        assertEquals(Arrays.asList("a", "b", "c"), Files.readAllLines(merged.getUsg().toPath()));
+        assertEquals(3, TestRunExecProfiles.usageEntries(merged.getUsg()));
+        assertEquals("startup 2", read(merged.getStartup()));
+        assertEquals(Arrays.asList("java.lang.Object", "java.awt.Frame"),
+                Files.readAllLines(merged.getClassUsage().toPath()));
+        assertFalse(merged.getMetadata().exists());
+
+        TestRunExecProfiles empty = new TestRunExecProfiles(tmp.newFolder("empty"), "app");
+        assertEquals(-1, TestRunExecProfiles.merge(Collections.singletonList(empty), merged).startupFrom);
+        assertFalse(merged.getUsg().exists());
+        assertFalse(merged.getStartup().exists());
+        assertEquals(0, TestRunExecProfiles.usageEntries(merged.getUsg()));
+    }
+
+    @Test
+    public void mergeKeepsBytesOfUsageProfiles() throws IOException {
+        TestRunExecProfiles first = new TestRunExecProfiles(tmp.newFolder("first"), "app");
+        TestRunExecProfiles second = new TestRunExecProfiles(tmp.newFolder("second"), "app");
+        // Latin-1 and CRLF, neither of which may be assumed to be UTF-8 or the platform line separator
+        Files.write(first.getUsg().toPath(), new byte[]{'a', (byte) 0xE9, '\r', '\n', 'b', '\r', '\n'});
+        Files.write(second.getUsg().toPath(), new byte[]{'b', '\n', 'c', (byte) 0xFF, '\n'});
+        TestRunExecProfiles merged = new TestRunExecProfiles(tmp.newFolder("merged"), "app");
+        TestRunExecProfiles.merge(Arrays.asList(first, second), merged);
+        String sep = System.lineSeparator();
+        assertArrayEquals(("a\u00E9" + sep + "b" + sep + "c\u00FF" + sep).getBytes(StandardCharsets.ISO_8859_1),
+                Files.readAllBytes(merged.getUsg().toPath()));
+        assertEquals(3, TestRunExecProfiles.usageEntries(merged.getUsg()));
+    }
+
+    @Test
+    public void binaryUsageProfileIsNotMerged() throws IOException {
+        TestRunExecProfiles first = new TestRunExecProfiles(tmp.newFolder("first"), "app");
+        TestRunExecProfiles second = new TestRunExecProfiles(tmp.newFolder("second"), "app");
+        byte[] binary = {1, 0, '\n', 2, 0, 0, '\n', 3};
+        Files.write(second.getUsg().toPath(), binary);
+        write(first.getStartup(), "startup 1");
+        TestRunExecProfiles merged = new TestRunExecProfiles(tmp.newFolder("merged"), "app");
+        TestRunExecProfiles.Merge merge = TestRunExecProfiles.merge(Arrays.asList(first, second), merged);
+        assertEquals(1, merge.usageFrom);
+        assertEquals(0, merge.startupFrom);
+        assertArrayEquals(binary, Files.readAllBytes(merged.getUsg().toPath()));
+    }
+}
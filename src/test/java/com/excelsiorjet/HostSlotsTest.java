@@ -0,0 +1,64 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HostSlotsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test(timeout = 20000)
+    public void limitsThreadsOfThisJvm() throws Exception {
+        File dir = tmp.newFolder("slots");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Thread t = new Thread(() -> {
+                try (HostSlots.Slot ignored = new HostSlots(dir, 2).acquire()) {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(50);
+                    running.decrementAndGet();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test(timeout = 30000)
+    public void waitsForOtherProcess() throws Exception {
+        File dir = tmp.newFolder("slots");
+        String java = Utils.mangleExeName(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        Process holder = new ProcessBuilder(java, "-cp",
+                TestUtils.workDir().getAbsolutePath() + File.pathSeparator + TestUtils.classesDir().getAbsolutePath(),
+                "testClasses.HoldSlot", dir.getAbsolutePath(), "1", "1500")
+                .redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(holder.getInputStream()))) {
+            assertEquals("taken", out.readLine());
+            try (HostSlots.Slot slot = new HostSlots(dir, 1).acquire()) {
+                assertTrue(slot.getWaitedMillis() >= 500);
+                assertEquals(0, slot.getIndex());
+            }
+        } finally {
+            holder.destroy();
+        }
+    }
+}
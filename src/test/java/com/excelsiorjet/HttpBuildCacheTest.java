@@ -0,0 +1,203 @@
+package com.excelsiorjet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HttpBuildCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private BuildCacheServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new BuildCacheServer(tmp.newFolder("server"), 0).start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    private static File write(File f, String content) throws IOException {
+        Files.write(f.toPath(), content.getBytes());
+        return f;
+    }
+
+    @Test
+    public void storeAndRestore() throws IOException {
+        File buildDir = tmp.newFolder("build");
+        File exe = write(new File(buildDir, "app"), "native code");
+        assertTrue(exe.setExecutable(true));
+        File sidecar = write(new File(buildDir, "app.rsp"), "sidecar");
+        String key = Utils.sha1("inputs");
+
+        HttpBuildCache cache = new HttpBuildCache(server.getUrl(), false);
+        assertNull(cache.restore(key, buildDir));
+        cache.store(key, Arrays.asList(exe, sidecar));
+        // stored already
+        cache.store(key, Arrays.asList(exe, sidecar));
+
+        File otherDir = tmp.newFolder("agent2");
+        List<File> restored = new HttpBuildCache(server.getUrl(), true).restore(key, otherDir);
+        assertEquals(2, restored.size());
+        assertEquals("native code", new String(Files.readAllBytes(new File(otherDir, "app").toPath())));
+        assertEquals("sidecar", new String(Files.readAllBytes(new File(otherDir, "app.rsp").toPath())));
+        if (Utils.isUnix()) {
+            assertTrue(new File(otherDir, "app").canExecute());
+            assertFalse(new File(otherDir, "app.rsp").canExecute());
+        }
+        assertEquals(2, otherDir.list().length);
+    }
+
+    @Test
+    public void readOnlyDoesNotUpload() throws IOException {
+        File buildDir = tmp.newFolder("build");
+        File exe = write(new File(buildDir, "app"), "native code");
+        String key = Utils.sha1("inputs");
+
+        new HttpBuildCache(server.getUrl(), true).store(key, Arrays.asList(exe));
+        assertNull(new HttpBuildCache(server.getUrl(), false).restore(key, tmp.newFolder("agent2")));
+    }
+
+    @Test(expected = IOException.class)
+    public void unavailableServer() throws IOException {
+        String url = server.getUrl();
+        server.stop();
+        new HttpBuildCache(url, true).restore(Utils.sha1("inputs"), tmp.newFolder("build"));
+    }
+
+    @Test
+    public void serverRefusesOverwriteAndOversizedUploads() throws IOException {
+        File root = tmp.newFolder("limited");
+        BuildCacheServer limited = new BuildCacheServer(root, BuildCacheServer.LOOPBACK, 0, 1024).start();
+        try {
+            assertTrue(limited.getUrl().startsWith("http://localhost:"));
+            File buildDir = tmp.newFolder("build");
+            File exe = write(new File(buildDir, "app"), "native code");
+            String key = Utils.sha1("inputs");
+            HttpBuildCache cache = new HttpBuildCache(limited.getUrl(), false);
+            cache.store(key, Arrays.asList(exe));
+
+            // another uploader cannot replace the stored entry with a different content
+            String checksum = new String(Files.readAllBytes(new File(root, key + ".sha256").toPath())).trim();
+            assertEquals(HttpURLConnection.HTTP_CONFLICT, put(limited, HttpBuildCache.archiveName(key, checksum), "native code"));
+            String forged = checksum.replace(checksum.charAt(0), checksum.charAt(0) == '0' ? '1' : '0');
+            assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, put(limited, HttpBuildCache.archiveName(key, forged), "evil"));
+            // nor point the key at a missing archive
+            assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, put(limited, key + ".sha256", forged));
+            File agentDir = tmp.newFolder("agent2");
+            cache.restore(key, agentDir);
+            assertEquals("native code", new String(Files.readAllBytes(new File(agentDir, "app").toPath())));
+
+            // random bytes do not compress below the limit
+            File big = new File(buildDir, "big");
+            byte[] noise = new byte[64 * 1024];
+            new Random(1).nextBytes(noise);
+            Files.write(big.toPath(), noise);
+            try {
+                cache.store(Utils.sha1("big"), Arrays.asList(big));
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("413"));
+            }
+            assertNull(cache.restore(Utils.sha1("big"), tmp.newFolder("agent3")));
+        } finally {
+            limited.stop();
+        }
+    }
+
+    private static int put(BuildCacheServer server, String name, String content) throws IOException {
+        HttpURLConnection put = (HttpURLConnection) new URL(server.getUrl() + name).openConnection();
+        put.setRequestMethod("PUT");
+        put.setDoOutput(true);
+        try (OutputStream out = put.getOutputStream()) {
+            out.write(content.getBytes());
+        }
+        try {
+            return put.getResponseCode();
+        } finally {
+            put.disconnect();
+        }
+    }
+
+    private String archiveOf(String key) throws IOException {
+        File serverDir = new File(tmp.getRoot(), "server");
+        String checksum = new String(Files.readAllBytes(new File(serverDir, key + ".sha256").toPath())).trim();
+        return HttpBuildCache.archiveName(key, checksum);
+    }
+
+    @Test
+    public void corruptedEntryIsRepublished() throws IOException {
+        File buildDir = tmp.newFolder("build");
+        File exe = write(new File(buildDir, "app"), "native code");
+        String key = Utils.sha1("inputs");
+        HttpBuildCache cache = new HttpBuildCache(server.getUrl(), false);
+        cache.store(key, Arrays.asList(exe));
+
+        File serverDir = new File(tmp.getRoot(), "server");
+        File other = write(new File(buildDir, "other"), "tampered");
+        String otherKey = Utils.sha1("other");
+        cache.store(otherKey, Arrays.asList(other));
+        // substitute the archive behind the checksum
+        File archive = new File(serverDir, archiveOf(key));
+        Files.copy(new File(serverDir, archiveOf(otherKey)).toPath(), archive.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+
+        File agentDir = tmp.newFolder("agent2");
+        try {
+            cache.restore(key, agentDir);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(key));
+        }
+        assertEquals(0, agentDir.list().length);
+
+        // the build that failed to restore the entry publishes it anew
+        cache.store(key, Arrays.asList(exe));
+        assertEquals(1, new HttpBuildCache(server.getUrl(), true).restore(key, agentDir).size());
+        assertEquals("native code", new String(Files.readAllBytes(new File(agentDir, "app").toPath())));
+    }
+
+    @Test
+    public void interruptedStoreIsCompleted() throws IOException {
+        File buildDir = tmp.newFolder("build");
+        File exe = write(new File(buildDir, "app"), "native code");
+        String key = Utils.sha1("inputs");
+        HttpBuildCache cache = new HttpBuildCache(server.getUrl(), false);
+        cache.store(key, Arrays.asList(exe));
+
+        // a build crashed after uploading the archive: the key misses until it is stored again
+        File serverDir = new File(tmp.getRoot(), "server");
+        String archive = archiveOf(key);
+        assertTrue(new File(serverDir, key + ".sha256").delete());
+        File agentDir = tmp.newFolder("agent2");
+        assertNull(cache.restore(key, agentDir));
+        cache.store(key, Arrays.asList(exe));
+        assertEquals(archive, archiveOf(key));
+        assertEquals(1, cache.restore(key, agentDir).size());
+
+        // the archive the key points at is gone
+        assertTrue(new File(serverDir, archive).delete());
+        assertNull(cache.restore(key, tmp.newFolder("agent3")));
+        cache.store(key, Arrays.asList(exe));
+        assertEquals(1, cache.restore(key, tmp.newFolder("agent4")).size());
+    }
+}
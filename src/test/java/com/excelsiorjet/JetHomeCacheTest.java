@@ -0,0 +1,72 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class JetHomeCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void persistedAcrossInstances() throws IOException {
+        File bin = new File(tmp.newFolder("jet"), "bin");
+        assertTrue(bin.mkdir());
+        File marker = new File(bin, "jet1100.home");
+        assertTrue(marker.createNewFile());
+        String jetHome = bin.getParent();
+        File cacheFile = new File(tmp.getRoot(), "jet-home.cache");
+
+        new JetHomeCache(cacheFile).put(jetHome,
+                new JetHomeCache.Entry(marker.getName(), marker.lastModified(), 1100, JetEdition.ENTERPRISE, true));
+
+        JetHomeCache.Entry e = new JetHomeCache(cacheFile).get(jetHome, bin.getAbsolutePath());
+        assertNotNull(e);
+        assertEquals(1100, e.version);
+        assertEquals(JetEdition.ENTERPRISE, e.edition);
+        assertTrue(e.is64);
+    }
+
+    @Test
+    public void invalidatedByMarkerChange() throws IOException {
+        File bin = new File(tmp.newFolder("jet"), "bin");
+        assertTrue(bin.mkdir());
+        File marker = new File(bin, "jet1100.home");
+        assertTrue(marker.createNewFile());
+        String jetHome = bin.getParent();
+        JetHomeCache cache = new JetHomeCache(new File(tmp.getRoot(), "jet-home.cache"));
+        cache.put(jetHome, new JetHomeCache.Entry(marker.getName(), marker.lastModified(), 1100, null, false));
+        assertNotNull(cache.get(jetHome, bin.getAbsolutePath()));
+
+        assertTrue(marker.setLastModified(marker.lastModified() - 10000));
+        assertNull(cache.get(jetHome, bin.getAbsolutePath()));
+
+        assertTrue(marker.delete());
+        assertNull(cache.get(jetHome, bin.getAbsolutePath()));
+    }
+
+    @Test
+    public void configurableAndDisabled() throws IOException, JetHomeException {
+        File fakeJet = TestUtils.getOrCreateFakeJetHome();
+        File cacheFile = new File(tmp.getRoot(), "jet-home.cache");
+        try {
+            JetHome.setPropertiesCache(cacheFile);
+            new JetHome(fakeJet.getAbsolutePath());
+            assertTrue(cacheFile.isFile());
+
+            assertTrue(cacheFile.delete());
+            JetHome.setPropertiesCache(null);
+            new JetHome(fakeJet.getAbsolutePath());
+            assertFalse(cacheFile.exists());
+        } finally {
+            JetHome.setPropertiesCache(JetHomeCache.DEFAULT_FILE);
+            TestUtils.cleanFakeJetDir();
+        }
+    }
+}
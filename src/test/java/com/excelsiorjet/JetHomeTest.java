@@ -1,7 +1,10 @@
 package com.excelsiorjet;
 
 import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
@@ -15,6 +18,14 @@ import static org.junit.Assert.assertSame;
  */
 public class JetHomeTest {
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void isolateJetHomeCache() {
+        JetHome.setPropertiesCache(new File(tmp.getRoot(), "jet-home.cache"));
+    }
+
     @Test(expected = JetHomeException.class)
     public void createBadJetHome() throws JetHomeException {
         new JetHome("Bad jet home");
@@ -58,5 +69,6 @@ public class JetHomeTest {
     @After
     public void cleanup() throws IOException {
         TestUtils.cleanFakeJetDir();
+        JetHome.setPropertiesCache(JetHomeCache.DEFAULT_FILE);
     }
 }
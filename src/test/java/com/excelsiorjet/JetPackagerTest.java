@@ -1,7 +1,11 @@
 package com.excelsiorjet;
 
 import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
@@ -18,6 +22,19 @@ public class JetPackagerTest {
 
     private Log log = mock(Log.class);
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void isolateJetHomeCache() {
+        JetHome.setPropertiesCache(new File(tmp.getRoot(), "jet-home.cache"));
+    }
+
+    @After
+    public void restoreJetHomeCache() {
+        JetHome.setPropertiesCache(JetHomeCache.DEFAULT_FILE);
+    }
+
     @Test
     public void testPackHelloWorld() throws CmdLineToolException, JetHomeException, IOException {
         assertEquals(0,
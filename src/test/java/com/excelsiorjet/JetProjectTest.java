@@ -0,0 +1,83 @@
+package com.excelsiorjet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JetProjectTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void isolateJetHomeCache() {
+        JetHome.setPropertiesCache(new File(tmp.getRoot(), "jet-home.cache"));
+    }
+
+    @After
+    public void restoreJetHomeCache() {
+        JetHome.setPropertiesCache(JetHomeCache.DEFAULT_FILE);
+    }
+
+    @Test
+    public void content() {
+        JetProject project = new JetProject()
+                .option("-main=HelloWorld")
+                .option("-versioninfocompanyname=Excelsior LLC")
+                .classpathEntry("HelloWorld.jar")
+                .classpathEntry("lib" + File.separator + "dep.jar", "-optimize=autodetect")
+                .module("C:" + File.separator + "My Icons" + File.separator + "icon.ico");
+        assertEquals("-main=HelloWorld\n" +
+                "-versioninfocompanyname=\"Excelsior LLC\"\n" +
+                "!classpathentry HelloWorld.jar\n" +
+                "!end\n" +
+                "!classpathentry lib/dep.jar\n" +
+                "  -optimize=autodetect\n" +
+                "!end\n" +
+                "!module \"C:/My Icons/icon.ico\"\n", project.content());
+    }
+
+    @Test
+    public void usesSharedLibraryProject() {
+        JetProject project = new JetProject()
+                .option("-main=HelloWorld")
+                .uses("/build/deps/app-deps.prj")
+                .classpathEntry("HelloWorld.jar");
+        assertEquals("-main=HelloWorld\n" +
+                "!uses /build/deps/app-deps.prj\n" +
+                "!classpathentry HelloWorld.jar\n" +
+                "!end\n", project.content());
+    }
+
+    @Test
+    public void rewrittenOnlyOnChange() throws IOException {
+        File prj = new File(tmp.getRoot(), "app.prj");
+        assertTrue(new JetProject().option("-main=A").write(prj));
+        assertFalse(new JetProject().option("-main=A").write(prj));
+        assertTrue(new JetProject().option("-main=B").write(prj));
+    }
+
+    @Test
+    public void splitCompilationPackagesLibrary() throws JetHomeException {
+        JetHome jetHome = new JetHome(TestUtils.getOrCreateFakeJetHome().getAbsolutePath());
+        File library = new File(tmp.getRoot(), Utils.isWindows() ? "App-deps.dll" : "libApp-deps.so");
+        JetPackager installer = new JetPackager(jetHome, "-backend", "excelsior-installer")
+                .addApplicationFiles("App", library);
+        List<String> args = installer.getArgs();
+        assertEquals(Arrays.asList("-backend", "excelsior-installer",
+                "-add-file", "App", "/", "-add-file", library.getName(), "/"), args.subList(1, args.size()));
+
+        JetPackager appDir = new JetPackager(jetHome).addApplicationFiles("App", null);
+        assertEquals(Arrays.asList("-add-file", "App", "/"), appDir.getArgs().subList(1, 4));
+        assertEquals(4, appDir.getArgs().size());
+    }
+}
@@ -0,0 +1,74 @@
+package com.excelsiorjet;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MemoryFootprintTest {
+
+    private static MemoryFootprint.Sample sample(long millis, long rss) {
+        MemoryFootprint.Sample sample = new MemoryFootprint.Sample(millis);
+        sample.rss = rss;
+        sample.peakRss = rss;
+        return sample;
+    }
+
+    @Test
+    public void parsesStatusAndSmaps() {
+        MemoryFootprint.Sample sample = new MemoryFootprint.Sample(0);
+        MemoryFootprint.addStatus(sample, Arrays.asList("Name:\tapp", "VmHWM:\t   2048 kB", "VmRSS:\t   1024 kB"));
+        MemoryFootprint.addSmaps(sample, Arrays.asList(
+                "00400000-0040b000 r-xp 00000000 08:01 123 /app/Main",
+                "Rss:                 100 kB",
+                "Pss:                  60 kB",
+                "Shared_Clean:         80 kB",
+                "Shared_Dirty:          0 kB",
+                "Private_Clean:        12 kB",
+                "Private_Dirty:         8 kB",
+                "01000000-02000000 rw-p 00000000 00:00 0 [heap]",
+                "Pss:                 500 kB",
+                "Private_Dirty:       500 kB"));
+        assertEquals(1024 * 1024, sample.rss);
+        assertEquals(2048 * 1024, sample.peakRss);
+        assertEquals(520 * 1024, sample.privateBytes);
+        assertEquals(80 * 1024, sample.sharedBytes);
+        assertEquals(560 * 1024, sample.pss);
+    }
+
+    @Test
+    public void steadyStateFollowsReadiness() {
+        MemoryFootprint footprint = new MemoryFootprint();
+        assertTrue(footprint.steadyState(-1).isEmpty());
+        footprint.add(sample(0, 10));
+        footprint.add(sample(100, 50));
+        footprint.add(sample(200, 40));
+        footprint.add(sample(300, 30));
+        footprint.add(sample(400, 20));
+        assertEquals(50, footprint.peakRss());
+
+        List<MemoryFootprint.Sample> afterReady = footprint.steadyState(250);
+        assertEquals(2, afterReady.size());
+        assertEquals(30, afterReady.get(0).rss);
+        assertEquals(3, footprint.steadyState(-1).size());
+        assertEquals(1, footprint.steadyState(1000).size());
+        assertEquals(20, footprint.steadyState(1000).get(0).rss);
+    }
+
+    @Test
+    public void samplesRunningProcess() {
+        Assume.assumeTrue(MemoryFootprint.isSupported());
+        long pid = Long.parseLong(ManagementFactory.getRuntimeMXBean().getName().split("@")[0]);
+        MemoryFootprint footprint = new MemoryFootprint();
+        assertTrue(footprint.sample(pid, 0));
+        MemoryFootprint.Sample sample = footprint.getSamples().get(0);
+        assertTrue(sample.rss > 0);
+        assertTrue(sample.privateBytes > 0);
+        assertTrue(sample.pss > 0);
+        assertFalse(footprint.sample(Integer.MAX_VALUE, 0));
+    }
+}
@@ -0,0 +1,86 @@
+package com.excelsiorjet;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class OutputPumpTest {
+
+    private static final int LINES = 10000;
+
+    private static String getJavaExe() {
+        return Utils.mangleExeName(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    }
+
+    private List<String> pumpLines(OutputPump pump, int lines) throws Exception {
+        Process process = new ProcessBuilder(getJavaExe(), "testClasses.PrintLines", Integer.toString(lines))
+                .directory(TestUtils.workDir())
+                .start();
+        List<String> out = Collections.synchronizedList(new ArrayList<>());
+        OutputPump.Drain drain = pump.start(process, process.getInputStream(), StandardCharsets.UTF_8, out::addAll);
+        OutputPump.Drain err = pump.start(process, process.getErrorStream(), StandardCharsets.UTF_8, l -> {});
+        assertEquals(0, process.waitFor());
+        drain.await();
+        err.await();
+        return out;
+    }
+
+    private void checkLines(List<String> out, int lines) {
+        assertEquals(lines, out.size());
+        for (int i = 0; i < lines; i++) {
+            assertEquals("line " + i, out.get(i));
+        }
+    }
+
+    @Test
+    public void threadedPump() throws Exception {
+        checkLines(pumpLines(new ThreadedOutputPump(), LINES), LINES);
+    }
+
+    @Test
+    public void sharedPump() throws Exception {
+        checkLines(pumpLines(SharedOutputPump.getInstance(), LINES), LINES);
+    }
+
+    @Test
+    public void sharedPumpConcurrentTools() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 4; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    checkLines(pumpLines(SharedOutputPump.getInstance(), LINES), LINES);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(Collections.emptyList(), failures);
+    }
+
+    @Test
+    public void decodeLines() {
+        LineDecoder decoder = new LineDecoder(StandardCharsets.UTF_8);
+        byte[] bytes = "a\r\nb\rc\nété".getBytes(StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>();
+        // feed byte by byte to split multi-byte characters and CR LF pairs
+        for (int i = 0; i < bytes.length; i++) {
+            lines.addAll(decoder.decode(bytes, i, 1));
+        }
+        lines.addAll(decoder.finish());
+        List<String> expected = new ArrayList<>();
+        Collections.addAll(expected, "a", "b", "c", "été");
+        assertEquals(expected, lines);
+    }
+}
@@ -0,0 +1,116 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class PerfGateTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void medianAndMad() {
+        Samples samples = Samples.parse("100, 102, 98, 101, 500");
+        assertEquals(101, samples.median(), 0);
+        // deviations 1, 1, 3, 0, 399
+        assertEquals(1, samples.mad(), 0);
+        assertEquals(101.5, Samples.parse("100,103,102,101").median(), 0);
+        assertEquals(0, new Samples().mad(), 0);
+        assertEquals("100,102,98,101,500", samples.toString());
+    }
+
+    @Test
+    public void toleranceAndNoise() {
+        PerfGate gate = new PerfGate(2, 3).withTolerance("startup.", 10).withTolerance("startup.cold", 50);
+        assertEquals(10, gate.tolerance("startup.warm"), 0);
+        assertEquals(50, gate.tolerance("startup.cold"), 0);
+        assertEquals(2, gate.tolerance("size.executable"), 0);
+
+        // sizes are exact: 2% allowed
+        assertFalse(gate.check("size.executable", Samples.parse("1000"), Samples.parse("1020")).isRegression());
+        PerfGate.Check grown = gate.check("size.executable", Samples.parse("1000"), Samples.parse("1021"));
+        assertTrue(grown.isRegression());
+        assertEquals(2.1, grown.changePercent(), 1e-9);
+
+        // noisy startup: 10% plus 3 * 1.4826 * MAD
+        Samples baseline = Samples.parse("100,104,96,100,100");
+        assertFalse(gate.check("startup.warm", baseline, Samples.parse("110,110,110")).isRegression());
+        assertTrue(gate.check("startup.warm", baseline, Samples.parse("130,128,131")).isRegression());
+        Samples noisy = Samples.parse("100,140,60,150,50,100");
+        assertFalse(gate.check("startup.warm", baseline, noisy).isRegression());
+    }
+
+    @Test
+    public void comparesCommonMetricsAndRoundTrips() throws IOException {
+        Map<String, Samples> baseline = new TreeMap<>();
+        baseline.put("size.executable", Samples.parse("1000"));
+        baseline.put("startup.warm", Samples.parse("100,101,99"));
+        baseline.put("footprint.peakRss", Samples.parse("5000"));
+        File file = new File(tmp.getRoot(), "perf-baseline.properties");
+        PerfGate.write(file, baseline, "baseline");
+        assertTrue(new String(Files.readAllBytes(file.toPath())).contains("startup.warm=100,101,99\n"));
+
+        Map<String, Samples> read = PerfGate.read(file);
+        assertEquals(baseline.keySet(), read.keySet());
+        assertEquals(baseline.get("startup.warm").getValues(), read.get("startup.warm").getValues());
+        assertNull(PerfGate.read(new File(tmp.getRoot(), "missing.properties")));
+
+        Map<String, Samples> current = new TreeMap<>();
+        current.put("size.executable", Samples.parse("1100"));
+        current.put("startup.warm", Samples.parse("100"));
+        current.put("size.package", Samples.parse("1"));
+        List<PerfGate.Check> checks = new PerfGate(2, 3).check(read, current);
+        assertEquals(3, checks.size());
+        // in the order of the baseline, which is sorted by metric
+        assertEquals("footprint.peakRss", checks.get(0).metric);
+        assertEquals("size.executable", checks.get(1).metric);
+        assertTrue(checks.get(1).isRegression());
+        assertFalse(checks.get(1).isMissing());
+        assertFalse(checks.get(2).isRegression());
+
+        Files.write(file.toPath(), "size.executable=big\n".getBytes());
+        try {
+            PerfGate.read(file);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(file.getAbsolutePath()));
+        }
+    }
+
+    @Test
+    public void missingMeasurementIsRegression() {
+        Map<String, Samples> baseline = new TreeMap<>();
+        baseline.put("startup.warm", Samples.parse("100,101,99"));
+        baseline.put("size.executable", Samples.parse("1000"));
+        Map<String, Samples> current = new TreeMap<>();
+        current.put("size.executable", Samples.parse("1000"));
+
+        List<PerfGate.Check> checks = new PerfGate(2, 3).check(baseline, current);
+        assertEquals(2, checks.size());
+        assertFalse(checks.get(0).isRegression());
+        PerfGate.Check startup = checks.get(1);
+        assertEquals("startup.warm", startup.metric);
+        assertTrue(startup.isMissing());
+        assertTrue(startup.isRegression());
+        assertEquals(100, startup.baseline, 0);
+        assertEquals(0, startup.changePercent(), 0);
+
+        // no reports at all
+        current.clear();
+        current.put("startup.warm", new Samples());
+        for (PerfGate.Check check : new PerfGate(2, 3).check(baseline, current)) {
+            assertTrue(check.isMissing());
+            assertTrue(check.isRegression());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RuntimeComponentsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void loadedClass() {
+        assertEquals("java.lang.Object",
+                RuntimeComponents.loadedClass("[Loaded java.lang.Object from /jet/lib/rt.jar]"));
+        assertEquals("javax.swing.JFrame",
+                RuntimeComponents.loadedClass("[0.120s][info][class,load] javax.swing.JFrame source: jrt:/java.desktop"));
+        assertNull(RuntimeComponents.loadedClass("Hello, World"));
+    }
+
+    @Test
+    public void components() {
+        assertEquals("xml", RuntimeComponents.componentOf("javax.xml.parsers.DocumentBuilder"));
+        assertEquals("jax-ws", RuntimeComponents.componentOf("javax.xml.ws.Service"));
+        assertEquals("awt/java2d", RuntimeComponents.componentOf("java.awt.Color"));
+        assertNull(RuntimeComponents.componentOf("java.lang.String"));
+    }
+
+    @Test
+    public void unused() {
+        Set<String> unused = RuntimeComponents.unused(Arrays.asList(
+                "java.lang.Object", "java.sql.Connection", "javax.xml.parsers.SAXParser", "java.awt.Color"));
+        Set<String> expected = new HashSet<>(RuntimeComponents.all());
+        expected.removeAll(Arrays.asList("jdbc", "xml", "awt/java2d"));
+        assertEquals(expected, unused);
+    }
+
+    @Test
+    public void classUsageFile() throws IOException {
+        File file = new File(tmp.getRoot(), "app.classes");
+        assertNull(RuntimeComponents.readClassUsage(file));
+        RuntimeComponents.writeClassUsage(file, new HashSet<>(Arrays.asList("b.B", "a.A")));
+        List<String> classes = RuntimeComponents.readClassUsage(file);
+        assertEquals(Arrays.asList("a.A", "b.B"), classes);
+    }
+}
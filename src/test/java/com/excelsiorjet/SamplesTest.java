@@ -0,0 +1,43 @@
+package com.excelsiorjet;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SamplesTest {
+
+    private static Samples of(long... values) {
+        Samples samples = new Samples();
+        for (long value : values) {
+            samples.add(value);
+        }
+        return samples;
+    }
+
+    @Test
+    public void nearestRankPercentiles() {
+        Samples samples = of(50, 10, 40, 20, 30, 100, 60, 70, 90, 80);
+        assertEquals(10, samples.min());
+        assertEquals(50, samples.percentile(50));
+        assertEquals(90, samples.percentile(90));
+        assertEquals(100, samples.percentile(99));
+        assertEquals(100, samples.max());
+        assertEquals(7, of(7).percentile(50));
+        assertEquals(0, new Samples().percentile(50));
+    }
+
+    @Test
+    public void skipAndDescribe() {
+        Samples warm = of(500, 30, 10, 20).skip(1);
+        assertEquals(Arrays.asList(30L, 10L, 20L), warm.getValues());
+
+        BuildReport report = new BuildReport();
+        warm.describe(report, "native.warm");
+        assertEquals("3", report.get("native.warm.runs"));
+        assertEquals("20", report.get("native.warm.p50"));
+        assertEquals("30", report.get("native.warm.max"));
+        assertEquals("30,10,20", report.get("native.warm.samples"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.excelsiorjet;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class TestRunScenarioTest {
+
+    private final List<String> output = Collections.synchronizedList(new ArrayList<>());
+
+    private final SystemStreamLog log = new SystemStreamLog() {
+        public void info(CharSequence line) {
+            output.add(line.toString());
+        }
+    };
+
+    private CmdLineTool app(String... args) {
+        CmdLineTool tool = new CmdLineTool(
+                Utils.mangleExeName(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"),
+                "testClasses.ScenarioApp")
+                .workingDirectory(TestUtils.workDir())
+                .withLog(log);
+        for (String arg : args) {
+            tool.arg(arg);
+        }
+        return tool;
+    }
+
+    @Test(timeout = 30000)
+    public void inputUntilExit() throws Exception {
+        TestRunScenario scenario = new TestRunScenario();
+        scenario.setInput("one\ntwo\n");
+        TestRunScenario.Result result = scenario.run(app("exit"), log);
+        assertEquals(0, result.exitCode);
+        assertFalse(result.shutDown);
+        assertEquals(-1, result.readyMillis);
+        assertTrue(output.contains("echo one"));
+        assertTrue(output.contains("echo two"));
+    }
+
+    @Test(timeout = 30000)
+    public void shutdownAfterReady() throws Exception {
+        TestRunScenario scenario = new TestRunScenario();
+        scenario.setReadyPattern("^ready$");
+        scenario.setDuration(1);
+        scenario.setShutdownSignal("SIGTERM");
+        TestRunScenario.Result result = scenario.run(app("a", "b"), log);
+        assertTrue(result.shutDown);
+        assertTrue(result.readyMillis >= 0);
+        assertTrue(result.elapsedMillis >= result.readyMillis + 1000);
+        assertTrue(output.contains("args a b"));
+        if (Utils.isUnix()) {
+            // graceful shutdown runs the shutdown hooks, which write the profiles under xjava
+            assertTrue(output.contains("bye"));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void readyTimeIsTakenWhenLineIsRead() throws Exception {
+        Map<String, Long> logged = new ConcurrentHashMap<>();
+        SystemStreamLog slowLog = new SystemStreamLog() {
+            public void info(CharSequence line) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                logged.put(line.toString(), System.currentTimeMillis());
+            }
+        };
+        TestRunScenario scenario = new TestRunScenario();
+        scenario.setReadyPattern("^ready$");
+        scenario.setInput("");
+        CmdLineTool tool = app("exit").withLog(slowLog).withOutputPump(new ThreadedOutputPump());
+        long start = System.currentTimeMillis();
+        TestRunScenario.Result result = scenario.run(tool, log);
+        assertTrue(result.readyMillis >= 0);
+        // the log receives the ready line after the 500 ms it takes to log the line before it at the least
+        assertTrue(logged.get("ready") - start >= result.readyMillis + 500);
+    }
+
+    @Test(timeout = 30000)
+    public void notReady() throws Exception {
+        TestRunScenario scenario = new TestRunScenario();
+        scenario.setReadyPattern("never printed");
+        scenario.setReadyTimeout(1);
+        try {
+            scenario.run(app(), log);
+            fail("not ready expected");
+        } catch (CmdLineToolException expected) {
+        }
+    }
+}
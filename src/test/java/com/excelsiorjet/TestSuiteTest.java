@@ -0,0 +1,98 @@
+package com.excelsiorjet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestSuiteTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static void touch(File dir, String path) throws IOException {
+        File file = new File(dir, path.replace('/', File.separatorChar));
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        assertTrue(file.createNewFile());
+    }
+
+    private static void copyClass(File dir, String className) throws IOException {
+        String path = className.replace('.', File.separatorChar) + ".class";
+        File target = new File(dir, path);
+        assertTrue(target.getParentFile().isDirectory() || target.getParentFile().mkdirs());
+        Files.copy(new File(TestUtils.workDir(), path).toPath(), target.toPath());
+    }
+
+    @Test
+    public void findsTopLevelTestClasses() throws IOException {
+        File dir = tmp.newFolder("test-classes");
+        copyClass(dir, PerfGateTest.class.getName());
+        copyClass(dir, TestUtils.class.getName());
+        copyClass(dir, "testClasses.suite.AbstractCheck");
+        copyClass(dir, "testClasses.suite.AnnotatedCheck");
+        copyClass(dir, "testClasses.suite.HelperCheck");
+        copyClass(dir, "testClasses.suite.InheritedCheck");
+        copyClass(dir, "testClasses.suite.LegacyCheck");
+        touch(dir, "com/acme/FooTest$Inner.class");
+        touch(dir, "com/acme/BrokenTest.class");
+        touch(dir, "com/acme/test.properties");
+
+        // helpers, abstract classes and files that are not class files are skipped
+        assertEquals(Collections.singletonList(PerfGateTest.class.getName()),
+                TestSuite.findClasses(dir, TestSuite.DEFAULT_CLASS_PATTERN));
+        // tests are recognized by annotations, inherited test methods and the JUnit 3 base class
+        assertEquals(Arrays.asList("testClasses.suite.AnnotatedCheck", "testClasses.suite.InheritedCheck",
+                "testClasses.suite.LegacyCheck"), TestSuite.findClasses(dir, ".*Check"));
+        assertEquals(Collections.emptyList(), TestSuite.findClasses(new File(dir, "missing"), ".*"));
+    }
+
+    @Test
+    public void detectsFramework() {
+        assertEquals(TestSuite.JUNIT, TestSuite.detectFramework(Arrays.asList("org.testng:testng", "junit:junit")));
+        assertEquals(TestSuite.TESTNG, TestSuite.detectFramework(Collections.singletonList("org.testng:testng")));
+        assertNull(TestSuite.detectFramework(Collections.singletonList("org.junit.jupiter:junit-jupiter-api")));
+    }
+
+    @Test
+    public void junitCommandReadsClassesFromFile() throws Exception {
+        File dir = tmp.newFolder("junit");
+        List<String> command = new TestSuite(TestSuite.JUNIT, Arrays.asList("a.ATest", "b.BTest")).command(dir);
+        File arguments = new File(dir, TestSuite.JUNIT_ARGUMENTS);
+        assertEquals(Arrays.asList(ArgumentFileMain.class.getName(), TestSuite.JUNIT_RUNNER,
+                arguments.getAbsolutePath()), command);
+        assertEquals(Arrays.asList("a.ATest", "b.BTest"), Files.readAllLines(arguments.toPath()));
+        assertTrue(new File(TestSuite.launcherClasspath(dir), "com/excelsiorjet/ArgumentFileMain.class").isFile());
+
+        // the launcher passes the classes to the runner
+        CmdLineTool java = new CmdLineTool(
+                Utils.mangleExeName(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"),
+                "-cp", TestSuite.launcherClasspath(dir).getAbsolutePath() + File.pathSeparator +
+                        TestUtils.workDir().getAbsolutePath(),
+                ArgumentFileMain.class.getName(), "testClasses.PrintArgs", arguments.getAbsolutePath());
+        List<String> output = new ArrayList<>();
+        java.withOutputListener(output::add);
+        assertEquals(0, java.execute());
+        assertEquals(Arrays.asList("a.ATest", "b.BTest"), output);
+    }
+
+    @Test
+    public void testngCommandUsesSuiteFile() throws IOException {
+        File dir = tmp.newFolder("testng");
+        List<String> command = new TestSuite(TestSuite.TESTNG, Arrays.asList("a.ATest", "b.BTest")).command(dir);
+        File suite = new File(dir, TestSuite.TESTNG_SUITE);
+        assertEquals(Arrays.asList(TestSuite.TESTNG_RUNNER, suite.getAbsolutePath()), command);
+        String xml = new String(Files.readAllBytes(suite.toPath()), StandardCharsets.UTF_8);
+        assertTrue(xml.contains("<class name=\"a.ATest\"/>"));
+        assertTrue(xml.contains("<class name=\"b.BTest\"/>"));
+    }
+}
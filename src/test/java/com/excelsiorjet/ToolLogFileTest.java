@@ -0,0 +1,68 @@
+package com.excelsiorjet;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ToolLogFileTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private List<String> readGzip(File f) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(f)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void rotate() throws IOException {
+        File dir = tmp.getRoot();
+        for (int i = 0; i < 4; i++) {
+            try (ToolLogFile f = new ToolLogFile(dir, "jc", 2)) {
+                f.write(Collections.singletonList("run " + i), false);
+            }
+        }
+        assertEquals(Collections.singletonList("run 3"), readGzip(new File(dir, "jc.log.gz")));
+        assertEquals(Collections.singletonList("run 2"), readGzip(new File(dir, "jc.1.log.gz")));
+        assertEquals(Collections.singletonList("run 1"), readGzip(new File(dir, "jc.2.log.gz")));
+        assertFalse(new File(dir, "jc.3.log.gz").exists());
+    }
+
+    @Test
+    public void quietConsoleFullFile() throws Exception {
+        List<String> console = Collections.synchronizedList(new ArrayList<>());
+        SystemStreamLog log = new SystemStreamLog() {
+            public void info(CharSequence line) {
+                console.add(line.toString());
+            }
+        };
+        String java = Utils.mangleExeName(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        assertEquals(0, new CmdLineTool(java, "testClasses.PrintLines", "1000")
+                .workingDirectory(TestUtils.workDir())
+                .withLog(log)
+                .withVerbosity(OutputVerbosity.QUIET)
+                .withOutputLog(tmp.getRoot(), "tool")
+                .execute());
+        assertEquals(1, console.size());
+        List<String> lines = readGzip(new File(tmp.getRoot(), "tool.log.gz"));
+        assertEquals(1000, lines.size());
+        assertEquals("line 999", lines.get(999));
+    }
+}
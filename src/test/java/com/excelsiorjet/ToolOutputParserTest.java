@@ -0,0 +1,68 @@
+package com.excelsiorjet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class ToolOutputParserTest {
+
+    private List<ToolEvent> parse(String... lines) {
+        List<ToolEvent> events = new ArrayList<>();
+        ToolOutputParser parser = new ToolOutputParser(events::add);
+        parser.lines(Arrays.asList(lines));
+        parser.finish();
+        return events;
+    }
+
+    private ToolEvent.Kind[] kinds(List<ToolEvent> events) {
+        return events.stream().map(ToolEvent::getKind).toArray(ToolEvent.Kind[]::new);
+    }
+
+    @Test
+    public void phases() {
+        List<ToolEvent> events = parse("Compiling java/lang/Object", "Compiling java/lang/String", "Linking HelloWorld");
+        assertEquals(Arrays.asList(ToolEvent.Kind.PHASE_STARTED, ToolEvent.Kind.PHASE_FINISHED,
+                ToolEvent.Kind.PHASE_STARTED, ToolEvent.Kind.PHASE_FINISHED), Arrays.asList(kinds(events)));
+        assertEquals("compiling", events.get(1).getPhase());
+        assertEquals("linking", events.get(3).getPhase());
+    }
+
+    @Test
+    public void countsWarningsAndErrors() {
+        List<ToolEvent> events = parse("1,234 classes, 56789 methods compiled", "Warning: class X not found",
+                "error: unable to open file");
+        assertEquals(Arrays.asList(ToolEvent.Kind.CLASS_COUNT, ToolEvent.Kind.METHOD_COUNT,
+                ToolEvent.Kind.WARNING, ToolEvent.Kind.ERROR), Arrays.asList(kinds(events)));
+        assertEquals(1234, events.get(0).getCount());
+        assertEquals(56789, events.get(1).getCount());
+    }
+
+    @Test
+    public void timings() {
+        List<ToolEvent> events = parse("[0:01:02.5] Compiling", "Total compilation time: 1:00:00");
+        assertEquals(ToolEvent.Kind.PHASE_STARTED, events.get(0).getKind());
+        assertEquals(ToolEvent.Kind.TIMING, events.get(1).getKind());
+        assertEquals(62500, events.get(1).getElapsedMillis());
+        assertEquals(ToolEvent.Kind.TIMING, events.get(2).getKind());
+        assertEquals(3600000, events.get(2).getElapsedMillis());
+    }
+
+    @Test
+    public void phaseDurationsFromDecorTimes() {
+        List<ToolEvent> events = parse("[0:00:01.000] Compiling java/lang/Object", "[0:00:04.250] Linking HelloWorld",
+                "[0:00:05] Done");
+        List<ToolEvent> finished = events.stream()
+                .filter(e -> e.getKind() == ToolEvent.Kind.PHASE_FINISHED)
+                .collect(Collectors.toList());
+        assertEquals(2, finished.size());
+        assertEquals("compiling", finished.get(0).getPhase());
+        assertEquals(3250, finished.get(0).getElapsedMillis());
+        assertEquals("linking", finished.get(1).getPhase());
+        assertEquals(750, finished.get(1).getElapsedMillis());
+    }
+}
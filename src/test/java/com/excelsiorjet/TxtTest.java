@@ -0,0 +1,67 @@
+package com.excelsiorjet;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TxtTest {
+
+    private static final Pattern MESSAGE_USE = Pattern.compile("\\bs\\(\"([A-Za-z0-9_.]+)\"");
+
+    @Test
+    public void allUsedMessagesExist() throws IOException {
+        List<String> missing = new ArrayList<>();
+        int used = 0;
+        List<Path> sources;
+        try (Stream<Path> paths = Files.walk(new File("src/main/java").toPath())) {
+            sources = paths.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+        }
+        for (Path source : sources) {
+            Matcher m = MESSAGE_USE.matcher(new String(Files.readAllBytes(source), "UTF-8"));
+            while (m.find()) {
+                used++;
+                try {
+                    Txt.s(m.group(1), 0, 0, 0, 0);
+                } catch (IllegalStateException e) {
+                    missing.add(source.getFileName() + ": " + m.group(1));
+                }
+            }
+        }
+        assertTrue(used > 0);
+        assertTrue("Missing messages: " + missing, missing.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void missingMessage() {
+        Txt.s("No.Such.Message");
+    }
+
+    @Test
+    public void concurrentFormatting() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                String dir = "dir" + i;
+                results.add(executor.submit(() -> Txt.s("JetMojo.DirCreate.Error", dir)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("Unable to create directory \"dir" + i + "\"", results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
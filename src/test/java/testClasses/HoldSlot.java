@@ -0,0 +1,21 @@
+package testClasses;
+
+import com.excelsiorjet.HostSlots;
+
+import java.io.File;
+
+/**
+ * Takes a slot of the host slot pool given by the directory and the number of slots,
+ * prints "taken" and holds the slot for the given number of milliseconds.
+ */
+public class HoldSlot {
+
+    public static void main(String arg[]) throws Exception {
+        try (HostSlots.Slot ignored = new HostSlots(new File(arg[0]), Integer.parseInt(arg[1])).acquire()) {
+            System.out.println("taken");
+            System.out.flush();
+            Thread.sleep(Long.parseLong(arg[2]));
+        }
+    }
+
+}
@@ -0,0 +1,11 @@
+package testClasses;
+
+public class PrintArgs {
+
+    public static void main(String arg[]) {
+        for (String a : arg) {
+            System.out.println(a);
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package testClasses;
+
+/**
+ * Prints the given number of numbered lines to stdout.
+ */
+public class PrintLines {
+
+    public static void main(String arg[]) {
+        int n = Integer.parseInt(arg[0]);
+        for (int i = 0; i < n; i++) {
+            System.out.println("line " + i);
+        }
+    }
+
+}
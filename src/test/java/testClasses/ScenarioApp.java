@@ -0,0 +1,27 @@
+package testClasses;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+
+/**
+ * Prints its arguments and "ready", echoes the standard input until EOF, and then sleeps,
+ * printing "bye" on shutdown. With the "exit" argument, exits at EOF instead of sleeping.
+ */
+public class ScenarioApp {
+
+    public static void main(String arg[]) throws Exception {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("bye")));
+        System.out.println("args " + String.join(" ", arg));
+        System.out.println("ready");
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine()) != null) {
+            System.out.println("echo " + line);
+        }
+        if ((arg.length > 0) && arg[0].equals("exit")) {
+            return;
+        }
+        Thread.sleep(60000);
+    }
+
+}
@@ -0,0 +1,27 @@
+package testClasses;
+
+import com.excelsiorjet.ProcessTree;
+
+import java.io.File;
+
+/**
+ * Starts a child process printing its pid, and then sleeps together with the child.
+ * With the "orphan" argument, exits shortly leaving the child with the inherited output.
+ */
+public class SleepTree {
+
+    public static void main(String arg[]) throws Exception {
+        if ((arg.length == 0) || arg[0].equals("orphan")) {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    SleepTree.class.getName(), "child").inheritIO().start();
+            System.out.println("child " + ProcessTree.pid(child));
+            if (arg.length > 0) {
+                Thread.sleep(1500);
+                return;
+            }
+        }
+        Thread.sleep(60000);
+    }
+
+}
@@ -0,0 +1,10 @@
+package testClasses.suite;
+
+import org.junit.Test;
+
+public abstract class AbstractCheck {
+
+    @Test
+    public void inherited() {
+    }
+}
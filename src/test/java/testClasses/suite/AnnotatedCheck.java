@@ -0,0 +1,10 @@
+package testClasses.suite;
+
+import org.junit.Test;
+
+public class AnnotatedCheck {
+
+    @Test
+    public void annotated() {
+    }
+}
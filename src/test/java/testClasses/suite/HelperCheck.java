@@ -0,0 +1,8 @@
+package testClasses.suite;
+
+public class HelperCheck {
+
+    public static long constant() {
+        return 42L;
+    }
+}
@@ -0,0 +1,4 @@
+package testClasses.suite;
+
+public class InheritedCheck extends AbstractCheck {
+}
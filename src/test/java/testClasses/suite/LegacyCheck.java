@@ -0,0 +1,9 @@
+package testClasses.suite;
+
+import junit.framework.TestCase;
+
+public class LegacyCheck extends TestCase {
+
+    public void testLegacy() {
+    }
+}